@@ -11,8 +11,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * <p>It has three important annotations:</p>
  * <ul>
  * <li><b>@SpringBootApplication</b>: Tells Spring to start up, scan for our controllers/services, and configure the database.</li>
- * <li><b>@EnableAsync</b>: Allows tasks to run in the background (like sending emails without freezing the screen).</li>
- * <li><b>@EnableScheduling</b>: Turns on the internal clock so our Penalty Scheduler can run automatically at 3:00 AM.</li>
+ * <li><b>@EnableAsync</b>: Allows tasks to run in the background (like cancelling bookings after a facility closes).</li>
+ * <li><b>@EnableScheduling</b>: Turns on the internal clock so our Penalty Scheduler can run automatically at 3:00 AM and the Outbox Dispatcher can send queued emails.</li>
  * </ul>
  */
 @SpringBootApplication
@@ -1,10 +1,18 @@
 package start.spring.io.backend.config; // O tu paquete correspondiente
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import start.spring.io.backend.security.BCryptCostCalibrator;
+
 /**
  * This class handles the general configuration settings for the application.
  * The @Configuration annotation tells Spring that this class creates "Beans" (tools)
@@ -17,9 +25,72 @@ public class ApplicationConfig {
      * This method provides a tool to encrypt passwords.
      * We use BCrypt so that passwords are stored securely in the database,
      * rather than as plain text (like "12345"), which would be dangerous.
+     *
+     * <p>The BCrypt cost comes from "fitease.security.bcrypt-cost", so every server of the cluster uses
+     * the same one. Only when it is 0 is the cost measured on this machine so that one login takes about
+     * "fitease.security.password-hash-target" (fine for a single server, but two machines may pick different costs).
+     * New hashes are saved as "{bcrypt}$2a$..". Older hashes without the prefix, or with a lower cost,
+     * still work and are re-hashed with the current cost the next time the user logs in
+     * (see CustomUserDetailsService.updatePassword). A hash with a higher cost is kept as it is,
+     * so a slower setting on one server is never undone by another one.</p>
+     *
+     * <p>The measurement hashes a password a few times, so it runs in the background instead of
+     * holding up the startup. Only the first password check waits for it, if it is not finished yet.</p>
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${fitease.security.bcrypt-cost:0}") int fixedCost,
+                                           @Value("${fitease.security.password-hash-target:250ms}") Duration target) {
+        if (fixedCost > 0) return bcryptEncoder(fixedCost);
+
+        CompletableFuture<PasswordEncoder> calibrated = CompletableFuture.supplyAsync(
+                () -> bcryptEncoder(BCryptCostCalibrator.calibrate(target)));
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return calibrated.join().encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return calibrated.join().matches(rawPassword, encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return calibrated.join().upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    private static PasswordEncoder bcryptEncoder(int cost) {
+        System.out.println("🔐 Password hashing uses BCrypt cost " + cost);
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost) {
+            @Override
+            protected boolean upgradeEncodingNonNull(String encodedPassword) {
+                // Only make hashes stronger: re-hash when the stored cost ("$2a$12$...") is lower than the current one.
+                return storedCost(encodedPassword) < cost;
+            }
+        };
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // Hashes saved before this change have no "{bcrypt}" prefix, they are plain BCrypt.
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * Reads the cost out of a BCrypt hash like "$2a$12$...". Returns 0 if the hash does not look like one,
+     * so it gets re-hashed.
+     */
+    static int storedCost(String encodedPassword) {
+        if (encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(6) != '$') {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import start.spring.io.backend.model.Facility;
@@ -21,8 +22,12 @@ import start.spring.io.backend.repository.UserRepository;
  * This class is responsible for loading initial test data into the database when the application starts.
  * It implements CommandLineRunner, which means the 'run' method will execute automatically
  * after the server starts up. This ensures we don't have an empty database while testing.
+ *
+ * <p>It only runs on demand, with "fitease.seed.demo-data=true": the checks below are a dozen round
+ * trips to the database, and a normal start should not wait for them.</p>
  */
 @Component
+@ConditionalOnProperty(name = "fitease.seed.demo-data", havingValue = "true")
 public class DataInitializer implements CommandLineRunner {
 
     // These repositories are the tools we use to save data to the database tables.
@@ -0,0 +1,105 @@
+package start.spring.io.backend.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.security.autoconfigure.web.servlet.SecurityFilterProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Adds a read replica next to the primary database. It is only active when
+ * "fitease.datasource.replica.url" is set; without it the app uses the single database from
+ * "spring.datasource.*" exactly as before.
+ *
+ * <p>Two connection pools are created: "primary" (configured with spring.datasource.*) and "replica"
+ * (fitease.datasource.replica.*, with the same driver). ReadWriteRoutingDataSource picks one of them
+ * for every transaction, and ReadYourWritesFilter makes sure a user sees their own changes.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "fitease.datasource.replica.url")
+public class DataSourceConfig {
+
+    /**
+     * The default "fitease.datasource.replica.lag-query" (PostgreSQL): how many seconds the replica is behind.
+     * 0 on a replica that has replayed everything it received (an idle primary sends nothing, which must
+     * not look like lag), and on a plain second server.
+     */
+    static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END
+            """;
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties properties,
+                                                                 Environment environment,
+                                                                 MeterRegistry meterRegistry,
+                                                                 @Value("${fitease.datasource.replica.url}") String replicaUrl,
+                                                                 @Value("${fitease.datasource.replica.username:}") String replicaUsername,
+                                                                 @Value("${fitease.datasource.replica.password:}") String replicaPassword,
+                                                                 @Value("${fitease.datasource.replica.lag-query:}") String lagQuery,
+                                                                 @Value("${fitease.datasource.replica.max-lag:2s}") Duration maxLag) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricRegistry(meterRegistry);
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername.isBlank() ? null : replicaUsername)
+                .password(replicaPassword.isBlank() ? null : replicaPassword)
+                .build();
+        // Same pool size as the primary unless fitease.datasource.replica.hikari.* says otherwise
+        replica.setMaximumPoolSize(primary.getMaximumPoolSize());
+        replica.setMinimumIdle(primary.getMinimumIdle());
+        binder.bind("fitease.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setReadOnly(true); // A write sent there by mistake fails instead of being lost
+        replica.setMetricRegistry(meterRegistry);
+
+        System.out.println("📚 Read-only transactions use the replica " + replicaUrl.replaceAll("[?;].*", ""));
+        return new ReadWriteRoutingDataSource(primary, replica, lagQuery.isBlank() ? POSTGRES_LAG_QUERY : lagQuery,
+                maxLag, meterRegistry);
+    }
+
+    /**
+     * The DataSource used by JPA, JdbcTemplate and the transaction manager.
+     * The lazy proxy waits for the first SQL statement before choosing primary or replica.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Runs just after Spring Security, so the logged-in user is known.
+     * A user stays on the primary for the allowed lag plus one check interval after a write.
+     */
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadWriteRoutingDataSource routingDataSource,
+                                                                             @Value("${fitease.datasource.replica.max-lag:2s}") Duration maxLag,
+                                                                             @Value("${fitease.datasource.replica.check-interval:5s}") Duration checkInterval) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(routingDataSource, maxLag.plus(checkInterval).toNanos()));
+        registration.setOrder(SecurityFilterProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,82 @@
+package start.spring.io.backend.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.CacheSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate's second-level cache for Facility and User.
+ *
+ * <p>Almost every page shows bookings, penalties or reports, and each of them loads its user and
+ * facility. Those two tables change rarely, so every server keeps the rows it has read in memory
+ * (Caffeine, through the standard JCache API) and Hibernate loads them from there instead of the database.
+ * The same goes for "find the user with this email" when a page only shows the user. Logging in (the
+ * login page and API tokens) always reads the database (UserRepository.findForLogin), so a changed
+ * password or role, or a deleted account, counts at once on every server.</p>
+ *
+ * <p>When is an entry thrown away?</p>
+ * <ul>
+ * <li>A change saved through Hibernate on this server updates the entry at commit.</li>
+ * <li>A bulk UPDATE/DELETE on users or facility (for example deleting a user) empties that region.</li>
+ * <li>A native SQL statement empties every region, unless it names the tables it changes with
+ *     HibernateHints.HINT_NATIVE_SPACES (ours do). Plain JdbcTemplate writes bypass Hibernate: they may
+ *     only insert new users (the bulk import), never change cached rows.</li>
+ * <li>A change made on <b>another</b> server is not known here: the entry simply expires
+ *     "fitease.cache.entity-ttl" after it was stored (30 seconds by default). So, for example, a
+ *     facility closed on server A can still be shown as open on server B for up to that long.
+ *     A booking reads the facility from the database (FacilityRepository.findCurrent), so it cannot
+ *     book a facility that was just closed.</li>
+ * </ul>
+ *
+ * <p>Hits, misses and puts per region are under /actuator/metrics/hibernate.second.level.cache.requests.</p>
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    static final String FACILITY_REGION = "facility";
+    static final String USER_REGION = "users";
+    static final String USER_EMAIL_REGION = "users-by-email";
+
+    /**
+     * One JCache CacheManager per application context (tests start several in the same JVM),
+     * with a cache per region created up front: size limit and time to live from our properties.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${fitease.cache.entity-ttl:30s}") Duration ttl,
+                                           @Value("${fitease.cache.max-entries:10000}") long maxEntries) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("fitease-entities-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : List.of(FACILITY_REGION, USER_REGION, USER_EMAIL_REGION)) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(CacheSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(CacheSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // A region without a cache above is a mistake in the entity annotations: fail at startup.
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
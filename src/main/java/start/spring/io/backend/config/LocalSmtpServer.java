@@ -0,0 +1,184 @@
+package start.spring.io.backend.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * A tiny fake mail server that runs inside the application (only with the "local-smtp" profile).
+ *
+ * <p>It speaks just enough SMTP for JavaMail (EHLO, MAIL, RCPT, DATA, NOOP, RSET, QUIT),
+ * accepts every message and simply counts it instead of delivering it. This lets us test and
+ * load-test the email features without sending real mail through smtp.gmail.com.</p>
+ *
+ * <p>Start the app with: {@code ./mvnw spring-boot:run -Dspring-boot.run.profiles=local-smtp}</p>
+ */
+@Component
+@Profile("local-smtp")
+public class LocalSmtpServer {
+
+    // Only the last messages are kept in memory, so a load test does not fill the heap.
+    private static final int KEEP_LAST = 1000;
+
+    private final int port;
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final Deque<ReceivedMessage> lastMessages = new ConcurrentLinkedDeque<>();
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "local-smtp");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ServerSocket serverSocket;
+
+    public LocalSmtpServer(@Value("${spring.mail.port:3025}") int port) {
+        this.port = port;
+    }
+
+    /**
+     * A message as it arrived at the fake server.
+     */
+    public record ReceivedMessage(String from, List<String> recipients, String data, Instant receivedAt) {
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 100, InetAddress.getLoopbackAddress());
+        connections.submit(this::acceptLoop);
+        System.out.println("📬 Local SMTP stand-in listening on port " + getPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    /**
+     * The port really used (useful when configured with 0 = "any free port").
+     */
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    public long getReceivedCount() { return receivedCount.get(); }
+
+    public List<ReceivedMessage> getLastMessages() { return new ArrayList<>(lastMessages); }
+
+    public void reset() {
+        receivedCount.set(0);
+        lastMessages.clear();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> handle(socket));
+            } catch (SocketException closed) {
+                return; // The server is shutting down.
+            } catch (IOException e) {
+                System.err.println("❌ Local SMTP accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handles one client connection. A client may send many messages over the same connection.
+     */
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+
+            reply(out, "220 localhost FitEasePWR local SMTP");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-8BITMIME\r\n250 SMTPUTF8");
+                    case "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        from = argument(line);
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(argument(line));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        record(new ReceivedMessage(from, List.copyOf(recipients), data, Instant.now()));
+                        recipients.clear();
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // The client went away, nothing to clean up.
+        }
+    }
+
+    private String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // Lines starting with a dot are "dot-stuffed" by the client.
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private void record(ReceivedMessage message) {
+        receivedCount.incrementAndGet();
+        lastMessages.addLast(message);
+        while (lastMessages.size() > KEEP_LAST) {
+            lastMessages.pollFirst();
+        }
+    }
+
+    private String argument(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>');
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private void reply(OutputStream out, String text) throws IOException {
+        out.write((text + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
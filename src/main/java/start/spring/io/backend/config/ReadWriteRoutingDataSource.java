@@ -0,0 +1,167 @@
+package start.spring.io.backend.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the read-only transactions to a read replica and everything else to the primary database.
+ *
+ * <p>A transaction is "read-only" when it was started by {@code @Transactional(readOnly = true)}
+ * (the read methods of our services, and findById/findAll of the Spring Data repositories).
+ * Writes, read-write transactions and queries without a transaction always use the primary.
+ * It only works behind a LazyConnectionDataSourceProxy (see DataSourceConfig): the proxy asks for the
+ * real connection at the first SQL statement, when Spring already knows whether the transaction is read-only.
+ * It also needs spring.jpa.open-in-view=false: an EntityManager kept open for the whole request holds on to
+ * the connection of its first transaction, and a later read-write transaction would run on the replica.</p>
+ *
+ * <p>The replica is skipped (reads go to the primary) when:</p>
+ * <ul>
+ * <li>it cannot give a connection, or it is more than "fitease.datasource.replica.max-lag" behind
+ *     (checked every "fitease.datasource.replica.check-interval");</li>
+ * <li>the current request was pinned to the primary by ReadYourWritesFilter, because the user wrote
+ *     something a moment ago that the replica may not have yet.</li>
+ * </ul>
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagMillis;
+
+    // Set by ReadYourWritesFilter for the current request
+    private final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+    // Becomes true when the current request used a read-write transaction
+    private final ThreadLocal<Boolean> wrote = new ThreadLocal<>();
+
+    private volatile boolean replicaAvailable = true;
+    private volatile long replicaLagMillis;
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    /**
+     * @param lagQuery SQL returning the replica's lag in seconds; blank to only check that it answers
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, String lagQuery,
+                                      Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLag.toMillis();
+
+        this.primaryConnections = meterRegistry.counter("fitease.datasource.connections", "target", "primary");
+        this.replicaConnections = meterRegistry.counter("fitease.datasource.connections", "target", "replica");
+        Gauge.builder("fitease.datasource.replica.available", this, ds -> ds.replicaAvailable ? 1 : 0)
+                .description("1 while read-only transactions use the replica")
+                .register(meterRegistry);
+        Gauge.builder("fitease.datasource.replica.lag", this, ds -> ds.replicaLagMillis)
+                .description("Replication lag of the replica at the last check, in milliseconds")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (useReplica()) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replicaDown("no connection (" + e.getMessage() + ")");
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // The pools have their own credentials.
+        return getConnection();
+    }
+
+    /**
+     * Called by ReadYourWritesFilter before the request: 'pinned' sends all its reads to the primary.
+     */
+    public void beginRequest(boolean pinned) {
+        primaryOnly.set(pinned);
+        wrote.remove();
+    }
+
+    /**
+     * Called by ReadYourWritesFilter after the request.
+     *
+     * @return true if the request used a read-write transaction (so it probably wrote something)
+     */
+    public boolean finishRequest() {
+        boolean result = Boolean.TRUE.equals(wrote.get());
+        primaryOnly.remove();
+        wrote.remove();
+        return result;
+    }
+
+    /**
+     * Measures how far behind the replica is, and stops or starts using it.
+     */
+    @Scheduled(fixedDelayString = "${fitease.datasource.replica.check-interval:5s}")
+    public void checkReplica() {
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            double lagSeconds = 0;
+            if (lagQuery == null || lagQuery.isBlank()) {
+                if (!connection.isValid(2)) throw new SQLException("connection is not valid");
+            } else {
+                try (ResultSet result = statement.executeQuery(lagQuery)) {
+                    if (result.next()) lagSeconds = result.getDouble(1);
+                }
+            }
+            replicaLagMillis = (long) (lagSeconds * 1000);
+            if (replicaLagMillis > maxLagMillis) {
+                replicaDown(replicaLagMillis + " ms behind the primary");
+            } else if (!replicaAvailable) {
+                replicaAvailable = true;
+                System.out.println("✅ Read replica is back in use (" + replicaLagMillis + " ms behind)");
+            }
+        } catch (SQLException e) {
+            replicaDown("check failed (" + e.getMessage() + ")");
+        }
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (primary instanceof AutoCloseable closeable) closeable.close();
+        if (replica instanceof AutoCloseable closeable) closeable.close();
+    }
+
+    private boolean useReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) wrote.set(true);
+            return false;
+        }
+        return replicaAvailable && !Boolean.TRUE.equals(primaryOnly.get());
+    }
+
+    private void replicaDown(String reason) {
+        if (replicaAvailable) {
+            replicaAvailable = false;
+            System.err.println("⚠️ Read replica not used, reads go to the primary: " + reason);
+        }
+    }
+}
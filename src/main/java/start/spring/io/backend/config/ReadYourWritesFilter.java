@@ -0,0 +1,79 @@
+package start.spring.io.backend.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import start.spring.io.backend.security.FitEaseUserDetails;
+
+/**
+ * "Read your own writes" on top of the read replica.
+ *
+ * <p>The replica is a little behind the primary. Without this filter, a user who just booked a court
+ * could open "My Bookings" and not see the new booking, because that page reads from the replica.
+ * So when a request of a logged-in user writes to the database, we remember the moment, and for a short
+ * window afterwards all reads of that user go to the primary. The window is the allowed lag plus the
+ * time between two lag checks, so the replica has surely caught up when it ends.</p>
+ *
+ * <p>The window is remembered per server. Behind a load balancer without sticky sessions, the next
+ * request may land on another server and read from the replica (at most "max-lag" old).</p>
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final ReadWriteRoutingDataSource dataSource;
+    private final long windowNanos;
+
+    // userId -> System.nanoTime() of their last write
+    private final Map<Integer, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(ReadWriteRoutingDataSource dataSource, long windowNanos) {
+        this.dataSource = dataSource;
+        this.windowNanos = windowNanos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Integer userId = currentUserId();
+        dataSource.beginRequest(userId != null && wroteRecently(userId, System.nanoTime()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (dataSource.finishRequest() && userId != null) remember(userId);
+        }
+    }
+
+    private boolean wroteRecently(Integer userId, long now) {
+        Long lastWrite = lastWrites.get(userId);
+        if (lastWrite == null) return false;
+        if (now - lastWrite < windowNanos) return true;
+        lastWrites.remove(userId, lastWrite);
+        return false;
+    }
+
+    private void remember(Integer userId) {
+        long now = System.nanoTime();
+        if (lastWrites.size() >= MAX_TRACKED_USERS) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+        }
+        lastWrites.put(userId, now);
+    }
+
+    private static Integer currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof FitEaseUserDetails user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package start.spring.io.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+/**
+ * Replaces the servlet container's in-memory sessions with the ones stored in the database
+ * (see DatabaseSessionRepository). The browser gets a "SESSION" cookie instead of "JSESSIONID".
+ */
+@Configuration
+@EnableSpringHttpSession
+public class SessionConfig {
+}
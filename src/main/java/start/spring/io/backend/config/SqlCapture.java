@@ -0,0 +1,55 @@
+package start.spring.io.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Records the SQL statements of the requests that finish while it is open.
+ * It is the test-side view of SqlStatementRecorder: a test opens a capture, calls a page and then
+ * checks how many statements the page needed, so a page that suddenly sends one query per row
+ * (an N+1 problem) makes the build fail.
+ *
+ * <pre>{@code
+ * try (SqlCapture capture = recorder.capture()) {
+ *     client.send(GET /facilities);
+ *     SqlRequestStats page = capture.lastRequest("GET /facilities");
+ *     assertThat(page.repeatedStatements(2)).isEmpty();
+ * }
+ * }</pre>
+ */
+public class SqlCapture implements AutoCloseable {
+
+    private final List<SqlRequestStats> requests = new ArrayList<>();
+    private final Consumer<SqlCapture> onClose;
+
+    SqlCapture(Consumer<SqlCapture> onClose) {
+        this.onClose = onClose;
+    }
+
+    synchronized void add(SqlRequestStats stats) {
+        requests.add(stats);
+    }
+
+    /**
+     * Every request captured so far, oldest first.
+     */
+    public synchronized List<SqlRequestStats> getRequests() {
+        return List.copyOf(requests);
+    }
+
+    /**
+     * The most recent request with this name ("GET /facilities"); fails when there was none.
+     */
+    public synchronized SqlRequestStats lastRequest(String name) {
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            if (requests.get(i).getName().equals(name)) return requests.get(i);
+        }
+        throw new IllegalStateException("No request '" + name + "' was captured, only " + requests);
+    }
+
+    @Override
+    public void close() {
+        onClose.accept(this);
+    }
+}
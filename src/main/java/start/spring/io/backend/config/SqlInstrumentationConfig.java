@@ -0,0 +1,91 @@
+package start.spring.io.backend.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Watches the SQL the app sends: statement timings, slow statements with their parameters and
+ * statements per request (see SqlStatementRecorder and SqlInstrumentationFilter).
+ *
+ * <p>The DataSource bean ("dataSource", used by JPA, JdbcTemplate and the transaction manager) is wrapped
+ * in a datasource-proxy ProxyDataSource, which tells the recorder about every statement. With a read
+ * replica (DataSourceConfig) the wrapper sits on top of the routing, so both databases are measured.</p>
+ */
+@Configuration
+public class SqlInstrumentationConfig {
+
+    @Bean
+    public SqlStatementRecorder sqlStatementRecorder(@Value("${fitease.sql.slow-threshold:200ms}") Duration slowThreshold,
+                                                     @Value("${fitease.sql.slow-samples:50}") int slowSamples) {
+        return new SqlStatementRecorder(slowThreshold.toNanos(), slowSamples);
+    }
+
+    /**
+     * Static, so that it exists before the DataSource is created. The recorder is looked up only then.
+     */
+    @Bean
+    public static BeanPostProcessor sqlInstrumentingDataSourcePostProcessor(ObjectProvider<SqlStatementRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(recorder.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Runs first, so the statements of the security filters (sessions, login) are counted too.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlInstrumentationFilter> sqlInstrumentationFilter(SqlStatementRecorder recorder,
+                                                                                     MeterRegistry meterRegistry,
+                                                                                     @Value("${fitease.sql.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        FilterRegistrationBean<SqlInstrumentationFilter> registration = new FilterRegistrationBean<>(
+                new SqlInstrumentationFilter(recorder, meterRegistry, nPlusOneThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SqlStatementRecorder recorder) {
+        return new SlowQueryEndpoint(recorder);
+    }
+
+    /**
+     * /actuator/slowqueries: the most recent slow statements with their parameters (admins only).
+     */
+    @Endpoint(id = "slowqueries")
+    public static class SlowQueryEndpoint {
+
+        private final SqlStatementRecorder recorder;
+
+        SlowQueryEndpoint(SqlStatementRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @ReadOperation
+        public List<SqlStatementRecorder.SlowQuery> slowQueries() {
+            return recorder.getSlowQueries();
+        }
+    }
+}
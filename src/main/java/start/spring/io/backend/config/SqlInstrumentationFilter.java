@@ -0,0 +1,70 @@
+package start.spring.io.backend.config;
+
+import java.io.IOException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements of every web request and warns about N+1 queries.
+ *
+ * <p>"N+1" is the classic slow page: one query loads a list, then the page runs one more query for
+ * every row (for example "does this facility have open maintenance?" per facility card). Each query is
+ * fast, so the slow-query log does not catch it, but the page gets slower with every row.
+ * Here a request that runs the same SQL "fitease.sql.n-plus-one-threshold" times or more is printed
+ * and counted in "fitease.sql.n-plus-one".</p>
+ *
+ * <p>The number of statements per request goes to "fitease.sql.request.statements", per URL pattern.</p>
+ */
+public class SqlInstrumentationFilter extends OncePerRequestFilter {
+
+    private final SqlStatementRecorder recorder;
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public SqlInstrumentationFilter(SqlStatementRecorder recorder, MeterRegistry meterRegistry, int nPlusOneThreshold) {
+        this.recorder = recorder;
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = recorder.begin(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            recorder.finish(stats);
+            if (stats != null) report(stats, request);
+        }
+    }
+
+    private void report(SqlRequestStats stats, HttpServletRequest request) {
+        // The pattern ("/facilities/status/{id}/toggle"), not the URL, so every id does not become a new metric
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("fitease.sql.request.statements")
+                .description("SQL statements sent by one web request")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+
+        stats.repeatedStatements(nPlusOneThreshold).forEach((sql, times) -> {
+            System.out.println("⚠️ Possible N+1 on " + stats.getName() + ": " + times + "x " + sql);
+            Counter.builder("fitease.sql.n-plus-one")
+                    .description("Requests that ran the same statement many times")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package start.spring.io.backend.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The SQL statements one web request (or one measured piece of code) sent to the database.
+ *
+ * <p>Filled by SqlStatementRecorder on the thread that handles the request, so it needs no locking.
+ * A JDBC batch counts as one statement: it is one round trip, however many rows it carries.</p>
+ *
+ * <p>Tests use it to pin down how many statements a page needs, see SqlCapture.</p>
+ */
+public class SqlRequestStats {
+
+    private final String name;
+    private int statements;
+    private long totalNanos;
+    // SQL text -> how many times it ran. Hibernate sends "?" placeholders, so a lookup repeated for
+    // different ids is the same text every time.
+    private final Map<String, Integer> executions = new LinkedHashMap<>();
+
+    SqlRequestStats(String name) {
+        this.name = name;
+    }
+
+    void add(String sql, long nanos) {
+        statements++;
+        totalNanos += nanos;
+        executions.merge(sql, 1, Integer::sum);
+    }
+
+    /**
+     * What was measured, for example "GET /facilities".
+     */
+    public String getName() { return name; }
+
+    /**
+     * How many statements (round trips to the database) were sent.
+     */
+    public int getStatements() { return statements; }
+
+    /**
+     * The time spent waiting for the database, all statements together.
+     */
+    public Duration getDatabaseTime() { return Duration.ofNanos(totalNanos); }
+
+    /**
+     * How many times each distinct SQL text ran.
+     */
+    public Map<String, Integer> getExecutions() { return Map.copyOf(executions); }
+
+    /**
+     * The statements that ran at least "times" times: the sign of an N+1 problem
+     * (one query for a list, then one more query per row of that list).
+     */
+    public Map<String, Integer> repeatedStatements(int times) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executions.forEach((sql, count) -> {
+            if (count >= times) repeated.put(sql, count);
+        });
+        return repeated;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + statements + " statements in " + getDatabaseTime().toMillis() + " ms";
+    }
+}
@@ -0,0 +1,216 @@
+package start.spring.io.backend.config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sees every SQL statement the app sends (the DataSource is wrapped by datasource-proxy, see
+ * SqlInstrumentationConfig) and keeps three things:
+ * <ul>
+ * <li>How long statements take: the timer "fitease.sql.statements" (per type: select, insert, update,
+ *     delete, other) with a histogram, so /actuator/metrics can show percentiles.</li>
+ * <li>Slow statements: every statement slower than "fitease.sql.slow-threshold" is logged (only its text
+ *     with "?" and the time, never the bound values), and the last "fitease.sql.slow-samples" of them are
+ *     kept, with their bind parameters, for /actuator/slowqueries (admins only).</li>
+ * <li>The statements of the current request (SqlRequestStats), so SqlInstrumentationFilter can count
+ *     them and spot N+1 queries, and tests can assert on them (see SqlCapture).</li>
+ * </ul>
+ *
+ * <p>This replaces "spring.jpa.show-sql", which printed every statement (slowly, on the request thread)
+ * without saying how long it took.</p>
+ */
+public class SqlStatementRecorder implements QueryExecutionListener, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementRecorder.class);
+    private static final String STARTED_AT = "fitease.startedAt";
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final int MAX_BATCH_ROWS_SHOWN = 5;
+
+    /**
+     * A statement that was slower than the threshold, with the values that were bound to its "?".
+     */
+    public record SlowQuery(Instant at, long millis, String request, String sql, List<String> parameters) {}
+
+    private final long slowThresholdNanos;
+    private final int maxSlowSamples;
+
+    private final ThreadLocal<SqlRequestStats> current = new ThreadLocal<>();
+    private final Deque<SlowQuery> slowQueries = new ConcurrentLinkedDeque<>();
+    private final List<SqlCapture> captures = new CopyOnWriteArrayList<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+    private volatile Counter slowCounter;
+
+    public SqlStatementRecorder(long slowThresholdNanos, int maxSlowSamples) {
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.maxSlowSamples = maxSlowSamples;
+    }
+
+    /**
+     * Called by Spring Boot once the metrics registry exists. Statements sent before that
+     * (at startup) are still counted per request and checked for slowness, just not timed.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.slowCounter = Counter.builder("fitease.sql.slow")
+                .description("Statements slower than fitease.sql.slow-threshold")
+                .register(registry);
+        this.registry = registry;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        execution.addCustomValue(STARTED_AT, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        Long startedAt = execution.getCustomValue(STARTED_AT, Long.class);
+        long nanos = startedAt != null ? System.nanoTime() - startedAt
+                : TimeUnit.MILLISECONDS.toNanos(execution.getElapsedTime());
+        String sql = queries.size() == 1 ? queries.get(0).getQuery()
+                : queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+
+        SqlRequestStats stats = current.get();
+        if (stats != null) stats.add(sql, nanos);
+
+        MeterRegistry meters = registry;
+        if (meters != null) {
+            timers.computeIfAbsent(typeOf(sql), type -> Timer.builder("fitease.sql.statements")
+                    .description("Time the database needed for one statement (a batch counts as one)")
+                    .tag("type", type)
+                    .publishPercentileHistogram()
+                    .register(meters)).record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (nanos >= slowThresholdNanos) {
+            recordSlow(new SlowQuery(Instant.now(), TimeUnit.NANOSECONDS.toMillis(nanos),
+                    stats != null ? stats.getName() : null, sql, parametersOf(queries)));
+        }
+    }
+
+    /**
+     * Starts counting the statements of the current thread. Returns null when something is already
+     * being counted on this thread (the outer count then includes everything).
+     */
+    public SqlRequestStats begin(String name) {
+        if (current.get() != null) return null;
+        SqlRequestStats stats = new SqlRequestStats(name);
+        current.set(stats);
+        return stats;
+    }
+
+    /**
+     * Stops counting (the argument is what begin returned) and hands the result to every open SqlCapture.
+     */
+    public void finish(SqlRequestStats stats) {
+        if (stats == null) return;
+        current.remove();
+        for (SqlCapture capture : captures) capture.add(stats);
+    }
+
+    /**
+     * Runs a piece of code on this thread and returns the statements it sent. Meant for tests:
+     * {@code assertThat(recorder.measure("report", () -> service.buildReport()).getStatements()).isLessThan(5)}.
+     */
+    public SqlRequestStats measure(String name, Runnable work) {
+        SqlRequestStats stats = begin(name);
+        if (stats == null) throw new IllegalStateException("Statements are already being counted on this thread");
+        try {
+            work.run();
+        } finally {
+            finish(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Collects the statements of every request that finishes until the capture is closed.
+     * Meant for tests that call the app over HTTP, see SqlCapture.
+     */
+    public SqlCapture capture() {
+        SqlCapture capture = new SqlCapture(captures::remove);
+        captures.add(capture);
+        return capture;
+    }
+
+    /**
+     * The most recent slow statements, newest first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(slowQueries);
+    }
+
+    private void recordSlow(SlowQuery slow) {
+        // The parameters stay out of the log: they can be emails or password hashes, and log files are
+        // read by more people (and kept longer) than the admin-only endpoint.
+        log.warn("🐢 Slow SQL ({} ms{}): {}", slow.millis(), slow.request() != null ? ", " + slow.request() : "", slow.sql());
+        slowQueries.addFirst(slow);
+        while (slowQueries.size() > maxSlowSamples) slowQueries.pollLast();
+        Counter counter = slowCounter;
+        if (counter != null) counter.increment();
+    }
+
+    /**
+     * The bound values, one entry per row ("[1=42, 2='PENDING']"); a long batch shows its first rows only.
+     * Values are cut after 100 characters. They can contain personal data (emails, password hashes),
+     * which is why they are never logged and /actuator/slowqueries is for admins only, like the rest of /actuator.
+     */
+    private static List<String> parametersOf(List<QueryInfo> queries) {
+        List<String> rows = new ArrayList<>();
+        for (QueryInfo query : queries) {
+            for (List<ParameterSetOperation> row : query.getParametersList()) {
+                if (rows.size() == MAX_BATCH_ROWS_SHOWN) {
+                    rows.add("...");
+                    return rows;
+                }
+                rows.add(row.stream().map(SqlStatementRecorder::format).collect(Collectors.joining(", ", "[", "]")));
+            }
+        }
+        return rows;
+    }
+
+    private static String format(ParameterSetOperation operation) {
+        Object[] args = operation.getArgs();
+        Object value = ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2 ? null : args[1];
+        String text = value == null ? "NULL"
+                : value instanceof CharSequence ? "'" + value + "'"
+                : value instanceof byte[] bytes ? "<" + bytes.length + " bytes>"
+                : String.valueOf(value);
+        if (text.length() > MAX_PARAMETER_LENGTH) text = text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+        return args[0] + "=" + text;
+    }
+
+    private static String typeOf(String sql) {
+        String start = sql.stripLeading();
+        int end = 0;
+        while (end < start.length() && Character.isLetter(start.charAt(end))) end++;
+        String keyword = start.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "with" -> "select";
+            case "insert", "update", "delete" -> keyword;
+            default -> "other";
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package start.spring.io.backend.controller;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import start.spring.io.backend.dto.api.TokenRequest;
+import start.spring.io.backend.dto.api.TokenResponse;
+import start.spring.io.backend.security.ApiTokenService;
+import start.spring.io.backend.security.FitEaseUserDetails;
+
+/**
+ * The "login" of the JSON API: the app sends email and password once and gets a token back.
+ * All other /api/v1 requests carry that token in the "Authorization: Bearer ..." header.
+ */
+@RestController
+@RequestMapping("/api/v1/auth")
+public class ApiAuthController {
+
+    private final AuthenticationProvider authenticationProvider;
+    private final ApiTokenService tokenService;
+
+    public ApiAuthController(AuthenticationProvider authenticationProvider, ApiTokenService tokenService) {
+        this.authenticationProvider = authenticationProvider;
+        this.tokenService = tokenService;
+    }
+
+    /**
+     * Checks the password exactly like the login page (same BCrypt check and re-hashing)
+     * and returns a signed token. A wrong password is answered with 401 by ApiExceptionHandler.
+     */
+    @PostMapping("/token")
+    public TokenResponse createToken(@RequestBody TokenRequest request) {
+        Authentication authentication = authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(request.email(), request.password()));
+        FitEaseUserDetails user = (FitEaseUserDetails) authentication.getPrincipal();
+        return new TokenResponse(tokenService.issue(user), tokenService.expiresAt(),
+                user.getUserId(), user.getName(), user.getRole());
+    }
+}
@@ -0,0 +1,74 @@
+package start.spring.io.backend.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import start.spring.io.backend.dto.api.BookingDto;
+import start.spring.io.backend.dto.api.BookingRequest;
+import start.spring.io.backend.security.FitEaseUserDetails;
+import start.spring.io.backend.service.BookingService;
+import start.spring.io.backend.service.ReservationService;
+
+/**
+ * JSON API: the bookings of the logged-in user.
+ * Booking and cancelling go through BookingService, so the rules (and penalties) are the
+ * same as on the website.
+ */
+@RestController
+@RequestMapping("/api/v1/bookings")
+public class ApiBookingController {
+
+    private final ReservationService reservationService;
+    private final BookingService bookingService;
+
+    public ApiBookingController(ReservationService reservationService, BookingService bookingService) {
+        this.reservationService = reservationService;
+        this.bookingService = bookingService;
+    }
+
+    /**
+     * The user's bookings from a day on (today if no date is given), oldest first.
+     */
+    @GetMapping
+    public List<BookingDto> listBookings(@AuthenticationPrincipal FitEaseUserDetails currentUser,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        LocalDate day = from != null ? from : LocalDate.now();
+        return reservationService.getBookingsOfUser(currentUser.getUserId(), day.atStartOfDay());
+    }
+
+    /**
+     * Books a slot. A broken rule is answered with 409 and its message (see ApiExceptionHandler).
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public BookingDto book(@RequestBody BookingRequest request, @AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        if (request.facilityId() == null || request.date() == null || request.startTime() == null || request.endTime() == null) {
+            throw new IllegalArgumentException("facilityId, date, startTime and endTime are required.");
+        }
+        return BookingDto.of(bookingService.book(currentUser, request.facilityId(), request.date(),
+                request.startTime(), request.endTime(), request.participants(), request.purpose()));
+    }
+
+    /**
+     * Cancels one of the user's bookings (less than 24 hours before the game this gives a strike).
+     */
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancel(@PathVariable Integer id, @AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        if (!bookingService.cancel(id, currentUser)) throw new NoSuchElementException("Booking not found.");
+    }
+}
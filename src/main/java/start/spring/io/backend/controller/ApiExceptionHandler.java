@@ -0,0 +1,57 @@
+package start.spring.io.backend.controller;
+
+import java.time.format.DateTimeParseException;
+import java.util.NoSuchElementException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import start.spring.io.backend.dto.api.ApiError;
+import start.spring.io.backend.service.BookingException;
+
+/**
+ * Turns the exceptions of the JSON API controllers into short JSON answers with the right status,
+ * instead of the HTML error page. Only the API controllers are @RestController, so the website
+ * is not affected.
+ */
+@RestControllerAdvice(annotations = RestController.class)
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(BookingException.class)
+    public ResponseEntity<ApiError> bookingRejected(BookingException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<ApiError> notFound(NoSuchElementException e) {
+        return error(HttpStatus.NOT_FOUND, "Not found.");
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, DateTimeParseException.class,
+            HttpMessageNotReadableException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<ApiError> badRequest(Exception e) {
+        String message = e instanceof IllegalArgumentException ? e.getMessage() : "The request is not valid.";
+        return error(HttpStatus.BAD_REQUEST, message);
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ApiError> wrongPassword(AuthenticationException e) {
+        return error(HttpStatus.UNAUTHORIZED, "Wrong email or password.");
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ApiError> forbidden(AccessDeniedException e) {
+        return error(HttpStatus.FORBIDDEN, e.getMessage());
+    }
+
+    private static ResponseEntity<ApiError> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(new ApiError(status.value(), message));
+    }
+}
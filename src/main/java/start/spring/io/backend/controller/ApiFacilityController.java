@@ -0,0 +1,61 @@
+package start.spring.io.backend.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import start.spring.io.backend.dto.api.AvailabilityDto;
+import start.spring.io.backend.dto.api.FacilityDto;
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.service.FacilityService;
+import start.spring.io.backend.service.ReservationService;
+
+/**
+ * JSON API: the list of facilities and which time slots are still free on a day.
+ */
+@RestController
+@RequestMapping("/api/v1/facilities")
+public class ApiFacilityController {
+
+    private final FacilityService facilityService;
+    private final ReservationService reservationService;
+
+    public ApiFacilityController(FacilityService facilityService, ReservationService reservationService) {
+        this.facilityService = facilityService;
+        this.reservationService = reservationService;
+    }
+
+    @GetMapping
+    public List<FacilityDto> listFacilities() {
+        return facilityService.getAllFacilities().stream().map(this::toDto).toList();
+    }
+
+    @GetMapping("/{id}")
+    public FacilityDto getFacility(@PathVariable Integer id) {
+        return toDto(facilityService.getFacilityById(id).orElseThrow());
+    }
+
+    /**
+     * The booked slots of a facility on one day (today if no date is given).
+     * Example: GET /api/v1/facilities/3/availability?date=2026-11-02
+     */
+    @GetMapping("/{id}/availability")
+    public AvailabilityDto getAvailability(@PathVariable Integer id,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        Facility facility = facilityService.getFacilityById(id).orElseThrow();
+        LocalDate day = date != null ? date : LocalDate.now();
+        boolean open = "Available".equalsIgnoreCase(facility.getStatus()) || "Free".equalsIgnoreCase(facility.getStatus());
+        return new AvailabilityDto(id, day, open, reservationService.getBookedSlots(id, day));
+    }
+
+    private FacilityDto toDto(Facility facility) {
+        return new FacilityDto(facility.getFacilityId(), facility.getName(), facility.getType(), facility.getStatus(),
+                facilityService.getCapacityForType(facility.getType()));
+    }
+}
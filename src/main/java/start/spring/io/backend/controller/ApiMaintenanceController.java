@@ -0,0 +1,58 @@
+package start.spring.io.backend.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import start.spring.io.backend.dto.api.MaintenanceReportDto;
+import start.spring.io.backend.dto.api.MaintenanceReportRequest;
+import start.spring.io.backend.model.MaintenanceRequest;
+import start.spring.io.backend.security.FitEaseUserDetails;
+import start.spring.io.backend.service.MaintenanceRequestService;
+
+/**
+ * JSON API: report broken equipment (for example from the kiosk next to the court)
+ * and follow the reports the user sent.
+ */
+@RestController
+@RequestMapping("/api/v1/maintenance-reports")
+public class ApiMaintenanceController {
+
+    private final MaintenanceRequestService maintenanceService;
+
+    public ApiMaintenanceController(MaintenanceRequestService maintenanceService) {
+        this.maintenanceService = maintenanceService;
+    }
+
+    @GetMapping
+    public List<MaintenanceReportDto> listMyReports(@AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        return maintenanceService.getReportsByUser(currentUser.getUserId());
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public MaintenanceReportDto report(@RequestBody MaintenanceReportRequest request,
+                                       @AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        if (request.facilityId() == null || isBlank(request.issueType()) || isBlank(request.severity()) || isBlank(request.description())) {
+            throw new IllegalArgumentException("facilityId, issueType, severity and description are required.");
+        }
+        MaintenanceRequest maintenanceRequest = new MaintenanceRequest();
+        maintenanceRequest.setIssueType(request.issueType());
+        maintenanceRequest.setSeverity(request.severity());
+        maintenanceRequest.setDescription(request.description());
+        MaintenanceRequest saved = maintenanceService.submitReport(maintenanceRequest, request.facilityId(), currentUser);
+        return new MaintenanceReportDto(saved.getRequestId(), saved.getFacility().getFacilityId(), saved.getFacility().getName(),
+                saved.getIssueType(), saved.getSeverity(), saved.getStatus(), saved.getDescription(), saved.getReportDate());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
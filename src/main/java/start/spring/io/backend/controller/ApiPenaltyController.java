@@ -0,0 +1,29 @@
+package start.spring.io.backend.controller;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import start.spring.io.backend.dto.api.PenaltySummaryDto;
+import start.spring.io.backend.security.FitEaseUserDetails;
+import start.spring.io.backend.service.PenaltyService;
+
+/**
+ * JSON API: the strikes of the logged-in user, so the app can warn before booking is suspended.
+ */
+@RestController
+@RequestMapping("/api/v1/penalties")
+public class ApiPenaltyController {
+
+    private final PenaltyService penaltyService;
+
+    public ApiPenaltyController(PenaltyService penaltyService) {
+        this.penaltyService = penaltyService;
+    }
+
+    @GetMapping
+    public PenaltySummaryDto getMyPenalties(@AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        return penaltyService.getPenaltySummary(currentUser.getUserId());
+    }
+}
@@ -0,0 +1,62 @@
+package start.spring.io.backend.controller;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import start.spring.io.backend.service.CheckInService;
+
+/**
+ * This controller is the check-in desk at the facility (for the staff, Admins only).
+ * The user shows the code from "My Bookings", the staff scans or types it,
+ * and the reservation is marked as attended.
+ */
+@Controller
+@RequestMapping("/check-in")
+public class CheckInController {
+
+    private final CheckInService checkInService;
+
+    public CheckInController(CheckInService checkInService) {
+        this.checkInService = checkInService;
+    }
+
+    @GetMapping
+    public String desk() {
+        return "check-in";
+    }
+
+    @PostMapping
+    public String checkIn(@RequestParam("code") String code, Model model) {
+        CheckInService.Result result = checkInService.checkIn(code);
+
+        String message = switch (result) {
+            case CHECKED_IN -> "Checked in. Enjoy the game!";
+            case ALREADY_CHECKED_IN -> "This booking is already checked in.";
+            case TOO_EARLY -> "Check-in opens " + describe(checkInService.getOpensBefore()) + " before the booking starts.";
+            case TOO_LATE -> "This booking has already ended.";
+            case INVALID -> "This check-in code is not valid.";
+        };
+
+        model.addAttribute("success", result == CheckInService.Result.CHECKED_IN || result == CheckInService.Result.ALREADY_CHECKED_IN);
+        model.addAttribute("message", message);
+        return "check-in";
+    }
+
+    /**
+     * "30 minutes", "1 hour", "2 hours" or "90 minutes".
+     */
+    private static String describe(Duration duration) {
+        long minutes = duration.toMinutes();
+        if (minutes >= 60 && minutes % 60 == 0) {
+            long hours = minutes / 60;
+            return hours + (hours == 1 ? " hour" : " hours");
+        }
+        return minutes + (minutes == 1 ? " minute" : " minutes");
+    }
+}
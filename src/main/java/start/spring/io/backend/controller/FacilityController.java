@@ -9,10 +9,10 @@ import start.spring.io.backend.dto.FacilityCardView;
 import start.spring.io.backend.model.Facility;
 import start.spring.io.backend.service.FacilityService;
 import start.spring.io.backend.service.MaintenanceRequestService;
-import start.spring.io.backend.service.ReservationService;
 import start.spring.io.backend.service.UserService;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * This controller manages the Facilities page.
@@ -26,16 +26,13 @@ public class FacilityController {
     private final FacilityService service;
     private final UserService userService;
     private final MaintenanceRequestService maintenanceService;
-    private final ReservationService reservationService;
 
     public FacilityController(FacilityService service,
                               UserService userService,
-                              MaintenanceRequestService maintenanceService,
-                              ReservationService reservationService) {
+                              MaintenanceRequestService maintenanceService) {
         this.service = service;
         this.userService = userService;
         this.maintenanceService = maintenanceService;
-        this.reservationService = reservationService;
     }
 
     /**
@@ -46,8 +43,10 @@ public class FacilityController {
     public String listFacilities(Model model, Authentication authentication) {
         // We get all facilities and transform them into 'FacilityCardView' objects
         // which are easier to display on the webpage.
+        // The open maintenance reports are looked up once for all cards, not once per card.
+        Set<Integer> underMaintenance = maintenanceService.facilitiesWithActiveRequests();
         List<FacilityCardView> facilities = service.getAllFacilities().stream()
-                .map(this::toCardView)
+                .map(facility -> toCardView(facility, underMaintenance.contains(facility.getFacilityId())))
                 .toList();
 
         model.addAttribute("facilityCards", facilities);
@@ -63,24 +62,8 @@ public class FacilityController {
      */
     @PostMapping("/status/{id}/toggle")
     public String toggleStatus(@PathVariable Integer id) {
-        service.getFacilityById(id).ifPresent(facility -> {
-            boolean isAvailable = "Available".equalsIgnoreCase(facility.getStatus())
-                    || "Free".equalsIgnoreCase(facility.getStatus());
-
-            if (isAvailable) {
-                // If it was available, we close it now.
-                facility.setStatus("Unavailable");
-                service.updateFacility(id, facility);
-
-                // Important Business Logic: Cancel future reservations and notify users.
-                reservationService.cancelReservationsForFacility(id, "Facility closed by Reservation Manager.");
-
-            } else {
-                // If it was closed, we open it up again.
-                facility.setStatus("Available");
-                service.updateFacility(id, facility);
-            }
-        });
+        // One transaction for reading and changing the status (see FacilityService.toggleStatus).
+        service.toggleStatus(id);
         return "redirect:/facilities";
     }
 
@@ -90,7 +73,7 @@ public class FacilityController {
      * and deciding if the status label should be Green (Available), Red (Unavailable),
      * or Orange (Maintenance).
      */
-    private FacilityCardView toCardView(Facility facility) {
+    private FacilityCardView toCardView(Facility facility, boolean hasActiveMaintenance) {
         String type = facility.getType() != null ? facility.getType().toLowerCase() : "";
 
         // Choose a background image based on the sport type
@@ -111,9 +94,6 @@ public class FacilityController {
 
         String location = "Sports Hub";
 
-        // Check if there is an active maintenance request for this facility
-        boolean hasActiveMaintenance = maintenanceService.hasActiveRequests(facility.getFacilityId());
-
         // Check what the database says about the status
         boolean isStatusAvailable = "Available".equalsIgnoreCase(facility.getStatus())
                 || "Free".equalsIgnoreCase(facility.getStatus());
@@ -1,18 +1,17 @@
 package start.spring.io.backend.controller;
 
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import start.spring.io.backend.model.Facility;
 import start.spring.io.backend.model.MaintenanceRequest;
-import start.spring.io.backend.model.User;
-import start.spring.io.backend.service.EmailService;
+import start.spring.io.backend.security.FitEaseUserDetails;
+import start.spring.io.backend.service.CancellationProgressTracker;
 import start.spring.io.backend.service.FacilityService;
+import start.spring.io.backend.service.MaintenanceDispatcher;
 import start.spring.io.backend.service.MaintenanceRequestService;
-import start.spring.io.backend.service.UserService;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,17 +26,17 @@ public class MaintenanceRequestController {
 
     private final MaintenanceRequestService maintenanceService;
     private final FacilityService facilityService;
-    private final UserService userService;
-    private final EmailService emailService;
+    private final MaintenanceDispatcher dispatcher;
+    private final CancellationProgressTracker cancellationProgress;
 
     public MaintenanceRequestController(MaintenanceRequestService maintenanceService,
                                         FacilityService facilityService,
-                                        UserService userService,
-                                        EmailService emailService) {
+                                        MaintenanceDispatcher dispatcher,
+                                        CancellationProgressTracker cancellationProgress) {
         this.maintenanceService = maintenanceService;
         this.facilityService = facilityService;
-        this.userService = userService;
-        this.emailService = emailService;
+        this.dispatcher = dispatcher;
+        this.cancellationProgress = cancellationProgress;
     }
 
     /**
@@ -70,6 +69,11 @@ public class MaintenanceRequestController {
         model.addAttribute("inprogressCount", inprogressCount);
         model.addAttribute("resolvedCount", resolvedCount);
         model.addAttribute("selectedStatus", filter);
+        // Who is working on how many requests (kept in memory by the dispatcher, no extra query)
+        model.addAttribute("staffWorkload", dispatcher.getWorkload());
+        model.addAttribute("unassignedCount", dispatcher.getBacklogSize());
+        // Background booking cancellations started by "In progress"
+        model.addAttribute("cancellationJobs", cancellationProgress.getAll());
         model.addAttribute("currentPage", "maintenance");
 
         return "maintenance-request-list";
@@ -103,50 +107,13 @@ public class MaintenanceRequestController {
 
     /**
      * Processes the submitted form.
-     * It saves the new report, links it to the logged-in user, and sends a confirmation email.
+     * MaintenanceRequestService saves the new report, links it to the logged-in user, and sends a confirmation email.
      */
     @PostMapping("/add")
     public String addRequest(@ModelAttribute MaintenanceRequest maintenanceRequest,
                              @RequestParam("facilityId") Integer facilityId,
-                             Authentication authentication) {
-
-        // Find the facility again
-        Facility facility = facilityService.getFacilityById(facilityId)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid Facility ID"));
-        maintenanceRequest.setFacility(facility);
-
-        String userEmail = "";
-        String userName = "User";
-
-        // If the user is logged in, we link this report to their account
-        if (authentication != null && authentication.isAuthenticated()) {
-            User user = userService.getUserByEmail(authentication.getName()).orElse(null);
-            if (user != null) {
-                maintenanceRequest.setUser(user);
-                userEmail = user.getEmail();
-                userName = user.getName();
-            }
-        }
-
-        // Automatically set the date to now and status to "PENDING"
-        maintenanceRequest.setReportDate(LocalDateTime.now());
-        maintenanceRequest.setStatus("PENDING");
-
-        // Save to database
-        maintenanceService.createRequest(maintenanceRequest);
-
-        // Send a confirmation email to the user if we have their address
-        if (!userEmail.isEmpty()) {
-            String subject = "Maintenance Request Received: " + facility.getName();
-            String body = "Hello " + userName + ",\n\n" +
-                    "We have received your maintenance report for " + facility.getName() + ".\n" +
-                    "Issue: " + maintenanceRequest.getIssueType() + "\n\n" +
-                    "Our maintenance team will review it shortly.\n" +
-                    "Thank you for helping us keep FitEasePWR in top shape!\n\n" +
-                    "Best regards,\nFitEasePWR Team";
-            // Descomenta si tienes el email service activo
-            emailService.sendEmail(userEmail, subject, body);
-        }
+                             @AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        maintenanceService.submitReport(maintenanceRequest, facilityId, currentUser);
 
         // Redirect back to the facilities page so they can continue browsing
         return "redirect:/facilities";
@@ -1,6 +1,13 @@
 package start.spring.io.backend.controller;
 
-import org.springframework.security.core.Authentication;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,6 +15,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import start.spring.io.backend.model.User;
+import start.spring.io.backend.security.FitEaseUserDetails;
 import start.spring.io.backend.service.UserService;
 
 /**
@@ -20,6 +28,8 @@ import start.spring.io.backend.service.UserService;
 public class ProfileController {
 
     private final UserService userService;
+    // Where the login is kept between requests (the HTTP session)
+    private final SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
 
     public ProfileController(UserService userService) {
         this.userService = userService;
@@ -27,14 +37,12 @@ public class ProfileController {
 
     /**
      * Displays the "My Profile" page.
-     * It uses the Authentication object to find out who is currently logged in,
-     * fetches their data, and prepares the view.
+     * The logged-in user (FitEaseUserDetails) already knows its id,
+     * so we load the row by its primary key and prepare the view.
      */
     @GetMapping
-    public String myProfile(Model model, Authentication authentication) {
-        // We find the logged-in user by their email
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email)
+    public String myProfile(Model model, @AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        User user = userService.getUserById(currentUser.getUserId())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         model.addAttribute("user", user);
@@ -53,12 +61,22 @@ public class ProfileController {
      * someone else's profile by changing the ID in the browser).
      */
     @PostMapping
-    public String updateProfile(@ModelAttribute("user") User userDetails, Authentication authentication) {
-        String email = authentication.getName();
-        User currentUser = userService.getUserByEmail(email).orElseThrow();
-
+    public String updateProfile(@ModelAttribute("user") User userDetails,
+                                @AuthenticationPrincipal FitEaseUserDetails currentUser,
+                                HttpServletRequest request,
+                                HttpServletResponse response) {
         // We update using the ID of the logged-in user to be safe
-        userService.updateUser(currentUser.getUserId(), userDetails);
+        userService.updateUser(currentUser.getUserId(), userDetails).ifPresent(updated -> {
+            // The login remembers the name and email, so we refresh it with the new values.
+            FitEaseUserDetails refreshed = new FitEaseUserDetails(updated);
+            // The session is stored in the database: keep the password hash out of it (like the login does).
+            refreshed.eraseCredentials();
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(refreshed, null, refreshed.getAuthorities()));
+            SecurityContextHolder.setContext(context);
+            securityContextRepository.saveContext(context, request, response);
+            request.getSession().setAttribute("fullName", updated.getName());
+        });
 
         return "redirect:/facilities"; // Return to the main page or show a success message
     }
@@ -5,9 +5,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,12 +20,14 @@ import start.spring.io.backend.dto.ReservationCardView;
 import start.spring.io.backend.model.Facility;
 import start.spring.io.backend.model.Penalty;
 import start.spring.io.backend.model.Reservation;
-import start.spring.io.backend.model.User;
-import start.spring.io.backend.service.EmailService;
+import start.spring.io.backend.security.FitEaseUserDetails;
+import start.spring.io.backend.service.BookingException;
+import start.spring.io.backend.service.BookingService;
+import start.spring.io.backend.service.CheckInService;
 import start.spring.io.backend.service.FacilityService;
+import start.spring.io.backend.service.NoShowScheduler;
 import start.spring.io.backend.service.PenaltyService;
 import start.spring.io.backend.service.ReservationService;
-import start.spring.io.backend.service.UserService;
 
 /**
  * This is the main controller for the application.
@@ -41,21 +42,24 @@ import start.spring.io.backend.service.UserService;
 public class ReservationController {
 
     private final ReservationService service;
-    private final UserService userService;
     private final FacilityService facilityService;
     private final PenaltyService penaltyService;
-    private final EmailService emailService;
+    private final BookingService bookingService;
+    private final CheckInService checkInService;
+    private final NoShowScheduler noShowScheduler;
 
     public ReservationController(ReservationService service,
-                                 UserService userService,
                                  FacilityService facilityService,
                                  PenaltyService penaltyService,
-                                 EmailService emailService) {
+                                 BookingService bookingService,
+                                 CheckInService checkInService,
+                                 NoShowScheduler noShowScheduler) {
         this.service = service;
-        this.userService = userService;
         this.facilityService = facilityService;
         this.penaltyService = penaltyService;
-        this.emailService = emailService;
+        this.bookingService = bookingService;
+        this.checkInService = checkInService;
+        this.noShowScheduler = noShowScheduler;
     }
 
     /**
@@ -64,10 +68,9 @@ public class ReservationController {
      * It allows filtering between "Upcoming" and "Past" events.
      */
     @GetMapping
-    public String list(Model model, Authentication authentication, @RequestParam(value = "filter", defaultValue = "upcoming") String filter) {
-        // Find who is logged in
-        Optional<User> user = getAuthenticatedUser(authentication);
-        Integer userId = user.map(User::getUserId).orElse(null);
+    public String list(Model model, @AuthenticationPrincipal FitEaseUserDetails currentUser, @RequestParam(value = "filter", defaultValue = "upcoming") String filter) {
+        // Who is logged in (id and name come with the login, no database lookup)
+        Integer userId = currentUser != null ? currentUser.getUserId() : null;
 
         // Get their reservations from the database
         List<Reservation> reservations = userId == null ? Collections.emptyList() : service.getByUserId(userId);
@@ -81,7 +84,7 @@ public class ReservationController {
         model.addAttribute("reservations", reservations);
         model.addAttribute("reservationCards", cards);
         model.addAttribute("filter", filter);
-        model.addAttribute("userName", user.map(User::getName).orElse("Guest"));
+        model.addAttribute("userName", currentUser != null ? currentUser.getName() : "Guest");
         model.addAttribute("currentPage", "reservations");
         return "reservation-list";
     }
@@ -132,11 +135,9 @@ public class ReservationController {
 
     /**
      * PROCESS BOOKING
-     * This is the logic center. It validates the user's request:
-     * - Is the facility open?
-     * - Is the time valid?
-     * - Is the slot already taken?
-     * If all is good, it saves the booking and sends an email.
+     * The rules (is the facility open, is the slot free, is the user suspended...) live in
+     * BookingService, which also saves the booking and sends the confirmation email.
+     * If a rule is broken, we show the booking page again with its message.
      */
     @PostMapping("/book")
     public String bookReservation(@RequestParam("facilityId") Integer facilityId,
@@ -145,70 +146,14 @@ public class ReservationController {
                                   @RequestParam("endTime") String endTime,
                                   @RequestParam("participants") Integer participants,
                                   @RequestParam(value = "purpose", required = false) String purpose,
-                                  Authentication authentication,
+                                  @AuthenticationPrincipal FitEaseUserDetails currentUser,
                                   Model model) {
-
-        LocalDate date = LocalDate.parse(bookingDate);
-        LocalTime start = LocalTime.parse(startTime);
-        LocalTime end = LocalTime.parse(endTime);
-
-        LocalDateTime bookingStart = LocalDateTime.of(date, start);
-
-        // RULE
-        // Users cannot book a slot that starts in 2 minutes. They need at least 10 min prior.
-        if (bookingStart.isBefore(LocalDateTime.now().plusMinutes(10))) {
-            return bookingError(model, facilityId, "You must book at least 10 minutes in advance.");
+        try {
+            bookingService.book(currentUser, facilityId, LocalDate.parse(bookingDate),
+                    LocalTime.parse(startTime), LocalTime.parse(endTime), participants, purpose);
+        } catch (BookingException e) {
+            return bookingError(model, facilityId, e.getMessage());
         }
-
-        // End time must be after Start time
-        if (!end.isAfter(start)) return bookingError(model, facilityId, "End time must be after the start time.");
-
-        // Check if facility is physically available
-        Facility facility = facilityService.getFacilityById(facilityId).orElseThrow();
-        if (!"Available".equalsIgnoreCase(facility.getStatus()) && !"Free".equalsIgnoreCase(facility.getStatus())) {
-            return bookingError(model, facilityId, "Facility unavailable.");
-        }
-
-        // Check capacity
-        if (participants > facilityService.getCapacityForType(facility.getType())) return bookingError(model, facilityId, "Too many participants.");
-
-        // Create the object
-        Reservation reservation = new Reservation();
-        reservation.setParticipants(participants);
-        reservation.setPurpose(purpose);
-        reservation.setDate(LocalDateTime.of(date, start));
-        reservation.setStartTime(start);
-        reservation.setEndTime(end);
-
-        Integer userId = 1; // Default fallback user (if something goes wrong with auth)
-        String userEmail = "";
-        String userName = "User";
-
-        // Link to the real logged-in user
-        if (authentication != null && authentication.isAuthenticated()) {
-            User currentUser = userService.getUserByEmail(authentication.getName()).orElse(null);
-            if(currentUser != null) {
-                userId = currentUser.getUserId();
-                userEmail = currentUser.getEmail();
-                userName = currentUser.getName();
-            }
-        }
-
-        // Is the facility already booked by someone else?
-        if (service.hasOverlap(facilityId, date, start, end)) return bookingError(model, facilityId, "Time slot booked.");
-        // Does this specific user already have a booking at this time? (Double booking)
-        if (service.hasUserOverlap(userId, date, start, end)) return bookingError(model, facilityId, "You have another booking.");
-
-        // Save to DB
-        service.create(reservation, userId, facilityId);
-
-        // Send confirmation email
-        if (!userEmail.isEmpty()) {
-            String subject = "Booking Confirmed: " + facility.getName();
-            String body = "Hello " + userName + ",\n\nYour booking for " + facility.getName() + " on " + date + " is confirmed.\n\nFitEasePWR Team";
-            emailService.sendEmail(userEmail, subject, body);
-        }
-
         return "redirect:/facilities";
     }
 
@@ -251,44 +196,25 @@ public class ReservationController {
 
         if (!end.isAfter(start)) return "redirect:/reservations";
 
-        Reservation reservation = service.getById(id).orElseThrow();
+        // Only the new values: ReservationService.update reads the booking and changes it in one transaction.
+        Reservation reservation = new Reservation();
         reservation.setDate(LocalDateTime.of(date, start));
         reservation.setStartTime(start);
         reservation.setEndTime(end);
         reservation.setParticipants(participants);
         reservation.setPurpose(purpose);
-        service.update(id, reservation);
+        service.update(id, reservation).orElseThrow();
         return "redirect:/reservations";
     }
 
     /**
      * CANCEL RESERVATION
-     * If the user cancels within 24 hours of the game, we apply a penalty.
+     * If the user cancels within 24 hours of the game, BookingService applies a penalty.
+     * Only the owner of the booking (or an admin) can cancel it.
      */
     @GetMapping("/delete/{id}")
-    public String delete(@PathVariable Integer id) {
-        Optional<Reservation> reservationOpt = service.getById(id);
-        if (reservationOpt.isPresent()) {
-            Reservation r = reservationOpt.get();
-            LocalDateTime now = LocalDateTime.now();
-
-            // If the game is in the future AND it is less than 24 hours away
-            if (r.getDate().isAfter(now) && r.getDate().isBefore(now.plusHours(24))) {
-                User user = r.getUser();
-                if (user != null) {
-                    // Create a penalty record
-                    Penalty penalty = new Penalty();
-                    penalty.setUser(user);
-                    penalty.setDescription("Late cancellation for reservation ID " + id);
-                    penalty.setDatehour(now);
-                    penaltyService.createPenalty(penalty);
-
-                    // Notify user
-                    emailService.sendEmail(user.getEmail(), "Penalty Applied", "You have been penalized for late cancellation.");
-                }
-            }
-        }
-        service.delete(id);
+    public String delete(@PathVariable Integer id, @AuthenticationPrincipal FitEaseUserDetails currentUser) {
+        bookingService.cancel(id, currentUser);
         return "redirect:/reservations";
     }
 
@@ -307,9 +233,8 @@ public class ReservationController {
         model.addAttribute("todaysReservations", cards);
         model.addAttribute("penalties", penaltyService.getAllPenalties());
 
-        // Prepare data for the modals (Add Penalty, User List)
+        // Prepare data for the Add Penalty modal (users are searched while typing, see /users/search)
         model.addAttribute("newPenalty", new Penalty());
-        model.addAttribute("users", userService.getUsersByRole("user"));
         model.addAttribute("currentPage", "manager");
         return "admin-reservations";
     }
@@ -317,45 +242,17 @@ public class ReservationController {
     /**
      * MARK NO-SHOW
      * Admin clicks this if a user didn't turn up for their match.
+     * (NoShowScheduler also does this automatically for bookings without a check-in.)
      */
     @PostMapping("/admin/no-show/{id}")
     public String markNoShow(@PathVariable Integer id) {
-        service.getById(id).ifPresent(res -> {
-
-            // We give a 10-minute period to show up.
-            // If the reservation started at 10:00, the admin cannot mark "No Show" until 10:11.
-            LocalDateTime cutOffTime = res.getDate().plusMinutes(10);
-
-            if (LocalDateTime.now().isBefore(cutOffTime)) {
-                return; // Too early, do nothing.
-            }
-
-            User user = res.getUser();
-            if (user != null) {
-                String description = "No-Show: " + res.getDate();
-
-                // Avoid punishing the user twice for the same reservation.
-                if (!penaltyService.existsPenalty(user, description)) {
-                    Penalty penalty = new Penalty();
-                    penalty.setUser(user);
-                    penalty.setDescription(description);
-                    penalty.setDatehour(LocalDateTime.now());
-                    penaltyService.createPenalty(penalty);
-
-                    emailService.sendEmail(user.getEmail(), "Penalty Applied", "You missed your reservation.");
-                }
-            }
-        });
+        // Too early (within the grace period) or already checked in: nothing happens.
+        noShowScheduler.markNoShow(id);
         return "redirect:/reservations/manager";
     }
 
     // --- HELPER METHODS ---
 
-    private Optional<User> getAuthenticatedUser(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) return Optional.empty();
-        return userService.getUserByEmail(authentication.getName());
-    }
-
     private boolean matchesFilter(ReservationCardView card, String filter) {
         if ("past".equalsIgnoreCase(filter)) return "Past".equalsIgnoreCase(card.statusLabel());
         return "Upcoming".equalsIgnoreCase(card.statusLabel());
@@ -375,7 +272,13 @@ public class ReservationController {
         String statusClass = isPast ? "status-past" : "";
         boolean incursPenalty = !isPast && start.isBefore(LocalDateTime.now().plusHours(24));
 
-        return new ReservationCardView(reservation, facilityName, type, "Sports Hub", imageUrl, statusLabel, statusClass, start, reservation.getDate().with(reservation.getEndTime()), reservation.getParticipants(), reservation.getPurpose(), incursPenalty);
+        boolean checkedIn = reservation.getCheckedInAt() != null;
+        // Shown to the staff at the desk; the user cannot check in by themselves.
+        String checkInCode = !checkedIn && checkInService.isCheckInOpen(reservation)
+                ? checkInService.codeFor(reservation)
+                : null;
+
+        return new ReservationCardView(reservation, facilityName, type, "Sports Hub", imageUrl, statusLabel, statusClass, start, reservation.getDate().with(reservation.getEndTime()), reservation.getParticipants(), reservation.getPurpose(), incursPenalty, checkedIn, checkInCode);
     }
 
     /**
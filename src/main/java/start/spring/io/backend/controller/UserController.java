@@ -1,10 +1,18 @@
 package start.spring.io.backend.controller;
 
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import start.spring.io.backend.dto.UserSummaryView;
 import start.spring.io.backend.model.User;
+import start.spring.io.backend.service.UserImportService;
 import start.spring.io.backend.service.UserService;
 
 /**
@@ -20,21 +28,32 @@ import start.spring.io.backend.service.UserService;
 @PreAuthorize("hasRole('admin')")
 public class UserController {
 
+    private static final int MAX_SUGGESTIONS = 10;
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final int pageSize;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService,
+                          @Value("${fitease.users.page-size:50}") int pageSize) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.pageSize = Math.max(1, pageSize);
     }
 
     /**
-     * Displays the list of all users in the system.
+     * Displays one page of users, optionally filtered by the start of their name or email.
+     * "after" is the last user id of the previous page (see UserPageView).
      * We also send an empty "newUser" object to the view so the "Add User" modal/form
      * has somewhere to store data if the admin wants to create one.
      */
     @GetMapping
-    public String listUsers(Model model) {
-        model.addAttribute("users", userService.getAllUsers());
+    public String listUsers(@RequestParam(required = false) String q,
+                            @RequestParam(required = false) Integer after,
+                            Model model) {
+        model.addAttribute("page", userService.getUserPage(q, after, pageSize));
         model.addAttribute("newUser", new User());
+        model.addAttribute("imports", userImportService.getImports());
         model.addAttribute("currentPage", "users");
         return "user-list";
     }
@@ -50,12 +69,42 @@ public class UserController {
     }
 
     /**
-     * Deletes a user based on their ID.
-     * The ID comes from the URL (e.g., /users/delete/5).
+     * Typeahead for search boxes (for example the penalty dialog): returns JSON like
+     * [{"userId":3,"name":"Ana","email":"ana@pwr.edu.pl","role":"user"}].
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public List<UserSummaryView> searchUsers(@RequestParam String q,
+                                             @RequestParam(defaultValue = "user") String role) {
+        return userService.suggestUsers(q, role, MAX_SUGGESTIONS);
+    }
+
+    /**
+     * Uploads a CSV or NDJSON file of users to create.
+     * The import runs in the background; its progress is shown on the Users page.
+     */
+    @PostMapping("/import")
+    public String importUsers(@RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("importError", "Please choose a file to import.");
+            return "redirect:/users";
+        }
+        try {
+            userImportService.startImport(file);
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("importError", "Could not read the file: " + e.getMessage());
+        }
+        return "redirect:/users";
+    }
+
+    /**
+     * Deletes a user based on their ID, together with their bookings, penalties and reports.
+     * The ID comes from the URL (e.g., /users/delete/5). A summary of what was removed is shown on the list.
      */
     @GetMapping("/delete/{id}")
-    public String deleteUser(@PathVariable Integer id) {
-        userService.deleteUser(id);
+    public String deleteUser(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
+        userService.deleteUser(id).ifPresent(report ->
+                redirectAttributes.addFlashAttribute("deletionMessage", report.summary()));
         return "redirect:/users";
     }
 
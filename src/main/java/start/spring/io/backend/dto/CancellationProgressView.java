@@ -0,0 +1,18 @@
+package start.spring.io.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A snapshot of a mass cancellation that runs in the background after a facility closes.
+ * It lets the staff see how many bookings have already been cancelled.
+ */
+public record CancellationProgressView(
+        Integer facilityId,
+        String reason,
+        long total,                 // Future bookings found when the job started
+        long cancelled,             // Bookings already cancelled and notified
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt    // null while the job is still running
+) {
+    public boolean isRunning() { return finishedAt == null; }
+}
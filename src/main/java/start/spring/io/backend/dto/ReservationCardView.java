@@ -20,6 +20,8 @@ public record ReservationCardView(
         LocalDateTime endDateTime,
         int participants,
         String purpose,
-        boolean incursPenalty       // Tells the user "If you cancel now, you get a strike!"
+        boolean incursPenalty,      // Tells the user "If you cancel now, you get a strike!"
+        boolean checkedIn,          // The user already checked in at the facility
+        String checkInCode          // Signed code to show at the check-in desk, only while check-in is open
 ) {
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package start.spring.io.backend.dto;
+
+/**
+ * A small summary of how busy one maintenance staff member is.
+ * It is shown on the Maintenance Panel so everyone can see who is working on what.
+ */
+public record StaffWorkloadView(
+        Integer staffId,
+        String name,
+        int activeRequests          // Requests assigned to this person that are not RESOLVED yet
+) {
+}
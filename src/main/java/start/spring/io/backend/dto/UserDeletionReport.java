@@ -0,0 +1,20 @@
+package start.spring.io.backend.dto;
+
+/**
+ * What was removed together with a deleted user account.
+ */
+public record UserDeletionReport(
+        Integer userId,
+        String email,
+        int reservations,           // Bookings deleted
+        int penalties,              // Penalties deleted
+        int maintenanceRequests,    // Reports written by the user, deleted
+        int unassignedRequests      // Reports that were assigned to the user (staff) and went back to the queue
+) {
+    public String summary() {
+        return "Deleted " + email + " with " + reservations + " reservations, " + penalties + " penalties and "
+                + maintenanceRequests + " maintenance reports"
+                + (unassignedRequests > 0 ? " (" + unassignedRequests + " assigned reports went back to the queue)" : "")
+                + ".";
+    }
+}
@@ -0,0 +1,27 @@
+package start.spring.io.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A snapshot of a bulk user import, shown on the Users page while it runs and after it ends.
+ */
+public record UserImportProgressView(
+        String importId,
+        String fileName,
+        long processed,             // Rows read so far
+        long imported,              // Accounts created
+        long duplicates,            // Emails that already had an account (or appeared twice in the file)
+        long failed,                // Rows with an error (see 'errors')
+        List<RowError> errors,      // The first errors, with their line number
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt    // null while the import is still running
+) {
+    public boolean isRunning() { return finishedAt == null; }
+
+    /**
+     * Why one line of the file was not imported.
+     */
+    public record RowError(long line, String email, String message) {
+    }
+}
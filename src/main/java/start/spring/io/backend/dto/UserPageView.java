@@ -0,0 +1,16 @@
+package start.spring.io.backend.dto;
+
+import java.util.List;
+
+/**
+ * One page of the admin user list.
+ * Pages are found by "keyset": the next page starts after the last id of this one,
+ * so page 100 is as fast as page 1 (no OFFSET that skips thousands of rows).
+ */
+public record UserPageView(
+        List<UserSummaryView> users,
+        String query,               // The search text, or null for all users
+        Integer nextAfterId         // Pass as "after" to get the next page; null on the last page
+) {
+    public boolean hasNext() { return nextAfterId != null; }
+}
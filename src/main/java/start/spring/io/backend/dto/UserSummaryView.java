@@ -0,0 +1,14 @@
+package start.spring.io.backend.dto;
+
+/**
+ * The few user columns that lists and search boxes need.
+ * Read directly by the query, so no User entity (with its lists of reservations,
+ * penalties and reports) is created.
+ */
+public record UserSummaryView(
+        Integer userId,
+        String name,
+        String email,
+        String role
+) {
+}
@@ -0,0 +1,7 @@
+package start.spring.io.backend.dto.api;
+
+/**
+ * The body of every error answer of the JSON API, for example {"status":409,"message":"Time slot booked."}.
+ */
+public record ApiError(int status, String message) {
+}
@@ -0,0 +1,15 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * The booked time slots of one facility on one day. Everything else is free,
+ * as long as 'open' is true (the facility is not closed for maintenance).
+ */
+public record AvailabilityDto(Integer facilityId, LocalDate date, boolean open, List<TimeSlot> booked) {
+
+    public record TimeSlot(LocalTime start, LocalTime end) {
+    }
+}
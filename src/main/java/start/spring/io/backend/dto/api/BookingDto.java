@@ -0,0 +1,20 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import start.spring.io.backend.model.Reservation;
+
+/**
+ * One booking as the JSON API shows it: only the facility's id and name, not the whole Facility and User.
+ * ReservationRepository.findBookingsOfUser builds these directly in the query.
+ */
+public record BookingDto(Integer id, Integer facilityId, String facilityName, LocalDateTime date,
+                         LocalTime startTime, LocalTime endTime, Integer participants, String purpose,
+                         LocalDateTime checkedInAt) {
+
+    public static BookingDto of(Reservation r) {
+        return new BookingDto(r.getReservationId(), r.getFacility().getFacilityId(), r.getFacility().getName(),
+                r.getDate(), r.getStartTime(), r.getEndTime(), r.getParticipants(), r.getPurpose(), r.getCheckedInAt());
+    }
+}
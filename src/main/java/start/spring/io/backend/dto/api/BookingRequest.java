@@ -0,0 +1,12 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * The body of POST /api/v1/bookings, for example
+ * {"facilityId":3,"date":"2026-11-02","startTime":"18:00","endTime":"19:30","participants":4}.
+ */
+public record BookingRequest(Integer facilityId, LocalDate date, LocalTime startTime, LocalTime endTime,
+                             Integer participants, String purpose) {
+}
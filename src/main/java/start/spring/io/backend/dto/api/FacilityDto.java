@@ -0,0 +1,7 @@
+package start.spring.io.backend.dto.api;
+
+/**
+ * One facility as the JSON API shows it, with the maximum group size for its type.
+ */
+public record FacilityDto(Integer id, String name, String type, String status, int capacity) {
+}
@@ -0,0 +1,11 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.LocalDateTime;
+
+/**
+ * One maintenance report as the JSON API shows it.
+ * MaintenanceRequestRepository.findReportsByUser builds these directly in the query.
+ */
+public record MaintenanceReportDto(Integer id, Integer facilityId, String facilityName, String issueType,
+                                   String severity, String status, String description, LocalDateTime reportDate) {
+}
@@ -0,0 +1,7 @@
+package start.spring.io.backend.dto.api;
+
+/**
+ * The body of POST /api/v1/maintenance-reports (the same fields as the report form).
+ */
+public record MaintenanceReportRequest(Integer facilityId, String issueType, String severity, String description) {
+}
@@ -0,0 +1,11 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.LocalDateTime;
+
+import start.spring.io.backend.model.PenaltyReason;
+
+/**
+ * One penalty of the logged-in user, as the JSON API shows it.
+ */
+public record PenaltyDto(Integer id, PenaltyReason reason, String description, LocalDateTime datehour) {
+}
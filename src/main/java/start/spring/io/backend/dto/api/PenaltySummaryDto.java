@@ -0,0 +1,11 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The strikes of a user: how many still count, until when booking is suspended (null = not suspended)
+ * and the penalties themselves, newest first.
+ */
+public record PenaltySummaryDto(int activeStrikes, LocalDateTime suspendedUntil, List<PenaltyDto> penalties) {
+}
@@ -0,0 +1,7 @@
+package start.spring.io.backend.dto.api;
+
+/**
+ * The body of POST /api/v1/auth/token: the same email and password as on the login page.
+ */
+public record TokenRequest(String email, String password) {
+}
@@ -0,0 +1,10 @@
+package start.spring.io.backend.dto.api;
+
+import java.time.Instant;
+
+/**
+ * A new API token. The client sends it back as "Authorization: Bearer {token}" until 'expiresAt',
+ * then asks for a new one.
+ */
+public record TokenResponse(String token, Instant expiresAt, Integer userId, String name, String role) {
+}
@@ -0,0 +1,12 @@
+package start.spring.io.backend.event;
+
+/**
+ * This is a "Domain Event": a small message that says "something important just happened".
+ * It is published when a facility is closed (for maintenance or by the manager),
+ * so other parts of the app can react to it later, outside the original database transaction.
+ */
+public record FacilityClosedEvent(
+        Integer facilityId,     // The court that was closed
+        String reason           // Text shown to users in the cancellation email
+) {
+}
@@ -0,0 +1,14 @@
+package start.spring.io.backend.event;
+
+import java.nio.file.Path;
+
+/**
+ * Published when an admin uploads a file of users to create.
+ * The import itself runs in the background (see UserImportListener), so the upload returns at once.
+ */
+public record UserImportRequestedEvent(
+        String importId,        // Key of the progress entry shown on the Users page
+        Path file,              // Temporary copy of the uploaded file, deleted when the import ends
+        String fileName         // Original name, used to tell CSV from NDJSON
+) {
+}
@@ -2,19 +2,25 @@ package start.spring.io.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * This class represents a physical space, like "Tennis Court 1" or "Main Soccer Field".
  * It stores info about what type of sport it is and if it's currently open (Available) or closed.
+ * Facilities are kept in the second-level cache (see EntityCacheConfig), because every booking shows one.
  */
 @Entity
 @Table(name = "facility")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "facility")
 public class Facility {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "facility_seq")
+    @SequenceGenerator(name = "facility_seq", sequenceName = "facility_seq", allocationSize = 50)
     @Column(name = "facilityid")
     private Integer facilityId;
 
@@ -0,0 +1,50 @@
+package start.spring.io.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One logged-in browser session, stored in the database so every server can read it.
+ * All session attributes (the logged-in user, the CSRF token, "fullName", ...) are kept
+ * together in one compressed column, so loading a session is a single-row read.
+ * Times are stored as epoch milliseconds.
+ */
+@Entity
+@Table(name = "http_session", indexes = {
+        @Index(name = "idx_http_session_expiry", columnList = "expirytime")
+})
+public class HttpSessionRecord {
+
+    @Id
+    @Column(name = "sessionid", length = 64)
+    private String sessionId; // The value of the SESSION cookie
+
+    @Column(name = "creationtime", nullable = false)
+    private long creationTime;
+
+    @Column(name = "lastaccesstime", nullable = false)
+    private long lastAccessTime;
+
+    @Column(name = "maxinactiveseconds", nullable = false)
+    private int maxInactiveSeconds;
+
+    @Column(name = "expirytime", nullable = false)
+    private long expiryTime; // lastAccessTime + maxInactiveSeconds, so the cleanup can use the index
+
+    @Column(name = "attributes", nullable = false, length = 1048576)
+    private byte[] attributes; // All attributes, serialized and compressed
+
+    public HttpSessionRecord() {}
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+    public long getCreationTime() { return creationTime; }
+    public void setCreationTime(long creationTime) { this.creationTime = creationTime; }
+    public long getLastAccessTime() { return lastAccessTime; }
+    public void setLastAccessTime(long lastAccessTime) { this.lastAccessTime = lastAccessTime; }
+    public int getMaxInactiveSeconds() { return maxInactiveSeconds; }
+    public void setMaxInactiveSeconds(int maxInactiveSeconds) { this.maxInactiveSeconds = maxInactiveSeconds; }
+    public long getExpiryTime() { return expiryTime; }
+    public void setExpiryTime(long expiryTime) { this.expiryTime = expiryTime; }
+    public byte[] getAttributes() { return attributes; }
+    public void setAttributes(byte[] attributes) { this.attributes = attributes; }
+}
@@ -13,7 +13,8 @@ import org.springframework.format.annotation.DateTimeFormat;
 public class MaintenanceRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "maintenance_request_seq")
+    @SequenceGenerator(name = "maintenance_request_seq", sequenceName = "maintenance_request_seq", allocationSize = 50)
     @Column(name = "requestid")
     private Integer requestId;
 
@@ -0,0 +1,88 @@
+package start.spring.io.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * This class represents one email waiting to be sent (the "Outbox").
+ * Instead of sending emails straight away from memory, we first save them in this table,
+ * in the same transaction as the booking/penalty/cancellation that caused them.
+ * A background job (OutboxDispatcher) then sends them, retrying if the mail server fails.
+ * This way no email is lost if the server restarts.
+ */
+@Entity
+@Table(name = "notification_outbox",
+        indexes = @Index(name = "idx_outbox_status_next", columnList = "status, nextattemptat"))
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    @Column(name = "outboxid")
+    private Long outboxId;
+
+    @Column(name = "recipient", nullable = false, length = 254)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status; // "PENDING", "SENDING", "SENT" or "DEAD" (gave up after too many failures)
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "createdat", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "nextattemptat", nullable = false)
+    private LocalDateTime nextAttemptAt; // When the dispatcher may (re)try this message
+
+    @Column(name = "sentat")
+    private LocalDateTime sentAt;
+
+    @Column(name = "lasterror", columnDefinition = "TEXT")
+    private String lastError;
+
+    public NotificationOutbox() {}
+
+    /**
+     * Constructor for a brand new message that can be sent right away.
+     */
+    public NotificationOutbox(String recipient, String subject, String body, LocalDateTime now) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.status = "PENDING";
+        this.attempts = 0;
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+
+    // Getters and Setters
+
+    public Long getOutboxId() { return outboxId; }
+    public void setOutboxId(Long outboxId) { this.outboxId = outboxId; }
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
@@ -1,6 +1,9 @@
 package start.spring.io.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
 import java.time.LocalDateTime;
 
 /**
@@ -9,11 +12,15 @@ import java.time.LocalDateTime;
  * This helps the manager track who is misusing the system.
  */
 @Entity
-@Table(name = "penalty")
+@Table(name = "penalty",
+        indexes = @Index(name = "idx_penalty_datehour", columnList = "datehour"),
+        // One reservation can only get one penalty of each kind (for example one NO_SHOW).
+        uniqueConstraints = @UniqueConstraint(name = "uq_penalty_reservation_reason", columnNames = {"reservationid", "reason"}))
 public class Penalty {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "penalty_seq")
+    @SequenceGenerator(name = "penalty_seq", sequenceName = "penalty_seq", allocationSize = 50)
     @Column(name = "penaltyid")
     private Integer penaltyId;
 
@@ -26,6 +33,20 @@ public class Penalty {
     @JoinColumn(name = "userid", nullable = false)
     private User user;
 
+    /**
+     * The reservation this penalty is about (empty for penalties added by hand).
+     * If the reservation is deleted later, the penalty stays and this link becomes empty.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "reservationid")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Reservation reservation;
+
+    // The DEFAULT fills in older rows when the column is added to an existing database.
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, columnDefinition = "VARCHAR(30) DEFAULT 'MANUAL'")
+    private PenaltyReason reason = PenaltyReason.MANUAL;
+
     @Column(name = "description", nullable = false, columnDefinition = "TEXT")
     private String description; // like "No-show for reservation on Monday"
 
@@ -54,6 +75,12 @@ public class Penalty {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
+    public Reservation getReservation() { return reservation; }
+    public void setReservation(Reservation reservation) { this.reservation = reservation; }
+
+    public PenaltyReason getReason() { return reason; }
+    public void setReason(PenaltyReason reason) { this.reason = reason; }
+
     public LocalDateTime getDatehour() { return datehour; }
     public void setDatehour(LocalDateTime datehour) { this.datehour = datehour; }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package start.spring.io.backend.model;
+
+/**
+ * Why a penalty (strike) was given.
+ * It is saved as text in the "reason" column of the penalty table.
+ */
+public enum PenaltyReason {
+    NO_SHOW,            // The user did not turn up for a reservation
+    LATE_CANCELLATION,  // The user cancelled less than 24 hours before the start
+    MANUAL              // Added by hand by a manager
+}
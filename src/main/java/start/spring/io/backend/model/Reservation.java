@@ -12,11 +12,14 @@ import java.time.LocalTime;
  * 3. A Time (When is it?)
  */
 @Entity
-@Table(name = "reservation")
+@Table(name = "reservation",
+        // Lets the no-show job find "started, but nobody checked in" bookings without scanning the table.
+        indexes = @Index(name = "idx_reservation_date_checkin", columnList = "date, checkedinat"))
 public class Reservation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_seq")
+    @SequenceGenerator(name = "reservation_seq", sequenceName = "reservation_seq", allocationSize = 50)
     @Column(name = "reservationid")
     private Integer reservationId;
 
@@ -51,6 +54,12 @@ public class Reservation {
     @Column(name = "purpose", columnDefinition = "TEXT")
     private String purpose; // for example "Training match"
 
+    @Column(name = "checkedinat")
+    private LocalDateTime checkedInAt; // When the user checked in at the facility (empty = not yet)
+
+    @Column(name = "remindedat")
+    private LocalDateTime remindedAt; // When the reminder email was sent (empty = not yet)
+
     public Reservation() {}
 
     public Integer getReservationId() { return reservationId; }
@@ -78,4 +87,8 @@ public class Reservation {
     public void setParticipants(Integer participants) { this.participants = participants; }
     public String getPurpose() { return purpose; }
     public void setPurpose(String purpose) { this.purpose = purpose; }
+    public LocalDateTime getCheckedInAt() { return checkedInAt; }
+    public void setCheckedInAt(LocalDateTime checkedInAt) { this.checkedInAt = checkedInAt; }
+    public LocalDateTime getRemindedAt() { return remindedAt; }
+    public void setRemindedAt(LocalDateTime remindedAt) { this.remindedAt = remindedAt; }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package start.spring.io.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * This class represents a "lock" for one background job (like the 3:00 AM penalty cleanup).
+ * When the app runs on several servers, every server tries to start the same job at the same time.
+ * Only the server that manages to take this lock actually runs it; the others skip that run.
+ */
+@Entity
+@Table(name = "scheduler_lock")
+public class SchedulerLock {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name; // The job name, for example "penalty-expiry"
+
+    @Column(name = "lockuntil", nullable = false)
+    private LocalDateTime lockUntil; // Nobody else may run the job before this moment
+
+    @Column(name = "lockedat", nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(name = "lockedby", nullable = false)
+    private String lockedBy; // Which server holds (or last held) the lock
+
+    public SchedulerLock() {}
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public LocalDateTime getLockUntil() { return lockUntil; }
+    public void setLockUntil(LocalDateTime lockUntil) { this.lockUntil = lockUntil; }
+    public LocalDateTime getLockedAt() { return lockedAt; }
+    public void setLockedAt(LocalDateTime lockedAt) { this.lockedAt = lockedAt; }
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+}
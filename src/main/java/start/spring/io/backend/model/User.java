@@ -2,6 +2,10 @@ package start.spring.io.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,24 +14,37 @@ import java.util.List;
  * The @Entity annotation tells Spring/Hibernate that objects of this class
  * should be saved in the database.
  * The @Table(name = "users") tells it to look for a table named "users".
+ * Users are kept in the second-level cache, by id and by email (see EntityCacheConfig).
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 public class User {
 
     /**
      * @Id marks this field as the Primary Key (unique identifier).
      * @GeneratedValue means the database will automatically create the number
-     * (1, 2, 3...) so we don't have to invent it ourselves.
+     * so we don't have to invent it ourselves.
+     * The numbers come from the sequence "users_seq", 50 at a time: Hibernate knows the id before
+     * the INSERT, so it can send many INSERTs in one batch (see hibernate.jdbc.batch_size).
+     * All entities work like this, each with its own sequence.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "userid")
     private Integer userId;
 
     @Column(name = "name", nullable = false)
     private String name;
 
+    /**
+     * The email identifies a user just like the id (the "natural id"), so UserRepository.findByEmail
+     * can be answered from the cache. It can still be changed by an admin (mutable = true).
+     */
+    @NaturalId(mutable = true)
     @Column(name = "email", nullable = false, unique = true)
     private String email;
 
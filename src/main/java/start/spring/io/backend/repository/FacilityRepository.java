@@ -1,6 +1,9 @@
 package start.spring.io.backend.repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import start.spring.io.backend.model.Facility;
 
 /**
@@ -11,4 +14,12 @@ import start.spring.io.backend.model.Facility;
  * - findAll() -> Get a list of all courts
  */
 public interface FacilityRepository extends JpaRepository<Facility, Integer> {
+
+    /**
+     * Like findById, but always reads the row from the database, never from the second-level cache
+     * (a query is not answered by the cache). Used before a booking, so a facility that was just closed
+     * on another server cannot be booked here.
+     */
+    @Query("SELECT f FROM Facility f WHERE f.facilityId = :id")
+    Optional<Facility> findCurrent(Integer id);
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package start.spring.io.backend.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import start.spring.io.backend.model.HttpSessionRecord;
+
+/**
+ * This repository stores the HTTP sessions shared by all servers.
+ * Writes are single statements, so no entity has to be loaded before it is changed.
+ * The native ones name the table they change (HINT_NATIVE_SPACES): without it Hibernate does not know
+ * what a native statement touched and empties the whole second-level cache (see EntityCacheConfig)
+ * after every login.
+ */
+public interface HttpSessionRecordRepository extends JpaRepository<HttpSessionRecord, String> {
+
+    /**
+     * Writes the whole session. Returns 0 if the session is not in the table yet.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE HttpSessionRecord s SET s.lastAccessTime = :lastAccessTime, s.maxInactiveSeconds = :maxInactiveSeconds,
+                   s.expiryTime = :expiryTime, s.attributes = :attributes
+            WHERE s.sessionId = :sessionId
+            """)
+    int update(String sessionId, long lastAccessTime, int maxInactiveSeconds, long expiryTime, byte[] attributes);
+
+    /**
+     * Stores a new session. Fails with a DataIntegrityViolationException if the id already exists.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "http_session"))
+    @Query(value = """
+            INSERT INTO http_session (sessionid, creationtime, lastaccesstime, maxinactiveseconds, expirytime, attributes)
+            VALUES (:sessionId, :creationTime, :lastAccessTime, :maxInactiveSeconds, :expiryTime, :attributes)
+            """, nativeQuery = true)
+    int insert(String sessionId, long creationTime, long lastAccessTime, int maxInactiveSeconds, long expiryTime, byte[] attributes);
+
+    /**
+     * Only moves the expiry forward (the user is still active, nothing else changed).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HttpSessionRecord s SET s.lastAccessTime = :lastAccessTime, s.expiryTime = :expiryTime WHERE s.sessionId = :sessionId")
+    int touch(String sessionId, long lastAccessTime, long expiryTime);
+
+    /**
+     * Gives a session a new id (done at login, so an id known before the login becomes useless).
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "http_session"))
+    @Query(value = "UPDATE http_session SET sessionid = :newId WHERE sessionid = :oldId", nativeQuery = true)
+    int rename(String oldId, String newId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM HttpSessionRecord s WHERE s.sessionId = :sessionId")
+    int delete(String sessionId);
+
+    /**
+     * Deletes all sessions that expired before 'now' (epoch millis).
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM HttpSessionRecord s WHERE s.expiryTime < :now")
+    int deleteExpired(long now);
+}
@@ -1,11 +1,16 @@
 package start.spring.io.backend.repository;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import start.spring.io.backend.dto.api.MaintenanceReportDto;
 import start.spring.io.backend.model.MaintenanceRequest;
+import start.spring.io.backend.model.User;
 
 /**
  * This repository handles the list of broken equipment reports.
@@ -22,9 +27,10 @@ public interface MaintenanceRequestRepository extends JpaRepository<MaintenanceR
      * - Status: Pending items appear before Resolved ones.
      * - Severity: HIGH priority items appear before LOW priority ones.
      * - Date: Newest reports appear first.
+     * The assigned staff member is loaded in the same query, because the list page shows their name.
      */
     @Query("""
-    SELECT r FROM MaintenanceRequest r
+    SELECT r FROM MaintenanceRequest r LEFT JOIN FETCH r.staff
     WHERE (:status IS NULL OR :status = '' OR r.status = :status)
     ORDER BY 
       CASE r.status WHEN 'PENDING' THEN 0 WHEN 'IN_PROGRESS' THEN 1 WHEN 'RESOLVED' THEN 2 ELSE 3 END,
@@ -33,6 +39,13 @@ public interface MaintenanceRequestRepository extends JpaRepository<MaintenanceR
     """)
     List<MaintenanceRequest> findFiltered(String status);
 
+    /**
+     * All requests, together with the assigned staff member (shown on the list page,
+     * which is rendered after the transaction has ended).
+     */
+    @Query("SELECT r FROM MaintenanceRequest r LEFT JOIN FETCH r.staff")
+    List<MaintenanceRequest> findAllWithStaff();
+
     /**
      * Simple finder: Get all requests that match a specific status string.
      */
@@ -44,4 +57,54 @@ public interface MaintenanceRequestRepository extends JpaRepository<MaintenanceR
      */
     boolean existsByFacility_FacilityIdAndStatusNot(Integer facilityId, String status);
 
-}
\ No newline at end of file
+    /**
+     * The same question for all facilities at once: the ids of the facilities that have a report
+     * which is NOT in this status. One query for the whole Facilities page instead of one per card.
+     */
+    @Query("SELECT DISTINCT r.facility.facilityId FROM MaintenanceRequest r WHERE r.status <> :status")
+    Set<Integer> findFacilityIdsWithStatusNot(String status);
+
+    /**
+     * Loads every request that is still open, together with the assigned staff member.
+     * Used once at startup to rebuild the dispatcher's queue and workload counters.
+     */
+    @Query("SELECT r FROM MaintenanceRequest r LEFT JOIN FETCH r.staff WHERE r.status <> :status")
+    List<MaintenanceRequest> findOpenWithStaff(String status);
+
+    /**
+     * Assigns a staff member to a request with a single UPDATE,
+     * without loading the request (and its User/Facility) first.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE MaintenanceRequest r SET r.staff = :staff WHERE r.requestId = :requestId")
+    int assignStaff(Integer requestId, User staff);
+
+    /**
+     * Deletes all reports written by one user with a single statement. Returns how many were deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MaintenanceRequest r WHERE r.user.userId = :userId")
+    int deleteByReporter(Integer userId);
+
+    /**
+     * Takes a staff member off all requests assigned to them, so they go back to the queue.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE MaintenanceRequest r SET r.staff = NULL WHERE r.staff.userId = :staffId")
+    int unassignStaff(Integer staffId);
+
+    /**
+     * The reports sent by one user, newest first, as small DTOs for the JSON API.
+     */
+    @Query("""
+            SELECT new start.spring.io.backend.dto.api.MaintenanceReportDto(r.requestId, f.facilityId, f.name,
+                   r.issueType, r.severity, r.status, r.description, r.reportDate)
+            FROM MaintenanceRequest r JOIN r.facility f
+            WHERE r.user.userId = :userId
+            ORDER BY r.reportDate DESC
+            """)
+    List<MaintenanceReportDto> findReportsByUser(Integer userId);
+}
@@ -0,0 +1,18 @@
+package start.spring.io.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The batch NO_SHOW insert of PenaltyRepository, written by hand (see NoShowPenaltyInsertImpl)
+ * because it has to tell which rows it really inserted.
+ */
+public interface NoShowPenaltyInsert {
+
+    /**
+     * Gives a NO_SHOW penalty to the owners of many reservations in a single INSERT ... SELECT.
+     * Reservations that already have one are skipped by the unique index (reservationid, reason).
+     * Returns the reservations that got their penalty from THIS statement.
+     */
+    List<Integer> insertNoShows(List<Integer> reservationIds, LocalDateTime datehour);
+}
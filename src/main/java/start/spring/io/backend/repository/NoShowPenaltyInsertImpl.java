@@ -0,0 +1,59 @@
+package start.spring.io.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data adds this method to PenaltyRepository (the "Impl" suffix tells it where to find it).
+ *
+ * <p>Two servers can run the same no-show check in the same second. Comparing the stored time
+ * afterwards cannot tell their rows apart, so the INSERT itself reports the rows it created:
+ * asking JDBC for the generated "reservationid" becomes "RETURNING reservationid" on PostgreSQL,
+ * and rows skipped by ON CONFLICT are not returned.</p>
+ */
+class NoShowPenaltyInsertImpl implements NoShowPenaltyInsert {
+
+    // @PersistenceContext gives the EntityManager of the current transaction.
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public List<Integer> insertNoShows(List<Integer> reservationIds, LocalDateTime datehour) {
+        if (reservationIds.isEmpty()) return List.of();
+        String sql = """
+                INSERT INTO penalty (penaltyid, userid, reservationid, reason, description, datehour)
+                SELECT nextval('penalty_seq'), r.userid, r.reservationid, 'NO_SHOW', CONCAT('No-Show: ', r.date), ?
+                FROM reservation r WHERE r.reservationid IN (%s)
+                ON CONFLICT DO NOTHING
+                """.formatted(String.join(", ", Collections.nCopies(reservationIds.size(), "?")));
+
+        Session session = entityManager.unwrap(Session.class);
+        session.flush(); // Same connection and transaction as JPA, so it must see the pending changes
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"reservationid"})) {
+                statement.setTimestamp(1, Timestamp.valueOf(datehour));
+                for (int i = 0; i < reservationIds.size(); i++) {
+                    statement.setInt(i + 2, reservationIds.get(i));
+                }
+                statement.executeUpdate();
+
+                List<Integer> inserted = new ArrayList<>();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) inserted.add(keys.getInt(1));
+                }
+                return inserted;
+            }
+        });
+    }
+}
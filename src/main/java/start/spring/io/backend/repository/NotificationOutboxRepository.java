@@ -0,0 +1,93 @@
+package start.spring.io.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import start.spring.io.backend.model.NotificationOutbox;
+
+/**
+ * This repository manages the email Outbox table.
+ * The OutboxDispatcher uses it to pick up messages, and to record if they were sent or failed.
+ */
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Picks the next messages that are ready to be sent, oldest first.
+     * A message is ready if it is PENDING, or if it was SENDING but the worker that took it
+     * never reported back (its lease expired).
+     * "FOR UPDATE SKIP LOCKED" means two servers can run this at the same time
+     * without ever picking the same message.
+     */
+    @Query(value = """
+            SELECT * FROM notification_outbox
+            WHERE status IN ('PENDING', 'SENDING') AND nextattemptat <= :now
+            ORDER BY nextattemptat, outboxid
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<NotificationOutbox> lockNextBatch(LocalDateTime now, int limit);
+
+    /**
+     * Picks the other waiting messages for the given recipients, even if their waiting window
+     * has not finished yet, so they can be merged into the same digest email.
+     * The recipients must be trimmed and lower case (see NotificationCoalescer.recipientKey), the
+     * same way the digests are grouped. A message waiting for a retry (attempts > 0) is only taken
+     * once its backoff is over.
+     */
+    @Query(value = """
+            SELECT * FROM notification_outbox
+            WHERE status = 'PENDING' AND lower(trim(recipient)) IN (:recipients)
+              AND (attempts = 0 OR nextattemptat <= :now)
+            ORDER BY outboxid
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<NotificationOutbox> lockPendingForRecipients(List<String> recipients, LocalDateTime now, int limit);
+
+    /**
+     * Marks a group of messages as successfully sent with one UPDATE.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = 'SENT', o.sentAt = :sentAt, o.lastError = null WHERE o.outboxId IN :ids")
+    int markSent(List<Long> ids, LocalDateTime sentAt);
+
+    /**
+     * Records a failed attempt: either schedules the next retry (PENDING) or gives up (DEAD).
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE NotificationOutbox o
+            SET o.status = :status, o.attempts = :attempts, o.nextAttemptAt = :nextAttemptAt, o.lastError = :error
+            WHERE o.outboxId = :id
+            """)
+    int markFailed(Long id, String status, int attempts, LocalDateTime nextAttemptAt, String error);
+
+    /**
+     * Puts claimed messages back in the queue without counting an attempt
+     * (used when the mail engine is too busy to take them).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = 'PENDING', o.nextAttemptAt = :nextAttemptAt WHERE o.outboxId IN :ids")
+    int release(List<Long> ids, LocalDateTime nextAttemptAt);
+
+    /**
+     * Cleanup: removes messages that were sent a long time ago.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = 'SENT' AND o.sentAt < :cutoff")
+    int deleteSentBefore(LocalDateTime cutoff);
+
+    /**
+     * How many messages are in a given state (for example how many are waiting, or dead).
+     */
+    long countByStatus(String status);
+}
@@ -1,7 +1,13 @@
 package start.spring.io.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
+import start.spring.io.backend.dto.api.PenaltyDto;
 import start.spring.io.backend.model.Penalty;
 import start.spring.io.backend.model.User;
 
@@ -11,13 +17,29 @@ import java.util.List;
 /**
  * This repository manages the Strikes given to users.
  */
-public interface PenaltyRepository extends JpaRepository<Penalty, Integer> {
+public interface PenaltyRepository extends JpaRepository<Penalty, Integer>, NoShowPenaltyInsert {
 
     /**
-     * A cleanup tool. It deletes all penalties that happened before a certain date.
+     * A cleanup tool. It deletes at most 'limit' penalties that happened before a certain date,
+     * directly in the database (one DELETE statement, no Penalty/User objects are loaded).
+     * It returns how many rows were removed, so the caller can repeat it until nothing is left.
      */
     @Transactional
-    void deleteByDatehourBefore(LocalDateTime cutoffDate);
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "penalty"))
+    @Query(value = """
+            DELETE FROM penalty WHERE penaltyid IN (
+                SELECT penaltyid FROM penalty WHERE datehour < :cutoffDate ORDER BY penaltyid LIMIT :limit
+            )
+            """, nativeQuery = true)
+    int deleteBatchByDatehourBefore(LocalDateTime cutoffDate, int limit);
+
+    /**
+     * Returns only (userId, datehour) of the penalties given after a certain date.
+     * Used to fill the in-memory StrikeCounter without loading Penalty or User objects.
+     */
+    @Query("SELECT p.user.userId, p.datehour FROM Penalty p WHERE p.datehour >= :since")
+    List<Object[]> findStrikeDatesSince(LocalDateTime since);
 
     /**
      * Finds all penalties assigned to a specific user.
@@ -25,9 +47,37 @@ public interface PenaltyRepository extends JpaRepository<Penalty, Integer> {
     List<Penalty> findByUser(User user);
 
     /**
-     * Checks if a user has already been punished for a specific reason.
-     * This prevents us from accidentally clicking the "Penalty" button twice
-     * and giving the user two strikes for the same mistake.
+     * Gives a penalty for a specific reservation in one atomic statement.
+     * If this reservation already has a penalty with the same reason, the unique index
+     * (reservationid, reason) makes the database skip the insert and 0 is returned.
+     * So clicking the "No-Show" button twice can never give the user two strikes.
+     * The id comes from the same sequence Hibernate uses (see Penalty).
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "penalty"))
+    @Query(value = """
+            INSERT INTO penalty (penaltyid, userid, reservationid, reason, description, datehour)
+            VALUES (nextval('penalty_seq'), :userId, :reservationId, :reason, :description, :datehour)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertForReservation(Integer userId, Integer reservationId, String reason, String description, LocalDateTime datehour);
+
+    /**
+     * Deletes all penalties of one user with a single statement. Returns how many were deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Penalty p WHERE p.user.userId = :userId")
+    int deleteByUser(Integer userId);
+
+    /**
+     * The penalties of one user, newest first, as small DTOs for the JSON API.
      */
-    boolean existsByUserAndDescription(User user, String description);
-}
\ No newline at end of file
+    @Query("""
+            SELECT new start.spring.io.backend.dto.api.PenaltyDto(p.penaltyId, p.reason, p.description, p.datehour)
+            FROM Penalty p WHERE p.user.userId = :userId
+            ORDER BY p.datehour DESC
+            """)
+    List<PenaltyDto> findPenaltiesOfUser(Integer userId);
+}
@@ -2,7 +2,12 @@ package start.spring.io.backend.repository;
 
 import java.util.List;
 import java.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import start.spring.io.backend.dto.api.BookingDto;
 import start.spring.io.backend.model.Reservation;
 
 /**
@@ -36,8 +41,88 @@ public interface ReservationRepository extends JpaRepository<Reservation, Intege
     List<Reservation> findAllByDateBetween(LocalDateTime start, LocalDateTime end);
 
     /**
-     * Finds all FUTURE reservations for a specific facility.
-     * (Used when we close a court for maintenance and need to know which upcoming bookings to cancel).
+     * Finds one batch of FUTURE reservations for a specific facility.
+     * (Used when we close a court for maintenance and need to cancel the upcoming bookings a few at a time).
      */
-    List<Reservation> findByFacility_FacilityIdAndDateAfter(Integer facilityId, LocalDateTime date);
-}
\ No newline at end of file
+    List<Reservation> findByFacility_FacilityIdAndDateAfterOrderByReservationIdAsc(Integer facilityId, LocalDateTime date, Pageable pageable);
+
+    /**
+     * Counts the FUTURE reservations for a facility, so we can show the progress of a mass cancellation.
+     */
+    long countByFacility_FacilityIdAndDateAfter(Integer facilityId, LocalDateTime date);
+
+    /**
+     * Records that the user arrived. Only the first check-in counts (returns 0 if already checked in).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Reservation r SET r.checkedInAt = :now WHERE r.reservationId = :reservationId AND r.checkedInAt IS NULL")
+    int markCheckedIn(Integer reservationId, LocalDateTime now);
+
+    /**
+     * Marks the reminder of a reservation as sent. Returns 0 if it was already sent (maybe by another server).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Reservation r SET r.remindedAt = :now WHERE r.reservationId = :reservationId AND r.remindedAt IS NULL")
+    int markReminded(Integer reservationId, LocalDateTime now);
+
+    /**
+     * Returns only (reservationId, date) of the bookings that start after a certain moment.
+     * Used to fill the ReservationTimers at startup without loading whole reservations.
+     */
+    @Query("SELECT r.reservationId, r.date FROM Reservation r WHERE r.date >= :from")
+    List<Object[]> findStartTimesAfter(LocalDateTime from);
+
+    /**
+     * Finds the bookings that started between 'from' and 'cutoff' where nobody checked in
+     * and that have no NO_SHOW penalty yet. One query, using the (date, checkedinat) index.
+     */
+    @Query("""
+            SELECT r FROM Reservation r JOIN FETCH r.user
+            WHERE r.date >= :from AND r.date < :cutoff AND r.checkedInAt IS NULL
+            AND NOT EXISTS (
+                SELECT p.penaltyId FROM Penalty p
+                WHERE p.reservation = r AND p.reason = start.spring.io.backend.model.PenaltyReason.NO_SHOW
+            )
+            """)
+    List<Reservation> findUnattended(LocalDateTime from, LocalDateTime cutoff);
+
+    /**
+     * The ids of all bookings of one user (to cancel their timers when the user is deleted).
+     */
+    @Query("SELECT r.reservationId FROM Reservation r WHERE r.user.userId = :userId")
+    List<Integer> findIdsByUser(Integer userId);
+
+    /**
+     * Deletes all bookings of one user with a single statement. Returns how many were deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.user.userId = :userId")
+    int deleteByUser(Integer userId);
+
+    /**
+     * The bookings of one user from a certain moment on, as small DTOs for the JSON API.
+     * One query with a join: no Reservation, User or Facility objects are loaded.
+     */
+    @Query("""
+            SELECT new start.spring.io.backend.dto.api.BookingDto(r.reservationId, f.facilityId, f.name, r.date,
+                   r.startTime, r.endTime, r.participants, r.purpose, r.checkedInAt)
+            FROM Reservation r JOIN r.facility f
+            WHERE r.user.userId = :userId AND r.date >= :from
+            ORDER BY r.date
+            """)
+    List<BookingDto> findBookingsOfUser(Integer userId, LocalDateTime from);
+
+    /**
+     * Returns only (startTime, endTime) of the bookings of one facility between 'from' and 'to'.
+     * Used for the availability of a facility, without loading whole reservations.
+     */
+    @Query("""
+            SELECT r.startTime, r.endTime FROM Reservation r
+            WHERE r.facility.facilityId = :facilityId AND r.date >= :from AND r.date < :to
+            ORDER BY r.startTime
+            """)
+    List<Object[]> findBookedTimes(Integer facilityId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,53 @@
+package start.spring.io.backend.repository;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import start.spring.io.backend.model.SchedulerLock;
+
+/**
+ * This repository manages the background job locks.
+ * Every method is a single atomic statement, so two servers can never both "win" the same lock.
+ */
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Takes an existing lock if it has expired. Returns 1 if we got it, 0 if somebody else holds it.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE SchedulerLock l SET l.lockUntil = :lockUntil, l.lockedAt = :now, l.lockedBy = :lockedBy
+            WHERE l.name = :name AND l.lockUntil <= :now
+            """)
+    int acquireExpired(String name, LocalDateTime now, LocalDateTime lockUntil, String lockedBy);
+
+    /**
+     * Creates the lock row the very first time a job runs.
+     * If another server created it at the same moment, the primary key makes this insert fail
+     * (DataIntegrityViolationException), so only one of them gets the lock.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "scheduler_lock"))
+    @Query(value = """
+            INSERT INTO scheduler_lock (name, lockuntil, lockedat, lockedby)
+            VALUES (:name, :lockUntil, :now, :lockedBy)
+            """, nativeQuery = true)
+    int acquireNew(String name, LocalDateTime now, LocalDateTime lockUntil, String lockedBy);
+
+    /**
+     * Gives the lock back (only if we still own it).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockUntil = :lockUntil WHERE l.name = :name AND l.lockedBy = :lockedBy")
+    int release(String name, LocalDateTime lockUntil, String lockedBy);
+}
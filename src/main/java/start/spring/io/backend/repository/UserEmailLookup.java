@@ -0,0 +1,19 @@
+package start.spring.io.backend.repository;
+
+import java.util.Optional;
+
+import start.spring.io.backend.model.User;
+
+/**
+ * The email lookup of UserRepository, written by hand (see UserEmailLookupImpl) so that it can use
+ * Hibernate's natural-id cache instead of a query.
+ */
+public interface UserEmailLookup {
+
+    /**
+     * Finds a user by their email address, possibly from the cache.
+     * Fine for showing a user; logging in uses UserRepository.findForLogin instead.
+     * It returns an 'Optional' because the user might not exist.
+     */
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,35 @@
+package start.spring.io.backend.repository;
+
+import java.util.Optional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import start.spring.io.backend.model.User;
+
+/**
+ * Spring Data adds this method to UserRepository (the "Impl" suffix tells it where to find it).
+ *
+ * <p>A query "WHERE email = ?" would always go to the database. Loading by natural id first looks
+ * in the "users-by-email" cache for the user's id and then in the "users" cache for the user, so a
+ * user who logged in recently is found without any SQL (see EntityCacheConfig).</p>
+ */
+class UserEmailLookupImpl implements UserEmailLookup {
+
+    // @PersistenceContext gives the EntityManager of the current transaction.
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Needs a transaction: without one, the Hibernate session behind the shared EntityManager
+     * would already be closed when we use it.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmail(String email) {
+        if (email == null) return Optional.empty();
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(email);
+    }
+}
@@ -1,24 +1,26 @@
 package start.spring.io.backend.repository;
 
+import java.util.Collection;
 import java.util.List; // Importar List
 import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import start.spring.io.backend.dto.UserSummaryView;
 import start.spring.io.backend.model.User;
 
 /**
  * This repository manages User Accounts.
  * It is used primarily during Login, Signup, and Admin management.
  */
-public interface UserRepository extends JpaRepository<User, Integer> {
-
-    /**
-     * Finds a user by their email address.
-     * Used for the Login process (Authentication).
-     * It returns an 'Optional' because the user might not exist.
-     */
-    Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, Integer>, UserEmailLookup {
 
     /**
      * Finds a list of users based on their role.
@@ -26,4 +28,71 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * Example: findByRole("maintenance") -> Gets all staff members.
      */
     List<User> findByRole(String role);
-}
\ No newline at end of file
+
+    /**
+     * One page of all users, ordered by id, starting after 'afterId' (keyset pagination).
+     */
+    @Query("""
+            SELECT new start.spring.io.backend.dto.UserSummaryView(u.userId, u.name, u.email, u.role)
+            FROM User u WHERE u.userId > :afterId ORDER BY u.userId
+            """)
+    List<UserSummaryView> findPage(Integer afterId, Limit limit);
+
+    /**
+     * One page of the users whose email or name starts with the search text.
+     * 'pattern' is the lower-case prefix followed by '%' (for example "ana%"). On PostgreSQL the
+     * lower(email) and lower(name) indexes (migration V4__user_search_indexes.sql) answer it.
+     */
+    @Query("""
+            SELECT new start.spring.io.backend.dto.UserSummaryView(u.userId, u.name, u.email, u.role)
+            FROM User u
+            WHERE (LOWER(u.email) LIKE :pattern ESCAPE '!' OR LOWER(u.name) LIKE :pattern ESCAPE '!')
+              AND u.userId > :afterId
+            ORDER BY u.userId
+            """)
+    List<UserSummaryView> searchPage(String pattern, Integer afterId, Limit limit);
+
+    /**
+     * The same prefix search, only for one role (used by the typeahead of the penalty dialog).
+     */
+    @Query("""
+            SELECT new start.spring.io.backend.dto.UserSummaryView(u.userId, u.name, u.email, u.role)
+            FROM User u
+            WHERE (LOWER(u.email) LIKE :pattern ESCAPE '!' OR LOWER(u.name) LIKE :pattern ESCAPE '!')
+              AND u.role = :role
+            ORDER BY u.name
+            """)
+    List<UserSummaryView> searchByRole(String pattern, String role, Limit limit);
+
+    /**
+     * Finds a user by email with a real query that skips the entity cache (used when someone logs in).
+     * findByEmail may answer from a cache entry a few minutes old, but a changed password or role, or a
+     * deleted account, must count at the very next login. The row read here also refreshes the cache.
+     */
+    @Query("SELECT u FROM User u WHERE u.email = :email")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH"))
+    Optional<User> findForLogin(String email);
+
+    /**
+     * Returns which of these emails already have an account (one query for a whole chunk of a bulk import).
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Replaces only the password hash of a user (used to re-hash passwords after a login).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(String email, String password);
+
+    /**
+     * Deletes only the user row, without loading its reservations, penalties and reports first.
+     * UserService.deleteUser removes those with their own set-based deletes before calling this.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.userId = :userId")
+    int deleteAccount(Integer userId);
+}
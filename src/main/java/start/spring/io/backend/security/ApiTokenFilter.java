@@ -0,0 +1,55 @@
+package start.spring.io.backend.security;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Logs in the requests of the JSON API that carry "Authorization: Bearer {token}".
+ * The token is checked by {@link ApiTokenService} (signature and expiry only, no database),
+ * and the user it contains becomes the logged-in user for this one request.
+ *
+ * <p>A missing or invalid token is not an error here: the request simply stays anonymous,
+ * and the security rules answer "401 Unauthorized" if the endpoint needs a login.</p>
+ *
+ * <p>It is created in SecurityConfig (not a @Component), so it only runs inside the API filter chain.</p>
+ */
+public class ApiTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final ApiTokenService tokenService;
+
+    public ApiTokenFilter(ApiTokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        FitEaseUserDetails user = tokenService.verify(bearerToken(request));
+        if (user != null) {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+            SecurityContextHolder.setContext(context);
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * The token of "Authorization: Bearer {token}", or null if there is none.
+     */
+    static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) return null;
+        return header.substring(BEARER.length()).trim();
+    }
+}
@@ -0,0 +1,118 @@
+package start.spring.io.backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import start.spring.io.backend.model.User;
+
+/**
+ * Creates and checks the tokens of the JSON API (/api/v1/...), used by the mobile app and the kiosks.
+ *
+ * <p>A token is "payload.signature", both Base64url. The payload holds everything the API needs to
+ * know about the user (id, role, email, name) and when the token expires; the signature is an
+ * HMAC-SHA256 of the payload with the server secret "fitease.api.token-secret". Checking a token is
+ * therefore a few microseconds of CPU: no session and no database lookup, on any server.</p>
+ *
+ * <p>The price: a token cannot be taken back. A deleted or demoted user keeps their access until the
+ * token expires, which is why "fitease.api.token-ttl" is short (1 hour by default).</p>
+ */
+@Component
+public class ApiTokenService {
+
+    private static final String VERSION = "1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Duration ttl;
+
+    // A Mac object is not thread-safe, and creating one for every request costs more than the signature.
+    private final ThreadLocal<Mac> macs;
+
+    public ApiTokenService(@Value("${fitease.api.token-secret:}") String secret,
+                           @Value("${fitease.api.token-ttl:1h}") Duration ttl) {
+        this.ttl = ttl;
+        byte[] key;
+        if (secret.isBlank()) {
+            // Fine for one server; with several servers they must all share the same secret.
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            System.out.println("⚠️ fitease.api.token-secret is not set, API tokens stop working on every restart.");
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    /**
+     * A new token for this user, valid for "fitease.api.token-ttl".
+     */
+    public String issue(FitEaseUserDetails user) {
+        String payload = String.join("\n", VERSION, String.valueOf(user.getUserId()), user.getRole(),
+                String.valueOf(expiresAt().getEpochSecond()), user.getEmail(), user.getName());
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + sign(encoded);
+    }
+
+    /**
+     * When a token issued right now expires.
+     */
+    public Instant expiresAt() {
+        return Instant.now().plus(ttl).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Checks the signature and the expiry of a token.
+     *
+     * @return the user the token was issued to, or null if the token is invalid or expired
+     */
+    public FitEaseUserDetails verify(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) return null;
+
+        String encoded = token.substring(0, dot);
+        byte[] expected = sign(encoded).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) return null; // Same time for every wrong byte
+
+        // The signature is ours, so the payload has the format we wrote.
+        String[] fields;
+        try {
+            fields = new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split("\n", 6);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (fields.length != 6 || !VERSION.equals(fields[0])) return null;
+        if (Long.parseLong(fields[3]) <= Instant.now().getEpochSecond()) return null; // Expired
+
+        // No password: API requests are authenticated by the token, never by a password.
+        User user = new User(fields[5], fields[4], "", fields[2]);
+        user.setUserId(Integer.valueOf(fields[1]));
+        return new FitEaseUserDetails(user);
+    }
+
+    private String sign(String encodedPayload) {
+        return ENCODER.encodeToString(macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
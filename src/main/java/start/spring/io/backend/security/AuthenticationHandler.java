@@ -8,7 +8,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
-import start.spring.io.backend.service.UserService; // Importante
 
 import java.io.IOException;
 import java.util.Set;
@@ -21,13 +20,6 @@ import java.util.Set;
 @Configuration
 public class AuthenticationHandler implements AuthenticationSuccessHandler {
 
-    private final UserService userService;
-
-    // We inject the UserService so we can look up the user's real name
-    public AuthenticationHandler(UserService userService) {
-        this.userService = userService;
-    }
-
     /**
      * This method runs automatically the moment the user logs in successfully.
      * It does two things:
@@ -38,13 +30,12 @@ public class AuthenticationHandler implements AuthenticationSuccessHandler {
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
         Set<String> roles = AuthorityUtils.authorityListToSet(authentication.getAuthorities());
 
-        // Save the name in the session
-        String email = authentication.getName();
-        userService.getUserByEmail(email).ifPresent(user -> {
+        // Save the name in the session. It is already in the principal, no need to ask the database again.
+        if (authentication.getPrincipal() instanceof FitEaseUserDetails user) {
             HttpSession session = request.getSession();
             // We store the name so the HTML pages can read it later
             session.setAttribute("fullName", user.getName());
-        });
+        }
 
         // Redirect logic: "If you are X role, go to page Y"
         if (roles.contains("ROLE_maintenance")) {
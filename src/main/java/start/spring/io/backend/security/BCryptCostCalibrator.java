@@ -0,0 +1,51 @@
+package start.spring.io.backend.security;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Finds the BCrypt "cost" (work factor) that fits this machine.
+ *
+ * <p>A higher cost makes stolen password hashes harder to crack, but every login also pays it.
+ * Each +1 doubles the time, so we measure how long the lowest allowed cost takes here and pick
+ * the highest cost that still hashes a password in about the target time (for example 250 ms).</p>
+ */
+public final class BCryptCostCalibrator {
+
+    public static final int MIN_COST = 10; // Never go below this, even on a slow machine
+    public static final int MAX_COST = 16;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * Returns the highest cost whose hashing time stays under the target.
+     */
+    public static int calibrate(Duration target) {
+        long nanosAtMin = measure(MIN_COST);
+        int cost = MIN_COST;
+        // Every extra cost step doubles the time.
+        while (cost < MAX_COST && nanosAtMin * (1L << (cost + 1 - MIN_COST)) <= target.toNanos()) {
+            cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * Median time of a few hashes at the given cost, after one warm-up run for the JIT.
+     */
+    public static long measure(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        BCrypt.hashpw("calibration-password", salt);
+        long[] samples = new long[3];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", salt);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+}
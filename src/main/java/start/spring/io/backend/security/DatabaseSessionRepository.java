@@ -0,0 +1,265 @@
+package start.spring.io.backend.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import start.spring.io.backend.model.HttpSessionRecord;
+import start.spring.io.backend.repository.HttpSessionRecordRepository;
+import start.spring.io.backend.service.ClusterJobLock;
+
+/**
+ * Stores the HTTP sessions (who is logged in, the CSRF token, the "fullName" shown in the pages...)
+ * in the database instead of in the memory of one server. Any server can then answer any request,
+ * and a restart or deploy no longer logs everybody out.
+ *
+ * <p>To keep this cheap:</p>
+ * <ul>
+ * <li>All attributes of a session are serialized together and compressed into one column,
+ *     so a session is one row and one read.</li>
+ * <li>Every server keeps a small "near-cache" of the sessions it recently used. A session found
+ *     there is not read from the database again for "fitease.session.near-cache-ttl" (a few seconds).
+ *     A change made on another server (for example a logout) is therefore seen here at most that late.</li>
+ * <li>A request that only makes the session "last accessed now" does not write anything, unless the
+ *     stored time is older than "fitease.session.touch-interval". The session may therefore expire up
+ *     to that much earlier than the exact timeout, which is negligible next to 30 minutes.</li>
+ * </ul>
+ *
+ * <p>Only a session this server created (and has not stored yet) is ever INSERTed. If the row of any
+ * other session is gone, it was deleted on purpose (a logout or expiry, maybe on another server), so
+ * the session is dropped instead of being written back.</p>
+ *
+ * <p>Every value we put in the session must be Serializable (FitEaseUserDetails is).</p>
+ */
+@Component
+public class DatabaseSessionRepository implements SessionRepository<MapSession> {
+
+    private final HttpSessionRecordRepository repository;
+    private final ClusterJobLock clusterJobLock;
+    private final Duration maxInactiveInterval;
+    private final long nearCacheTtlMillis;
+    private final long touchIntervalMillis;
+    private final int nearCacheSize;
+
+    private final DefaultSerializer serializer = new DefaultSerializer();
+    private final DefaultDeserializer deserializer = new DefaultDeserializer(getClass().getClassLoader());
+
+    // sessionId -> the session as it is stored in the database, and when we last read or wrote it
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+    // Sessions created here that have no row yet: sessionId -> when they were created
+    private final Map<String, Long> notStoredYet = new ConcurrentHashMap<>();
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter writesSkipped;
+
+    public DatabaseSessionRepository(HttpSessionRecordRepository repository,
+                                     ClusterJobLock clusterJobLock,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${server.servlet.session.timeout:30m}") Duration maxInactiveInterval,
+                                     @Value("${fitease.session.near-cache-ttl:5s}") Duration nearCacheTtl,
+                                     @Value("${fitease.session.touch-interval:1m}") Duration touchInterval,
+                                     @Value("${fitease.session.near-cache-size:10000}") int nearCacheSize) {
+        this.repository = repository;
+        this.clusterJobLock = clusterJobLock;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.nearCacheTtlMillis = nearCacheTtl.toMillis();
+        this.touchIntervalMillis = touchInterval.toMillis();
+        this.nearCacheSize = Math.max(1, nearCacheSize);
+
+        this.cacheHits = meterRegistry.counter("fitease.sessions.near-cache", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("fitease.sessions.near-cache", "result", "miss");
+        this.writesSkipped = meterRegistry.counter("fitease.sessions.writes.skipped");
+        Gauge.builder("fitease.sessions.near-cache.size", nearCache, Map::size)
+                .description("Sessions held in this server's near-cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        notStoredYet.put(session.getId(), System.currentTimeMillis());
+        return session;
+    }
+
+    /**
+     * Called once at the end of every request that used the session.
+     */
+    @Override
+    public void save(MapSession session) {
+        boolean createdHere = notStoredYet.remove(session.getOriginalId()) != null;
+
+        // The id changes at login (protection against session fixation): move the row to the new id.
+        if (!session.getId().equals(session.getOriginalId())) {
+            nearCache.remove(session.getOriginalId());
+            repository.rename(session.getOriginalId(), session.getId());
+        }
+
+        String id = session.getId();
+        byte[] attributes = serialize(session);
+        long lastAccess = session.getLastAccessedTime().toEpochMilli();
+        int maxInactiveSeconds = (int) session.getMaxInactiveInterval().toSeconds();
+        long expiry = expiryTime(lastAccess, maxInactiveSeconds);
+
+        CachedSession cached = nearCache.get(id);
+        long storedAccess = lastAccess;
+        int written;
+        if (cached != null && cached.sameContent(attributes, maxInactiveSeconds)) {
+            if (lastAccess - cached.storedAccess() < touchIntervalMillis) {
+                storedAccess = cached.storedAccess(); // Nothing worth writing.
+                writesSkipped.increment();
+                written = 1;
+            } else {
+                written = repository.touch(id, lastAccess, expiry);
+            }
+        } else {
+            written = repository.update(id, lastAccess, maxInactiveSeconds, expiry, attributes);
+            if (written == 0 && createdHere) {
+                try {
+                    written = repository.insert(id, session.getCreationTime().toEpochMilli(), lastAccess, maxInactiveSeconds, expiry, attributes);
+                } catch (DataIntegrityViolationException e) {
+                    // Another request of the same browser created it a moment ago.
+                    written = repository.update(id, lastAccess, maxInactiveSeconds, expiry, attributes);
+                }
+            }
+        }
+
+        if (written == 0) {
+            // Logged out or expired (maybe on another server): do not bring it back.
+            nearCache.remove(id);
+            return;
+        }
+        remember(new CachedSession(new MapSession(session), attributes, storedAccess, System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns a private copy of the session, or null if it does not exist or has expired.
+     */
+    @Override
+    public MapSession findById(String id) {
+        CachedSession cached = nearCache.get(id);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < nearCacheTtlMillis) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+            cached = load(id);
+            if (cached == null) {
+                nearCache.remove(id);
+                return null;
+            }
+            remember(cached);
+        }
+
+        if (cached.session().isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new MapSession(cached.session());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        nearCache.remove(id);
+        repository.delete(id);
+    }
+
+    /**
+     * Deletes expired sessions from the table (only one server does it) and from the near-cache.
+     */
+    @Scheduled(fixedDelayString = "${fitease.session.cleanup-interval:5m}", initialDelayString = "${fitease.session.cleanup-interval:5m}")
+    public void deleteExpiredSessions() {
+        nearCache.values().removeIf(cached -> cached.session().isExpired());
+        // Created but never saved (the request failed before the end): forget them after the timeout.
+        long forgetBefore = System.currentTimeMillis() - maxInactiveInterval.toMillis();
+        notStoredYet.values().removeIf(createdAt -> createdAt < forgetBefore);
+        clusterJobLock.runExclusively("session-cleanup", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> {
+            int deleted = repository.deleteExpired(System.currentTimeMillis());
+            if (deleted > 0) System.out.println("🧹 Deleted " + deleted + " expired sessions");
+        });
+    }
+
+    private CachedSession load(String id) {
+        HttpSessionRecord record = repository.findById(id).orElse(null);
+        if (record == null) return null;
+
+        MapSession session = new MapSession(id);
+        session.setCreationTime(Instant.ofEpochMilli(record.getCreationTime()));
+        session.setLastAccessedTime(Instant.ofEpochMilli(record.getLastAccessTime()));
+        session.setMaxInactiveInterval(Duration.ofSeconds(record.getMaxInactiveSeconds()));
+        try {
+            deserialize(record.getAttributes()).forEach(session::setAttribute);
+        } catch (IOException e) {
+            // Written by an older version of the app whose classes no longer match: start over.
+            System.err.println("⚠️ Could not read session, it will be discarded: " + e.getMessage());
+            repository.delete(id);
+            return null;
+        }
+        return new CachedSession(session, record.getAttributes(), record.getLastAccessTime(), System.currentTimeMillis());
+    }
+
+    private void remember(CachedSession cached) {
+        if (nearCache.size() >= nearCacheSize) {
+            long now = System.currentTimeMillis();
+            nearCache.values().removeIf(c -> now - c.loadedAt() >= nearCacheTtlMillis);
+            if (nearCache.size() >= nearCacheSize) nearCache.clear();
+        }
+        nearCache.put(cached.session().getId(), cached);
+    }
+
+    private static long expiryTime(long lastAccess, int maxInactiveSeconds) {
+        return maxInactiveSeconds < 0 ? Long.MAX_VALUE : lastAccess + maxInactiveSeconds * 1000L;
+    }
+
+    private byte[] serialize(MapSession session) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) attributes.put(name, session.getAttribute(name));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED))) {
+            serializer.serialize(attributes, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Session attributes must be Serializable", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> deserialize(byte[] data) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return (Map<String, Object>) deserializer.deserialize(in);
+        }
+    }
+
+    /**
+     * A session as it is in the database: its serialized attributes and the last access time that was written.
+     */
+    private record CachedSession(MapSession session, byte[] attributes, long storedAccess, long loadedAt) {
+
+        boolean sameContent(byte[] otherAttributes, int maxInactiveSeconds) {
+            return Arrays.equals(attributes, otherAttributes)
+                    && session.getMaxInactiveInterval().toSeconds() == maxInactiveSeconds;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package start.spring.io.backend.security;
+
+import java.util.List;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import start.spring.io.backend.model.User;
+
+/**
+ * The logged-in user as Spring Security keeps it in the session.
+ *
+ * <p>Besides the email, password and role that Spring needs, it also remembers the user's id and
+ * name. Controllers get it with {@code @AuthenticationPrincipal FitEaseUserDetails currentUser}
+ * and can use {@code currentUser.getUserId()} directly, instead of searching the user by email
+ * in the database on every request.</p>
+ *
+ * <p>The session (and with it this object) is stored in the database, so the password hash must
+ * not stay in it: the login erases it after the check, and code that puts a new one into the
+ * session calls {@code eraseCredentials()} first.</p>
+ */
+public class FitEaseUserDetails extends org.springframework.security.core.userdetails.User {
+
+    private final Integer userId;
+    private final String name;
+    private final String role;
+
+    public FitEaseUserDetails(User user) {
+        this(user.getUserId(), user.getEmail(), user.getPassword(), user.getName(), user.getRole());
+    }
+
+    private FitEaseUserDetails(Integer userId, String email, String password, String name, String role) {
+        // Spring expects roles as "ROLE_xxx" (for example "admin" -> "ROLE_admin")
+        super(email, password, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        this.userId = userId;
+        this.name = name;
+        this.role = role;
+    }
+
+    /**
+     * The same user with a new password hash (after it was re-hashed at login).
+     */
+    public FitEaseUserDetails withPassword(String newPassword) {
+        return new FitEaseUserDetails(userId, getUsername(), newPassword, name, role);
+    }
+
+    public Integer getUserId() { return userId; }
+
+    public String getName() { return name; }
+
+    public String getRole() { return role; }
+
+    /**
+     * The email address (Spring calls it "username").
+     */
+    public String getEmail() { return getUsername(); }
+}
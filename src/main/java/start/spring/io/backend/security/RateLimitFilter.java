@@ -0,0 +1,257 @@
+package start.spring.io.backend.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Stops a single person or script from flooding the expensive endpoints:
+ * <ul>
+ * <li>POST /login - every attempt checks a BCrypt hash (about 250 ms of CPU).</li>
+ * <li>POST /signup - hashes a password and writes a user.</li>
+ * <li>POST /reservations/book - several queries and a write on our small connection pool.</li>
+ * <li>The same two actions of the JSON API: POST /api/v1/auth/token and POST /api/v1/bookings.
+ *     They share the buckets of the website, so switching to the API gives no extra budget.</li>
+ * </ul>
+ * Each endpoint has a {@link TokenBucket} per user (the email typed in the form or sent in the JSON
+ * body, or the logged-in user, or the user of the API token) and a bigger one per IP address. To read
+ * the email of a JSON request the small body is kept in memory and handed on to the controller
+ * unchanged. When a bucket is empty the request gets
+ * "429 Too Many Requests" right away: this filter runs before Spring Security, so no password is
+ * hashed and no database query is made.
+ *
+ * <p>The buckets are per server. Behind a proxy, set "server.forward-headers-strategy=native" so the
+ * real client address is used instead of the proxy's.</p>
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * The limit of one endpoint: 'capacity' requests at once, then one more every 'refillEvery'.
+     * 'userParameter' is the form field (or JSON property) that holds the email, if there is one.
+     */
+    private record Limit(String endpoint, String path, String userParameter, int capacity, Duration refillEvery) {
+    }
+
+    private final List<Limit> limits;
+    private final int ipMultiplier;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final ApiTokenService apiTokenService;
+    private final JsonMapper jsonMapper;
+
+    // "endpoint|ip|1.2.3.4" or "endpoint|user|ana@pwr.edu.pl" -> bucket
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           ApiTokenService apiTokenService,
+                           JsonMapper jsonMapper,
+                           @Value("${fitease.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${fitease.rate-limit.ip-multiplier:5}") int ipMultiplier,
+                           @Value("${fitease.rate-limit.login.capacity:5}") int loginCapacity,
+                           @Value("${fitease.rate-limit.login.refill-every:12s}") Duration loginRefill,
+                           @Value("${fitease.rate-limit.signup.capacity:3}") int signupCapacity,
+                           @Value("${fitease.rate-limit.signup.refill-every:1m}") Duration signupRefill,
+                           @Value("${fitease.rate-limit.booking.capacity:10}") int bookingCapacity,
+                           @Value("${fitease.rate-limit.booking.refill-every:3s}") Duration bookingRefill) {
+        this.meterRegistry = meterRegistry;
+        this.apiTokenService = apiTokenService;
+        this.jsonMapper = jsonMapper;
+        this.enabled = enabled;
+        this.ipMultiplier = Math.max(1, ipMultiplier);
+        this.limits = List.of(
+                new Limit("login", "/login", "username", loginCapacity, loginRefill),
+                new Limit("signup", "/signup", "email", signupCapacity, signupRefill),
+                new Limit("booking", "/reservations/book", null, bookingCapacity, bookingRefill),
+                new Limit("login", "/api/v1/auth/token", "email", loginCapacity, loginRefill),
+                new Limit("booking", "/api/v1/bookings", null, bookingCapacity, bookingRefill));
+        Gauge.builder("fitease.ratelimit.buckets", buckets, Map::size)
+                .description("Rate limit buckets currently tracked on this server")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || findLimit(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Limit limit = findLimit(request);
+        if (limit.userParameter() != null && isJson(request)) {
+            request = new CachedBodyRequest(request);
+        }
+        long now = System.nanoTime();
+
+        // The IP bucket lets a whole office share a bigger budget that refills faster.
+        long wait = consume(limit.endpoint() + "|ip|" + request.getRemoteAddr(),
+                limit.capacity() * ipMultiplier, limit.refillEvery().toNanos() / ipMultiplier, now);
+        String scope = "ip";
+
+        String user = userKey(limit, request);
+        if (wait == 0 && user != null) {
+            wait = consume(limit.endpoint() + "|user|" + user, limit.capacity(), limit.refillEvery().toNanos(), now);
+            scope = "user";
+        }
+
+        if (wait > 0) {
+            meterRegistry.counter("fitease.ratelimit.rejected", "endpoint", limit.endpoint(), "scope", scope).increment();
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(seconds));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many requests. Please try again in " + seconds + " seconds.");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Forgets the buckets that have refilled completely (they are the same as a new bucket).
+     */
+    @Scheduled(fixedDelayString = "${fitease.rate-limit.cleanup-interval:1m}")
+    public void forgetFullBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private long consume(String key, int capacity, long refillNanos, long now) {
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, Math.max(1, refillNanos), now)).tryConsume(now);
+    }
+
+    private Limit findLimit(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) return null;
+        String path = request.getServletPath();
+        for (Limit limit : limits) {
+            if (limit.path().equals(path)) return limit;
+        }
+        return null;
+    }
+
+    /**
+     * Who the request is for: the email in the login/signup form or JSON body, the user of the API token
+     * (only a signature check), or the logged-in user's id (read from the session, which is
+     * already loaded at this point).
+     */
+    private String userKey(Limit limit, HttpServletRequest request) {
+        if (limit.userParameter() != null) {
+            String value = request instanceof CachedBodyRequest json
+                    ? json.readField(jsonMapper, limit.userParameter())
+                    : request.getParameter(limit.userParameter());
+            return value == null || value.isBlank() ? null : value.trim().toLowerCase();
+        }
+        FitEaseUserDetails apiUser = apiTokenService.verify(ApiTokenFilter.bearerToken(request));
+        if (apiUser != null) return String.valueOf(apiUser.getUserId());
+        HttpSession session = request.getSession(false);
+        if (session == null) return null;
+        Object context = session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext) {
+            Authentication authentication = securityContext.getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof FitEaseUserDetails user) {
+                return String.valueOf(user.getUserId());
+            }
+        }
+        return null;
+    }
+
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+
+    /**
+     * A request whose body was read once into memory, so the filter can look at it and the
+     * controller can still read it afterwards.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        /**
+         * Reads one text property of the JSON body, or null when the body is not valid JSON.
+         */
+        String readField(JsonMapper jsonMapper, String name) {
+            try {
+                JsonNode field = jsonMapper.readTree(body).get(name);
+                return field != null && field.isString() ? field.asString() : null;
+            } catch (JacksonException e) {
+                return null; // The controller answers 400 for it.
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("The body is already in memory");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
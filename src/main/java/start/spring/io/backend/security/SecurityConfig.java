@@ -1,14 +1,25 @@
 package start.spring.io.backend.security;
 
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.security.autoconfigure.web.servlet.SecurityFilterProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import start.spring.io.backend.service.CustomUserDetailsService;
 
@@ -45,9 +56,58 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
         // We use the injected passwordEncoder (defined in ApplicationConfig)
         provider.setPasswordEncoder(passwordEncoder);
+        // Outdated password hashes are re-hashed with the current cost after a successful login
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 
+    /**
+     * Puts the rate limiter just in front of the security filters, so a rejected login never
+     * reaches the password check.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setOrder(SecurityFilterProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    /**
+     * The firewall of the JSON API (/api/**), used by the mobile app and the kiosks.
+     * It is checked before the browser chain below (@Order(1)) and is different in three ways:
+     * - No session and no cookies: every request carries its own token (see ApiTokenFilter).
+     * - No CSRF token: the browser never adds the Authorization header by itself, so CSRF is not possible.
+     * - Errors are short JSON answers (401/403) instead of redirects to the login or access-denied page.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http, ApiTokenService tokenService) throws Exception {
+        http
+                .securityMatcher("/api/**")
+                .authenticationProvider(authenticationProvider())
+                .authorizeHttpRequests(auth -> auth
+                        // Exchanging email + password for a token needs no token, of course
+                        .requestMatchers(HttpMethod.POST, "/api/v1/auth/token").permitAll()
+                        // Facilities, availability and maintenance reports: everybody who is logged in
+                        .requestMatchers("/api/v1/bookings/**", "/api/v1/penalties/**").hasAnyRole("user", "admin")
+                        .anyRequest().authenticated()
+                )
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(csrf -> csrf.disable())
+                .requestCache(cache -> cache.disable())
+                .addFilterBefore(new ApiTokenFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(exception -> exception
+                        .authenticationEntryPoint((request, response, authException) -> {
+                            response.setHeader("WWW-Authenticate", "Bearer");
+                            writeApiError(response, HttpStatus.UNAUTHORIZED, "A valid API token is required.");
+                        })
+                        .accessDeniedHandler((request, response, accessDeniedException) ->
+                                writeApiError(response, HttpStatus.FORBIDDEN, "You are not allowed to do this."))
+                );
+
+        return http.build();
+    }
+
     /**
      * This is the Firewall.
      * We use a chain of filters to intercept every request coming from the browser.
@@ -60,6 +120,9 @@ public class SecurityConfig {
                         // PUBLIC ZONES: Anyone can see the landing page, login, signup, and CSS/Images
                         .requestMatchers("/", "/login", "/signup", "/css/**", "/js/**", "/images/**").permitAll()
 
+                        // Check-in desk: the staff scans the user's code
+                        .requestMatchers("/check-in/**").hasRole("admin")
+
                         // RESTRICTED ZONES:
                         // Facilities can be seen by Users and Admins
                         .requestMatchers("/facilities/**").hasAnyRole("user", "admin")
@@ -79,6 +142,10 @@ public class SecurityConfig {
                         .requestMatchers("/users/**").hasRole("admin")
                         .requestMatchers("/admin/**").hasRole("admin")
 
+                        // Monitoring: health is public (for load balancers), metrics are for Admins
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("admin")
+
                         // Everyone can see their own profile
                         .requestMatchers("/profile/**").authenticated()
 
@@ -105,4 +172,14 @@ public class SecurityConfig {
 
         return http.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes an error of the JSON API in the same shape as ApiExceptionHandler ({"status":..,"message":..}).
+     */
+    private static void writeApiError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"status\":" + status.value() + ",\"message\":\"" + message + "\"}");
+    }
+}
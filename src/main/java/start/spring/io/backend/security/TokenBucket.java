@@ -0,0 +1,49 @@
+package start.spring.io.backend.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A "token bucket": it holds up to 'capacity' tokens, every request takes one, and one token
+ * comes back every 'refillNanos'. An empty bucket means "too many requests, wait a little".
+ *
+ * <p>Instead of a timer that adds tokens, we only remember one number: the moment the bucket will be
+ * full again. The number of tokens is worked out from that when a request arrives ("lazy refill").
+ * Because it is a single number, it is updated with compare-and-set, without any lock.</p>
+ */
+public final class TokenBucket {
+
+    private final long refillNanos;
+    private final long capacityNanos; // How long an empty bucket takes to become full
+
+    // The moment (System.nanoTime) at which the bucket is full again; in the past means "full now".
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, long refillNanos, long nowNanos) {
+        if (capacity < 1 || refillNanos < 1) throw new IllegalArgumentException("Invalid token bucket size");
+        this.refillNanos = refillNanos;
+        this.capacityNanos = capacity * refillNanos;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return 0 if the request may go on, otherwise how many nanoseconds until a token is available
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + refillNanos;
+            long overflow = next - nowNanos - capacityNanos;
+            if (overflow > 0) return overflow; // Not even one token left.
+            if (fullAt.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * A full bucket behaves exactly like a new one, so it can be forgotten.
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
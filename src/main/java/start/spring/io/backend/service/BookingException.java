@@ -0,0 +1,13 @@
+package start.spring.io.backend.service;
+
+/**
+ * Thrown when a booking breaks one of the rules in {@link BookingService}
+ * (too late, slot taken, user suspended...). The message is written for the user,
+ * so the booking page and the JSON API can show it as it is.
+ */
+public class BookingException extends RuntimeException {
+
+    public BookingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,142 @@
+package start.spring.io.backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Penalty;
+import start.spring.io.backend.model.PenaltyReason;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.security.FitEaseUserDetails;
+
+/**
+ * The rules for making and cancelling a booking, in one place.
+ * Both the booking page (ReservationController) and the JSON API (ApiBookingController) use it,
+ * so a booking made from the phone app is checked exactly like one made in the browser.
+ */
+@Service
+public class BookingService {
+
+    private final ReservationService reservationService;
+    private final FacilityService facilityService;
+    private final PenaltyService penaltyService;
+    private final EmailService emailService;
+    private final StrikeCounter strikeCounter;
+
+    public BookingService(ReservationService reservationService,
+                          FacilityService facilityService,
+                          PenaltyService penaltyService,
+                          EmailService emailService,
+                          StrikeCounter strikeCounter) {
+        this.reservationService = reservationService;
+        this.facilityService = facilityService;
+        this.penaltyService = penaltyService;
+        this.emailService = emailService;
+        this.strikeCounter = strikeCounter;
+    }
+
+    /**
+     * Validates and saves a new booking for 'user', then queues the confirmation email.
+     * The rules:
+     * - Is the time valid, and at least 10 minutes away?
+     * - Is the facility open, and big enough for the group?
+     * - Is the user suspended because of too many recent strikes?
+     * - Is the slot already taken, or does the user already play somewhere else at that time?
+     * @Transactional keeps the booking and its confirmation email (Outbox row) together.
+     *
+     * @throws BookingException with a message for the user if one of the rules is broken
+     */
+    @Transactional
+    public Reservation book(FitEaseUserDetails user, Integer facilityId, LocalDate date, LocalTime start,
+                            LocalTime end, Integer participants, String purpose) {
+        // Users cannot book a slot that starts in 2 minutes. They need at least 10 min prior.
+        if (LocalDateTime.of(date, start).isBefore(LocalDateTime.now().plusMinutes(10))) {
+            throw new BookingException("You must book at least 10 minutes in advance.");
+        }
+
+        // End time must be after Start time
+        if (!end.isAfter(start)) throw new BookingException("End time must be after the start time.");
+
+        // Check if facility is physically available (read from the database, not from the cache)
+        Facility facility = facilityService.getCurrentFacility(facilityId)
+                .orElseThrow(() -> new BookingException("Facility not found."));
+        if (!"Available".equalsIgnoreCase(facility.getStatus()) && !"Free".equalsIgnoreCase(facility.getStatus())) {
+            throw new BookingException("Facility unavailable.");
+        }
+
+        // Check capacity
+        if (participants == null || participants < 1) throw new BookingException("Enter the number of participants.");
+        if (participants > facilityService.getCapacityForType(facility.getType())) throw new BookingException("Too many participants.");
+
+        // Users with too many recent strikes cannot book until the oldest ones expire (in-memory check).
+        Integer userId = user.getUserId();
+        LocalDateTime suspendedUntil = strikeCounter.suspendedUntil(userId);
+        if (suspendedUntil != null) {
+            throw new BookingException("You have " + strikeCounter.activeStrikes(userId)
+                    + " active strikes. Booking is suspended until " + suspendedUntil.toLocalDate() + ".");
+        }
+
+        // Is the facility already booked by someone else?
+        if (reservationService.hasOverlap(facilityId, date, start, end)) throw new BookingException("Time slot booked.");
+        // Does this specific user already have a booking at this time? (Double booking)
+        if (reservationService.hasUserOverlap(userId, date, start, end)) throw new BookingException("You have another booking.");
+
+        Reservation reservation = new Reservation();
+        reservation.setParticipants(participants);
+        reservation.setPurpose(purpose);
+        reservation.setDate(LocalDateTime.of(date, start));
+        reservation.setStartTime(start);
+        reservation.setEndTime(end);
+        Reservation saved = reservationService.create(reservation, userId, facilityId);
+
+        // Send confirmation email
+        String subject = "Booking Confirmed: " + facility.getName();
+        String body = "Hello " + user.getName() + ",\n\nYour booking for " + facility.getName() + " on " + date + " is confirmed.\n\nFitEasePWR Team";
+        emailService.sendEmail(user.getEmail(), subject, body);
+        return saved;
+    }
+
+    /**
+     * Cancels a booking. Only its owner or an admin may do it.
+     * If the game is less than 24 hours away, the owner gets a LATE_CANCELLATION penalty.
+     *
+     * @return false if the booking does not exist (anymore)
+     * @throws AccessDeniedException if the booking belongs to somebody else
+     */
+    @Transactional
+    public boolean cancel(Integer reservationId, FitEaseUserDetails requester) {
+        Optional<Reservation> reservationOpt = reservationService.getById(reservationId);
+        if (reservationOpt.isEmpty()) return false;
+
+        Reservation r = reservationOpt.get();
+        User owner = r.getUser();
+        boolean isOwner = owner != null && owner.getUserId().equals(requester.getUserId());
+        if (!isOwner && !"admin".equalsIgnoreCase(requester.getRole())) {
+            throw new AccessDeniedException("This booking belongs to another user.");
+        }
+
+        // If the game is in the future AND it is less than 24 hours away
+        LocalDateTime now = LocalDateTime.now();
+        if (owner != null && r.getDate().isAfter(now) && r.getDate().isBefore(now.plusHours(24))) {
+            // Create a penalty record
+            Penalty penalty = new Penalty();
+            penalty.setUser(owner);
+            penalty.setReason(PenaltyReason.LATE_CANCELLATION);
+            penalty.setDescription("Late cancellation for reservation ID " + reservationId);
+            penalty.setDatehour(now);
+            penaltyService.createPenalty(penalty);
+
+            // Notify user
+            emailService.sendEmail(owner.getEmail(), "Penalty Applied", "You have been penalized for late cancellation.");
+        }
+        reservationService.delete(reservationId);
+        return true;
+    }
+}
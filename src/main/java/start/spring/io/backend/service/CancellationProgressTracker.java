@@ -0,0 +1,45 @@
+package start.spring.io.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import start.spring.io.backend.dto.CancellationProgressView;
+
+/**
+ * Keeps track of the background mass cancellations (one entry per facility).
+ * The cancellation job updates it after every batch, and the Maintenance Panel reads it.
+ */
+@Component
+public class CancellationProgressTracker {
+
+    private final Map<Integer, CancellationProgressView> jobs = new ConcurrentHashMap<>();
+
+    public void start(Integer facilityId, String reason, long total) {
+        jobs.put(facilityId, new CancellationProgressView(facilityId, reason, total, 0, LocalDateTime.now(), null));
+    }
+
+    public void advance(Integer facilityId, int cancelledInBatch) {
+        jobs.computeIfPresent(facilityId, (id, p) -> new CancellationProgressView(
+                id, p.reason(), Math.max(p.total(), p.cancelled() + cancelledInBatch),
+                p.cancelled() + cancelledInBatch, p.startedAt(), null));
+    }
+
+    public void finish(Integer facilityId) {
+        jobs.computeIfPresent(facilityId, (id, p) -> new CancellationProgressView(
+                id, p.reason(), p.total(), p.cancelled(), p.startedAt(), LocalDateTime.now()));
+    }
+
+    /**
+     * All known jobs, newest first.
+     */
+    public List<CancellationProgressView> getAll() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(CancellationProgressView::startedAt).reversed())
+                .toList();
+    }
+}
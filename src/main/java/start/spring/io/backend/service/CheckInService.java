@@ -0,0 +1,134 @@
+package start.spring.io.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.repository.ReservationRepository;
+
+/**
+ * This service handles checking in at the facility.
+ *
+ * <p>Every reservation gets a short <b>signed code</b> (its id plus an HMAC of its id and start time made
+ * with a server secret). The user shows it on "My Bookings" at the facility, and the staff at the
+ * check-in desk (logged in) scans or types it. Nobody can guess the code for another reservation.
+ * The user cannot check in by themselves, so a check-in really means they were there.</p>
+ */
+@Service
+public class CheckInService {
+
+    /**
+     * What happened when someone tried to check in.
+     */
+    public enum Result { CHECKED_IN, ALREADY_CHECKED_IN, TOO_EARLY, TOO_LATE, INVALID }
+
+    private final ReservationRepository repository;
+    private final byte[] secret;
+    private final Duration opensBefore;
+
+    public CheckInService(ReservationRepository repository,
+                          @Value("${fitease.checkin.secret:}") String secret,
+                          @Value("${fitease.checkin.opens-before:30m}") Duration opensBefore) {
+        this.repository = repository;
+        this.opensBefore = opensBefore;
+        if (secret.isBlank()) {
+            // Fine for one server; with several servers they must all share the same secret.
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            this.secret = random;
+            System.out.println("⚠️ fitease.checkin.secret is not set, check-in codes change on every restart.");
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The code printed in the check-in link / QR code of a reservation.
+     */
+    public String tokenFor(Reservation reservation) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            byte[] signature = mac.doFinal((reservation.getReservationId() + ":" + reservation.getDate())
+                    .getBytes(StandardCharsets.UTF_8));
+            // 16 bytes are plenty and keep the QR code small.
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(signature, 16));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * The code the user shows at the desk: "reservationId-signature".
+     */
+    public String codeFor(Reservation reservation) {
+        return reservation.getReservationId() + "-" + tokenFor(reservation);
+    }
+
+    /**
+     * How long before the start of a booking the check-in opens ("fitease.checkin.opens-before").
+     */
+    public Duration getOpensBefore() {
+        return opensBefore;
+    }
+
+    /**
+     * True while the check-in desk is open for this reservation:
+     * from a little before the start until the end of the booking.
+     */
+    public boolean isCheckInOpen(Reservation reservation) {
+        LocalDateTime now = LocalDateTime.now();
+        return !now.isBefore(reservation.getDate().minus(opensBefore)) && now.isBefore(endOf(reservation));
+    }
+
+    /**
+     * The desk scanned or typed a code (see codeFor).
+     */
+    public Result checkIn(String code) {
+        if (code == null) return Result.INVALID;
+        String trimmed = code.trim();
+        int dash = trimmed.indexOf('-');
+        if (dash <= 0) return Result.INVALID;
+        try {
+            return checkIn(Integer.valueOf(trimmed.substring(0, dash)), trimmed.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return Result.INVALID;
+        }
+    }
+
+    /**
+     * Checks the signature and records the attendance.
+     */
+    public Result checkIn(Integer reservationId, String token) {
+        Optional<Reservation> found = repository.findById(reservationId);
+        if (found.isEmpty() || token == null) return Result.INVALID;
+        Reservation reservation = found.get();
+
+        byte[] expected = tokenFor(reservation).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(expected, token.getBytes(StandardCharsets.UTF_8))) return Result.INVALID;
+
+        if (reservation.getCheckedInAt() != null) return Result.ALREADY_CHECKED_IN;
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(reservation.getDate().minus(opensBefore))) return Result.TOO_EARLY;
+        if (!now.isBefore(endOf(reservation))) return Result.TOO_LATE;
+
+        return repository.markCheckedIn(reservationId, now) == 1 ? Result.CHECKED_IN : Result.ALREADY_CHECKED_IN;
+    }
+
+    private LocalDateTime endOf(Reservation reservation) {
+        return reservation.getDate().with(reservation.getEndTime());
+    }
+}
@@ -0,0 +1,92 @@
+package start.spring.io.backend.service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import start.spring.io.backend.repository.SchedulerLockRepository;
+
+/**
+ * Makes sure a @Scheduled job runs on exactly ONE server, even when the app runs on many.
+ *
+ * <p>Each job has a row in the "scheduler_lock" table with a "lockUntil" time (a lease).
+ * The first server that moves lockUntil into the future runs the job; the others see the
+ * lease is taken and skip. If a server crashes in the middle of a job, the lease simply
+ * expires after {@code lockAtMost} and the next run can go ahead on another server.</p>
+ *
+ * <p>Usage inside a @Scheduled method:
+ * {@code jobLock.runExclusively("penalty-expiry", Duration.ofMinutes(30), Duration.ofMinutes(1), () -> ...)}</p>
+ */
+@Component
+public class ClusterJobLock {
+
+    private final SchedulerLockRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final String nodeName;
+
+    public ClusterJobLock(SchedulerLockRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.nodeName = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Runs the job if this server can take the lock, otherwise does nothing.
+     *
+     * @param lockAtMost  how long the lease lasts if this server dies while running the job
+     * @param lockAtLeast the lease is kept at least this long, so servers whose clocks are a few
+     *                    seconds apart do not run the same daily job twice
+     * @return true if the job ran here
+     */
+    public boolean runExclusively(String jobName, Duration lockAtMost, Duration lockAtLeast, Runnable job) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockUntil = now.plus(lockAtMost);
+
+        if (!tryAcquire(jobName, now, lockUntil)) {
+            meterRegistry.counter("fitease.scheduler.lock.skipped", "job", jobName).increment();
+            return false;
+        }
+
+        meterRegistry.counter("fitease.scheduler.lock.acquired", "job", jobName).increment();
+        long start = System.nanoTime();
+        try {
+            job.run();
+            return true;
+        } finally {
+            meterRegistry.timer("fitease.scheduler.lock.held", "job", jobName)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            LocalDateTime earliestRelease = now.plus(lockAtLeast);
+            LocalDateTime releaseAt = LocalDateTime.now().isAfter(earliestRelease) ? LocalDateTime.now() : earliestRelease;
+            repository.release(jobName, releaseAt, nodeName);
+        }
+    }
+
+    private boolean tryAcquire(String jobName, LocalDateTime now, LocalDateTime lockUntil) {
+        if (repository.acquireExpired(jobName, now, lockUntil, nodeName) == 1) return true;
+        if (repository.existsById(jobName)) return false; // The row exists and the lease is still running.
+        try {
+            return repository.acquireNew(jobName, now, lockUntil, nodeName) == 1;
+        } catch (DataIntegrityViolationException e) {
+            return false; // Another server created the row first.
+        }
+    }
+
+    /**
+     * The name this server uses in the "lockedBy" column.
+     */
+    public String getNodeName() { return nodeName; }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -1,19 +1,21 @@
 package start.spring.io.backend.service;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import start.spring.io.backend.model.User;
 import start.spring.io.backend.repository.UserRepository;
+import start.spring.io.backend.security.FitEaseUserDetails;
 
 /**
  * This service is a bridge between our Database and Spring Security.
- * This class translates our User -> Spring User.
+ * This class translates our User -> Spring User (FitEaseUserDetails).
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -23,20 +25,29 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     /**
      * This method is called automatically when someone tries to log in.
-     * 1. It looks for the user by email in our database.
+     * 1. It looks for the user by email in our database (always the database, never the cache).
      * 2. If found, it converts the data into a format Spring Security understands (Email, Password, Role).
      * 3. If not found, it throws an error.
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findForLogin(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
-        // Map your domain user to Spring Security user
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPassword())
-                .roles(user.getRole()) // Spring adds "ROLE_" automatically (for example "admin" -> "ROLE_admin")
-                .build();
+        // Map your domain user to Spring Security user (also keeping the id and name for the controllers)
+        return new FitEaseUserDetails(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by Spring Security right after a successful login when the stored hash is outdated
+     * (made with another BCrypt cost, or saved before hashes had the "{bcrypt}" prefix).
+     * We already know the correct password at that moment, so we simply save a fresh hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        return user instanceof FitEaseUserDetails details
+                ? details.withPassword(newPassword)
+                : loadUserByUsername(user.getUsername());
+    }
+}
@@ -1,46 +1,47 @@
 package start.spring.io.backend.service;
 
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import start.spring.io.backend.model.NotificationOutbox;
+import start.spring.io.backend.repository.NotificationOutboxRepository;
 
 /**
  * This service handles sending emails.
  * It is used for booking confirmations, maintenance alerts, and penalty notifications.
+ *
+ * <p>Emails are not sent from here directly. They are written to the Outbox table,
+ * and the OutboxDispatcher delivers them in the background (with retries).
+ * Each message waits a short "coalescing window" first, so that several messages for the same
+ * person (for example during a facility closure) are merged into one digest email.</p>
  */
 @Service
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final NotificationOutboxRepository outboxRepository;
+    private final Duration coalesceWindow;
 
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(NotificationOutboxRepository outboxRepository,
+                        @Value("${fitease.notifications.coalesce-window:30s}") Duration coalesceWindow) {
+        this.outboxRepository = outboxRepository;
+        this.coalesceWindow = coalesceWindow;
     }
 
     /**
-     * Sends an email asynchronously.
-     * @Async is very important. It sends it in the background".
-     * Without it, the user would have to wait 5 seconds for the email to send
-     * before the webpage would reload.
+     * Queues an email in the Outbox.
+     * Because of @Transactional (REQUIRED), the message is saved in the SAME transaction as the
+     * change that caused it: if the booking/cancellation is rolled back, the email disappears too,
+     * and once it is committed the email can no longer be lost, even if the server restarts.
+     * It is a quick INSERT, so the webpage does not have to wait for the mail server.
      */
-    @Async
+    @Transactional
     public void sendEmail(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-
-            message.setFrom("fiteasepwr@gmail.com"); // The sender address
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-
-            mailSender.send(message);
-            System.out.println("✅ Email sent successfully to: " + to);
-
-        } catch (Exception e) {
-            // If the internet is down or the email is wrong, we just print the error
-            // instead of crashing the whole application.
-            System.err.println("❌ Error sending email to " + to + ": " + e.getMessage());
-        }
+        NotificationOutbox message = new NotificationOutbox(to, subject, body, LocalDateTime.now());
+        message.setNextAttemptAt(message.getCreatedAt().plus(coalesceWindow));
+        outboxRepository.save(message);
     }
-}
\ No newline at end of file
+}
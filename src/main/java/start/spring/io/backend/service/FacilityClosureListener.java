@@ -0,0 +1,34 @@
+package start.spring.io.backend.service;
+
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import start.spring.io.backend.event.FacilityClosedEvent;
+
+/**
+ * Reacts to a facility being closed by cancelling its future bookings.
+ *
+ * <p>@TransactionalEventListener waits until the transaction that closed the facility has COMMITTED,
+ * and @Async moves the work to a background thread. This way the staff member's click returns
+ * immediately and the database locks are released right away, even if hundreds of bookings are affected.</p>
+ */
+@Service
+public class FacilityClosureListener {
+
+    private final ReservationService reservationService;
+
+    public FacilityClosureListener(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * fallbackExecution = true lets the event also work when it is published outside a transaction
+     * (for example when the manager toggles a facility from the facilities page).
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFacilityClosed(FacilityClosedEvent event) {
+        reservationService.cancelReservationsForFacility(event.facilityId(), event.reason());
+    }
+}
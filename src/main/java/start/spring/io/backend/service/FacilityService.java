@@ -1,6 +1,9 @@
 package start.spring.io.backend.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import start.spring.io.backend.event.FacilityClosedEvent;
 import start.spring.io.backend.model.Facility;
 import start.spring.io.backend.repository.FacilityRepository;
 
@@ -14,14 +17,17 @@ import java.util.Optional;
 @Service
 public class FacilityService {
     private final FacilityRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public FacilityService(FacilityRepository repository) {
+    public FacilityService(FacilityRepository repository, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Get a list of all facilities.
      */
+    @Transactional(readOnly = true)
     public List<Facility> getAllFacilities() {
         return repository.findAll();
     }
@@ -33,6 +39,13 @@ public class FacilityService {
         return repository.findById(id);
     }
 
+    /**
+     * The facility as it is in the database right now (skips the second-level cache).
+     */
+    public Optional<Facility> getCurrentFacility(Integer id) {
+        return repository.findCurrent(id);
+    }
+
     /**
      * Create a new facility.
      * We force the ID to null so the database knows it's a new item, not an update.
@@ -46,6 +59,7 @@ public class FacilityService {
      * Update an existing facility's details.
      * We first check if it exists (findById), then update the fields, and save.
      */
+    @Transactional
     public Optional<Facility> updateFacility(Integer id, Facility FacilityDetails) {
         return repository.findById(id).map(request -> {
             request.setFacilityId(FacilityDetails.getFacilityId());
@@ -60,6 +74,7 @@ public class FacilityService {
      * Helper method to change ONLY the status (example: from "Available" to "Unavailable").
      * This is used by the MaintenanceService when a court breaks down.
      */
+    @Transactional
     public void updateStatus(Integer facilityId, String newStatus) {
         repository.findById(facilityId).ifPresent(facility -> {
             facility.setStatus(newStatus);
@@ -67,6 +82,30 @@ public class FacilityService {
         });
     }
 
+    /**
+     * Opens a closed facility, or closes an open one ("Available" / "Free" count as open).
+     * Reading and changing happen in ONE read-write transaction, so both use the primary database
+     * even when a read replica is configured.
+     * Closing also cancels the upcoming reservations: the FacilityClosedEvent is handled in the
+     * background once this transaction has committed (see FacilityClosureListener).
+     */
+    @Transactional
+    public Optional<Facility> toggleStatus(Integer facilityId) {
+        return repository.findById(facilityId).map(facility -> {
+            boolean isAvailable = "Available".equalsIgnoreCase(facility.getStatus())
+                    || "Free".equalsIgnoreCase(facility.getStatus());
+
+            if (isAvailable) {
+                facility.setStatus("Unavailable");
+                eventPublisher.publishEvent(new FacilityClosedEvent(facilityId, "Facility closed by Reservation Manager."));
+            } else {
+                facility.setStatus("Available");
+            }
+            return repository.save(facility);
+        });
+    }
+
+    @Transactional
     public boolean deleteFacility(Integer id) {
         if (repository.existsById(id)) {
             repository.deleteById(id);
@@ -0,0 +1,199 @@
+package start.spring.io.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service talks to the mail server (SMTP) for the OutboxDispatcher.
+ *
+ * <p>Opening an SMTP connection (TCP + TLS + login) is much slower than sending one message,
+ * so instead of one connection per email it:</p>
+ * <ul>
+ * <li>Keeps a small <b>pool of open connections</b> and reuses them.</li>
+ * <li>Sends a whole <b>batch of messages over one connection</b>.</li>
+ * <li>Runs at most {@code concurrency} batches at the same time, with a <b>bounded waiting queue</b>.
+ *     When the queue is full, new work is refused (backpressure) and stays in the Outbox table for later.</li>
+ * </ul>
+ * It also publishes metrics: queue depth, send latency, sent/failed/rejected counters.
+ */
+@Service
+public class MailDeliveryEngine {
+
+    private static final String FROM = "fiteasepwr@gmail.com"; // The sender address
+
+    private final JavaMailSenderImpl mailSender;
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<Transport> idleConnections;
+
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Counter connectionsOpened;
+
+    public MailDeliveryEngine(JavaMailSenderImpl mailSender,
+                              MeterRegistry meterRegistry,
+                              @Value("${fitease.mail.concurrency:2}") int concurrency,
+                              @Value("${fitease.mail.queue-capacity:20}") int queueCapacity) {
+        this.mailSender = mailSender;
+        int threads = Math.max(1, concurrency);
+        this.idleConnections = new ArrayBlockingQueue<>(threads);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-delivery-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("fitease.mail.queue.depth", executor, e -> e.getQueue().size())
+                .description("Batches waiting for a free SMTP worker")
+                .register(meterRegistry);
+        Gauge.builder("fitease.mail.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Batches currently being sent")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("fitease.mail.send")
+                .description("Time to hand one message to the SMTP server")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("fitease.mail.sent");
+        this.failedCounter = meterRegistry.counter("fitease.mail.failed");
+        this.rejectedCounter = meterRegistry.counter("fitease.mail.rejected");
+        this.connectionsOpened = meterRegistry.counter("fitease.mail.connections.opened");
+    }
+
+    /**
+     * One email to send. A single email can stand for several Outbox rows (ids).
+     */
+    public record Mail(List<Long> outboxIds, String to, String subject, String body) {
+    }
+
+    /**
+     * How many more batches can be accepted right now. The dispatcher uses this
+     * to avoid taking messages out of the Outbox that could not be sent anyway.
+     */
+    public int remainingCapacity() {
+        return executor.getQueue().remainingCapacity() + (executor.getMaximumPoolSize() - executor.getActiveCount());
+    }
+
+    /**
+     * Sends a batch of emails over a single connection, in the background.
+     * The result maps every mail that FAILED to the error; an empty map means everything was sent.
+     *
+     * @throws RejectedExecutionException if the queue is full (backpressure: try again later).
+     */
+    public CompletableFuture<Map<Mail, Exception>> submit(List<Mail> batch) {
+        try {
+            return CompletableFuture.supplyAsync(() -> sendBatch(batch), executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrows a connection, sends every mail over it and gives it back to the pool.
+     * If the connection breaks in the middle, a new one is opened for the rest of the batch.
+     */
+    Map<Mail, Exception> sendBatch(List<Mail> batch) {
+        Map<Mail, Exception> failures = new LinkedHashMap<>();
+        Transport transport = null;
+        for (Mail mail : batch) {
+            long start = System.nanoTime();
+            try {
+                if (transport == null || !transport.isConnected()) {
+                    closeQuietly(transport);
+                    transport = borrowConnection();
+                }
+                MimeMessage message = toMimeMessage(mail);
+                transport.sendMessage(message, message.getAllRecipients());
+                sentCounter.increment();
+            } catch (Exception e) {
+                failedCounter.increment();
+                failures.put(mail, e);
+            } finally {
+                sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (transport != null) releaseConnection(transport);
+        return failures;
+    }
+
+    private Transport borrowConnection() throws MessagingException {
+        Transport pooled;
+        while ((pooled = idleConnections.poll()) != null) {
+            if (pooled.isConnected()) return pooled;
+            closeQuietly(pooled); // The server closed it while it was idle.
+        }
+        Session session = mailSender.getSession();
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        Transport transport = session.getTransport(protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        connectionsOpened.increment();
+        return transport;
+    }
+
+    private void releaseConnection(Transport transport) {
+        if (!transport.isConnected() || !idleConnections.offer(transport)) {
+            closeQuietly(transport);
+        }
+    }
+
+    private MimeMessage toMimeMessage(Mail mail) throws MessagingException {
+        MimeMessage message = new MimeMessage(mailSender.getSession());
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(FROM);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.body());
+        message.saveChanges();
+        return message;
+    }
+
+    private void closeQuietly(Transport transport) {
+        if (transport == null) return;
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+            // Already closed by the server, nothing to do.
+        }
+    }
+
+    /**
+     * When the server shuts down we let running batches finish and close all connections.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        List<Transport> open = new ArrayList<>();
+        idleConnections.drainTo(open);
+        open.forEach(this::closeQuietly);
+    }
+}
@@ -0,0 +1,292 @@
+package start.spring.io.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.dto.StaffWorkloadView;
+import start.spring.io.backend.model.MaintenanceRequest;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.MaintenanceRequestRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+/**
+ * This service automatically hands out maintenance requests to the staff.
+ *
+ * <p>It keeps everything it needs in memory, so it never has to re-read the whole table:</p>
+ * <ul>
+ * <li>A <b>priority queue</b> of open requests nobody has picked up yet (HIGH before LOW, older before newer).</li>
+ * <li>A <b>workload counter</b> per staff member, grouped in "buckets" by how many requests they have.</li>
+ * </ul>
+ * Finding the least busy person only means looking at the first non-empty bucket,
+ * so every assignment costs the same no matter how many staff or requests exist.
+ *
+ * <p>New and closed requests only reach the queue once their transaction commits
+ * (like StrikeCounter), so a rolled back report or resolve never changes the workload.
+ * The assignments are decided in memory while holding the lock, and written to the database
+ * afterwards in a transaction of their own, so no database call ever waits for the lock (or the other way round).</p>
+ */
+@Service
+public class MaintenanceDispatcher {
+
+    private static final String STAFF_ROLE = "maintenance";
+
+    private final MaintenanceRequestRepository repository;
+    private final UserRepository userRepository;
+
+    // The assignments made after a commit need a transaction of their own (the old one is already done).
+    private final TransactionTemplate newTransaction;
+
+    // How many open requests one person can hold before new ones wait in the queue.
+    private final int maxActivePerStaff;
+
+    // Requests waiting for somebody to be free.
+    private final PriorityQueue<QueuedRequest> backlog = new PriorityQueue<>(
+            Comparator.<QueuedRequest>comparingInt(QueuedRequest::severityRank)
+                    .thenComparing(QueuedRequest::reportDate)
+                    .thenComparing(QueuedRequest::requestId));
+
+    // Which staff member is working on which request (requestId -> staffId).
+    private final Map<Integer, Integer> assignments = new HashMap<>();
+
+    // Current load per staff member, and the staff grouped by that load: buckets[n] = people with n requests.
+    private final Map<Integer, Integer> loadByStaff = new HashMap<>();
+    private final Map<Integer, User> staffById = new LinkedHashMap<>();
+    private List<LinkedHashSet<Integer>> buckets = new ArrayList<>();
+
+    // Assignments decided under the lock but not written yet, in the order they were decided.
+    private final Queue<Assignment> unwritten = new ConcurrentLinkedQueue<>();
+    private final Object writeLock = new Object();
+
+    public MaintenanceDispatcher(MaintenanceRequestRepository repository,
+                                 UserRepository userRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${fitease.maintenance.max-active-per-staff:3}") int maxActivePerStaff) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxActivePerStaff = Math.max(1, maxActivePerStaff);
+    }
+
+    /**
+     * Rebuilds the queue and the workload counters from the database.
+     * It runs once when the server is ready, and again whenever the staff list changes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            // Plain reads (they never wait for row locks), done under the lock so no change
+            // arriving in between is lost when the state is cleared.
+            List<User> staffMembers = newTransaction.execute(status -> userRepository.findByRole(STAFF_ROLE));
+            List<MaintenanceRequest> open = newTransaction.execute(status -> repository.findOpenWithStaff("RESOLVED"));
+
+            backlog.clear();
+            assignments.clear();
+            loadByStaff.clear();
+            staffById.clear();
+            buckets = new ArrayList<>();
+            for (int i = 0; i <= maxActivePerStaff; i++) {
+                buckets.add(new LinkedHashSet<>());
+            }
+
+            for (User staff : staffMembers) {
+                staffById.put(staff.getUserId(), staff);
+                loadByStaff.put(staff.getUserId(), 0);
+                buckets.get(0).add(staff.getUserId());
+            }
+
+            for (MaintenanceRequest request : open) {
+                User staff = request.getStaff();
+                if (staff != null && staffById.containsKey(staff.getUserId())) {
+                    // Already assigned before the restart: just count it.
+                    assignments.put(request.getRequestId(), staff.getUserId());
+                    changeLoad(staff.getUserId(), +1);
+                } else {
+                    backlog.add(QueuedRequest.of(request));
+                }
+            }
+
+            dispatch();
+        }
+        writeAssignments();
+    }
+
+    /**
+     * Called when a maintenance member was added, removed, or changed role.
+     * The queue is rebuilt once the change is committed.
+     */
+    public void onStaffChanged() {
+        afterCommit(this::rebuild);
+    }
+
+    /**
+     * Called right after a new (or re-opened) report is saved.
+     */
+    public void onCreated(MaintenanceRequest request) {
+        if (request.getRequestId() == null) return;
+        QueuedRequest queued = QueuedRequest.of(request);
+        afterCommit(() -> enqueue(queued));
+    }
+
+    /**
+     * Called when a request is RESOLVED (or deleted).
+     * The staff member gets one slot back, which is immediately offered to the most urgent waiting request.
+     */
+    public void onClosed(Integer requestId) {
+        if (requestId == null) return;
+        afterCommit(() -> release(requestId));
+    }
+
+    private void enqueue(QueuedRequest request) {
+        synchronized (this) {
+            if (assignments.containsKey(request.requestId())
+                    || backlog.stream().anyMatch(q -> q.requestId().equals(request.requestId()))) return;
+            backlog.add(request);
+            dispatch();
+        }
+        writeAssignments();
+    }
+
+    private void release(Integer requestId) {
+        synchronized (this) {
+            Integer staffId = assignments.remove(requestId);
+            if (staffId != null) {
+                changeLoad(staffId, -1);
+            } else {
+                backlog.removeIf(q -> q.requestId().equals(requestId));
+            }
+            dispatch();
+        }
+        writeAssignments();
+    }
+
+    /**
+     * Writes the decided assignments to the database, oldest first, in a transaction of their own.
+     * Whoever gets here first writes everything that is waiting, so a later decision is never
+     * overwritten by an earlier one.
+     */
+    private void writeAssignments() {
+        synchronized (writeLock) {
+            List<Assignment> batch = new ArrayList<>();
+            for (Assignment next; (next = unwritten.poll()) != null; ) batch.add(next);
+            if (batch.isEmpty()) return;
+            newTransaction.executeWithoutResult(status ->
+                    batch.forEach(a -> repository.assignStaff(a.requestId(), a.staff())));
+        }
+    }
+
+    /**
+     * Returns how many open requests each staff member currently holds.
+     */
+    public synchronized List<StaffWorkloadView> getWorkload() {
+        List<StaffWorkloadView> view = new ArrayList<>();
+        staffById.forEach((id, staff) -> view.add(new StaffWorkloadView(id, staff.getName(), loadByStaff.get(id))));
+        return view;
+    }
+
+    /**
+     * Number of requests still waiting because every staff member is at full capacity.
+     */
+    public synchronized int getBacklogSize() {
+        return backlog.size();
+    }
+
+    /**
+     * Gives the most urgent waiting requests to the least busy staff, until one of them runs out.
+     * Only decides (in memory); writeAssignments saves the decisions once the lock is released.
+     */
+    private void dispatch() {
+        while (!backlog.isEmpty()) {
+            Integer staffId = leastLoadedStaff();
+            if (staffId == null) return; // Everybody is full, the request keeps waiting.
+
+            QueuedRequest next = backlog.poll();
+            unwritten.add(new Assignment(next.requestId(), staffById.get(staffId)));
+            assignments.put(next.requestId(), staffId);
+            changeLoad(staffId, +1);
+        }
+    }
+
+    /**
+     * Looks at the buckets from "0 requests" upward. There are at most (max + 1) buckets,
+     * so this is a constant amount of work.
+     */
+    private Integer leastLoadedStaff() {
+        for (int load = 0; load < maxActivePerStaff; load++) {
+            LinkedHashSet<Integer> bucket = buckets.get(load);
+            if (!bucket.isEmpty()) return bucket.iterator().next();
+        }
+        return null;
+    }
+
+    /**
+     * Moves a staff member from one bucket to the next one up (or down).
+     */
+    private void changeLoad(Integer staffId, int delta) {
+        int current = loadByStaff.get(staffId);
+        int updated = Math.max(0, current + delta);
+        loadByStaff.put(staffId, updated);
+        buckets.get(Math.min(current, maxActivePerStaff)).remove(staffId);
+        buckets.get(Math.min(updated, maxActivePerStaff)).add(staffId);
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * One decision of dispatch(), waiting to be written.
+     */
+    private record Assignment(Integer requestId, User staff) {
+    }
+
+    /**
+     * The small piece of a request the queue needs to sort it.
+     */
+    private record QueuedRequest(Integer requestId, int severityRank, LocalDateTime reportDate) {
+
+        static QueuedRequest of(MaintenanceRequest request) {
+            LocalDateTime reported = request.getReportDate() != null ? request.getReportDate() : LocalDateTime.now();
+            return new QueuedRequest(request.getRequestId(), severityRank(request.getSeverity()), reported);
+        }
+
+        // Same order as MaintenanceRequestRepository.findFiltered: HIGH -> MEDIUM -> LOW -> anything else.
+        static int severityRank(String severity) {
+            if (severity == null) return 3;
+            return switch (severity.toUpperCase()) {
+                case "HIGH" -> 0;
+                case "MEDIUM" -> 1;
+                case "LOW" -> 2;
+                default -> 3;
+            };
+        }
+    }
+}
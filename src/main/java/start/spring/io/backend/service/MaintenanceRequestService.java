@@ -1,20 +1,27 @@
 package start.spring.io.backend.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import start.spring.io.backend.dto.api.MaintenanceReportDto;
+import start.spring.io.backend.event.FacilityClosedEvent;
 import start.spring.io.backend.model.Facility;
 import start.spring.io.backend.model.MaintenanceRequest;
 import start.spring.io.backend.model.User;
 import start.spring.io.backend.repository.MaintenanceRequestRepository;
+import start.spring.io.backend.security.FitEaseUserDetails;
 
 /**
  * This service manages the cycle of a maintenance issue.
  * It is a coordinator service because it talks to other services (Facility, Reservation)
  * to ensure that when something breaks, the court is closed and bookings are cancelled.
+ * The cancellations themselves happen in the background, triggered by a FacilityClosedEvent.
  */
 @Service
 public class MaintenanceRequestService {
@@ -22,22 +29,66 @@ public class MaintenanceRequestService {
     private final MaintenanceRequestRepository repository;
     private final UserService userService;
     private final FacilityService facilityService;
-    private final ReservationService reservationService; // Inyectado
+    private final MaintenanceDispatcher dispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EmailService emailService;
 
     public MaintenanceRequestService(MaintenanceRequestRepository repository,
                                      UserService userService,
                                      FacilityService facilityService,
-                                     ReservationService reservationService) {
+                                     MaintenanceDispatcher dispatcher,
+                                     ApplicationEventPublisher eventPublisher,
+                                     EmailService emailService) {
         this.repository = repository;
         this.userService = userService;
         this.facilityService = facilityService;
-        this.reservationService = reservationService;
+        this.dispatcher = dispatcher;
+        this.eventPublisher = eventPublisher;
+        this.emailService = emailService;
     }
 
-    public List<MaintenanceRequest> getAllRequests() { return repository.findAll(); }
+    @Transactional(readOnly = true)
+    public List<MaintenanceRequest> getAllRequests() { return repository.findAllWithStaff(); }
+
+    @Transactional(readOnly = true)
     public List<MaintenanceRequest> getFilteredRequests(String status) { return repository.findFiltered(status); }
+
     public Optional<MaintenanceRequest> getRequestById(Integer id) { return repository.findById(id); }
 
+    /**
+     * The reports a user sent, newest first, as small DTOs (used by the JSON API).
+     */
+    @Transactional(readOnly = true)
+    public List<MaintenanceReportDto> getReportsByUser(Integer userId) { return repository.findReportsByUser(userId); }
+
+    /**
+     * A user reports a problem with a facility (from the report form or the JSON API).
+     * It links the report to the facility and the reporter, marks it "PENDING" with today's date,
+     * saves it (the dispatcher assigns a staff member) and sends a confirmation email.
+     */
+    @Transactional
+    public MaintenanceRequest submitReport(MaintenanceRequest request, Integer facilityId, FitEaseUserDetails reporter) {
+        Facility facility = facilityService.getFacilityById(facilityId)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid Facility ID"));
+        request.setRequestId(null);
+        request.setFacility(facility);
+        // The id, email and name come with the login, so only a reference to the user row is needed.
+        request.setUser(userService.getUserReference(reporter.getUserId()));
+        request.setReportDate(LocalDateTime.now());
+        request.setStatus("PENDING");
+        MaintenanceRequest saved = createRequest(request);
+
+        String subject = "Maintenance Request Received: " + facility.getName();
+        String body = "Hello " + reporter.getName() + ",\n\n" +
+                "We have received your maintenance report for " + facility.getName() + ".\n" +
+                "Issue: " + request.getIssueType() + "\n\n" +
+                "Our maintenance team will review it shortly.\n" +
+                "Thank you for helping us keep FitEasePWR in top shape!\n\n" +
+                "Best regards,\nFitEasePWR Team";
+        emailService.sendEmail(reporter.getEmail(), subject, body);
+        return saved;
+    }
+
     /**
      * Creates a new report using ID numbers.
      */
@@ -47,13 +98,20 @@ public class MaintenanceRequestService {
         request.setUser(user);
         request.setFacility(facility);
         request.setRequestId(null);
-        return repository.save(request);
+        MaintenanceRequest saved = repository.save(request);
+        dispatcher.onCreated(saved);
+        return saved;
     }
 
     /**
      * Creates a request when we already have the full User and Facility objects.
+     * The dispatcher then assigns it to the least busy staff member.
      */
-    public MaintenanceRequest createRequest(MaintenanceRequest request) { return repository.save(request); }
+    public MaintenanceRequest createRequest(MaintenanceRequest request) {
+        MaintenanceRequest saved = repository.save(request);
+        dispatcher.onCreated(saved);
+        return saved;
+    }
 
     /**
      * Updates the status.
@@ -66,10 +124,7 @@ public class MaintenanceRequestService {
         } else if ("RESOLVED".equalsIgnoreCase(status)) {
             markResolved(id);
         } else {
-            repository.findById(id).ifPresent(request -> {
-                request.setStatus(status);
-                repository.save(request);
-            });
+            repository.findById(id).ifPresent(request -> changeStatus(request, status));
         }
     }
 
@@ -77,35 +132,51 @@ public class MaintenanceRequestService {
      * Marks a request as "In Progress".
      * This automatically:
      * 1. Sets the facility status to "Unavailable".
-     * 2. Cancels all future reservations for this court.
+     * 2. Publishes a FacilityClosedEvent. Once this transaction commits, the future
+     *    reservations for this court are cancelled in the background (see FacilityClosureListener).
      */
     @Transactional
     public void markInProgress(Integer id) {
         repository.findById(id).ifPresent(request -> {
-            request.setStatus("IN_PROGRESS");
-            repository.save(request);
+            changeStatus(request, "IN_PROGRESS");
 
             Integer facilityId = request.getFacility().getFacilityId();
             facilityService.updateStatus(facilityId, "Unavailable");
 
-            // MASS CANCELLATION: Notify users their game is off.
-            reservationService.cancelReservationsForFacility(facilityId, "Urgent maintenance: " + request.getIssueType());
+            // MASS CANCELLATION: Notify users their game is off (after commit, in the background).
+            eventPublisher.publishEvent(new FacilityClosedEvent(facilityId, "Urgent maintenance: " + request.getIssueType()));
         });
     }
 
     /**
      * Marks a request as "Resolved" (Fixed).
-     * This automatically re-opens the facility ("Available").
+     * This automatically re-opens the facility ("Available")
+     * and frees up the staff member for the next request in the queue.
      */
     @Transactional
     public void markResolved(Integer id) {
         repository.findById(id).ifPresent(request -> {
-            request.setStatus("RESOLVED");
-            repository.save(request);
+            changeStatus(request, "RESOLVED");
             facilityService.updateStatus(request.getFacility().getFacilityId(), "Available");
         });
     }
 
+    /**
+     * Every status change goes through here, so the dispatcher hears about each request that is
+     * closed (RESOLVED) or opened again. It only acts once the transaction has committed.
+     */
+    private void changeStatus(MaintenanceRequest request, String status) {
+        boolean wasOpen = !"RESOLVED".equals(request.getStatus());
+        request.setStatus(status);
+        repository.save(request);
+        boolean isOpen = !"RESOLVED".equals(status);
+        if (wasOpen && !isOpen) {
+            dispatcher.onClosed(request.getRequestId());
+        } else if (!wasOpen && isOpen) {
+            dispatcher.onCreated(request);
+        }
+    }
+
     /**
      * Checks if a facility currently has any UNRESOLVED issues.
      * Used to show the warning icon on the dashboard.
@@ -114,9 +185,20 @@ public class MaintenanceRequestService {
         return repository.existsByFacility_FacilityIdAndStatusNot(facilityId, "RESOLVED");
     }
 
+    /**
+     * The ids of all facilities with UNRESOLVED issues, in one query.
+     * Use this instead of hasActiveRequests when showing a list of facilities.
+     */
+    @Transactional(readOnly = true)
+    public Set<Integer> facilitiesWithActiveRequests() {
+        return repository.findFacilityIdsWithStatusNot("RESOLVED");
+    }
+
+    @Transactional
     public boolean deleteRequest(Integer id) {
         if (repository.existsById(id)) {
             repository.deleteById(id);
+            dispatcher.onClosed(id);
             return true;
         }
         return false;
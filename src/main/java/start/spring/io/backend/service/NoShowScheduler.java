@@ -0,0 +1,116 @@
+package start.spring.io.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.model.PenaltyReason;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.repository.ReservationRepository;
+
+/**
+ * Finds no-shows automatically, so the manager does not have to click "No-Show" for every booking.
+ *
+ * <p>Normally ReservationTimers fires the check for each booking exactly when its 10-minute grace
+ * period ends. This sweep is the safety net for what the timers could not see (for example while
+ * the server was restarting): every half hour it looks for bookings that started more than 10 minutes
+ * ago where nobody checked in, and gives all of them a NO_SHOW penalty in one INSERT.
+ * Only bookings of the last couple of hours are looked at, so old bookings from before
+ * check-in existed are never punished.</p>
+ */
+@Service
+public class NoShowScheduler {
+
+    private final ReservationRepository reservationRepository;
+    private final PenaltyService penaltyService;
+    private final EmailService emailService;
+    private final ClusterJobLock jobLock;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration gracePeriod;
+    private final Duration lookback;
+    private final Counter noShowCounter;
+
+    public NoShowScheduler(ReservationRepository reservationRepository,
+                           PenaltyService penaltyService,
+                           EmailService emailService,
+                           ClusterJobLock jobLock,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${fitease.reservations.no-show-grace:10m}") Duration gracePeriod,
+                           @Value("${fitease.reservations.no-show-lookback:2h}") Duration lookback) {
+        this.reservationRepository = reservationRepository;
+        this.penaltyService = penaltyService;
+        this.emailService = emailService;
+        this.jobLock = jobLock;
+        this.transactionTemplate = transactionTemplate;
+        this.gracePeriod = gracePeriod;
+        this.lookback = lookback;
+        this.noShowCounter = meterRegistry.counter("fitease.reservations.no-shows");
+    }
+
+    @Scheduled(fixedDelayString = "${fitease.reservations.no-show-check-interval:30m}")
+    public void detectNoShows() {
+        jobLock.runExclusively("no-show-detection", Duration.ofMinutes(10), Duration.ZERO, this::penalizeUnattended);
+    }
+
+    /**
+     * A manager clicked "No-Show" on the dashboard. Nothing happens before the grace period is over
+     * (a booking at 10:00 can be marked from 10:11 on) or when the user checked in.
+     * The penalty and its email (an Outbox row) are saved in one transaction.
+     * Returns true if the user got a new penalty.
+     */
+    @Transactional
+    public boolean markNoShow(Integer reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+        if (reservation == null || reservation.getCheckedInAt() != null) return false;
+        if (LocalDateTime.now().isBefore(reservation.getDate().plus(gracePeriod))) return false; // Too early
+
+        // The database ignores a second NO_SHOW for the same reservation, so the user is never punished twice.
+        if (!penaltyService.penalizeReservation(reservation, PenaltyReason.NO_SHOW, "No-Show: " + reservation.getDate())) {
+            return false;
+        }
+        emailService.sendEmail(reservation.getUser().getEmail(), "Penalty Applied", "You missed your reservation.");
+        noShowCounter.increment();
+        return true;
+    }
+
+    /**
+     * The penalties and their emails (Outbox rows) are saved in the same transaction.
+     */
+    void penalizeUnattended() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Reservation> unattended = reservationRepository.findUnattended(cutoff.minus(lookback), cutoff);
+            if (unattended.isEmpty()) return;
+
+            int penalized = penalize(unattended);
+            if (penalized > 0) {
+                System.out.println("No-show sweep: " + penalized + " penalties given that the timers had missed.");
+            }
+        });
+    }
+
+    /**
+     * Gives the NO_SHOW penalties in one INSERT and emails the users that really got a new strike.
+     * Also used by ReservationTimers when a single booking's grace period ends.
+     * Must run inside a transaction.
+     */
+    int penalize(List<Reservation> unattended) {
+        List<Reservation> penalized = penaltyService.penalizeNoShows(unattended);
+        for (Reservation reservation : penalized) {
+            emailService.sendEmail(reservation.getUser().getEmail(), "Penalty Applied",
+                    "You missed your reservation on " + reservation.getDate().toLocalDate() + " and did not check in.");
+        }
+        noShowCounter.increment(penalized.size());
+        return penalized.size();
+    }
+}
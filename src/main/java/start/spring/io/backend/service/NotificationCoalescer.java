@@ -0,0 +1,78 @@
+package start.spring.io.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import start.spring.io.backend.model.NotificationOutbox;
+
+/**
+ * This class merges several emails for the same person into one "digest" email.
+ *
+ * <p>For example, when a facility closes, the same user may receive a "Booking Cancelled"
+ * email for every one of their bookings, plus a penalty email. Instead of 5 separate emails
+ * we send 1 email that lists the 5 updates. The Outbox waits a short moment before sending
+ * (see EmailService) so that messages created close together can be merged.</p>
+ */
+@Component
+public class NotificationCoalescer {
+
+    // Very big digests are split so a single email never becomes huge.
+    private final int maxPerDigest;
+
+    public NotificationCoalescer(@Value("${fitease.notifications.max-per-digest:50}") int maxPerDigest) {
+        this.maxPerDigest = Math.max(1, maxPerDigest);
+    }
+
+    /**
+     * Groups the messages by recipient (keeping their original order) and builds one email per group.
+     * A group with only one message is sent unchanged.
+     */
+    public List<MailDeliveryEngine.Mail> coalesce(List<NotificationOutbox> messages) {
+        Map<String, List<NotificationOutbox>> byRecipient = new LinkedHashMap<>();
+        for (NotificationOutbox message : messages) {
+            byRecipient.computeIfAbsent(recipientKey(message.getRecipient()), k -> new ArrayList<>()).add(message);
+        }
+
+        List<MailDeliveryEngine.Mail> mails = new ArrayList<>();
+        for (List<NotificationOutbox> group : byRecipient.values()) {
+            for (int from = 0; from < group.size(); from += maxPerDigest) {
+                mails.add(toMail(group.subList(from, Math.min(from + maxPerDigest, group.size()))));
+            }
+        }
+        return mails;
+    }
+
+    /**
+     * "Marta@Test.com " and "marta@test.com" are the same person: trimmed and lower case.
+     */
+    public static String recipientKey(String recipient) {
+        return recipient.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private MailDeliveryEngine.Mail toMail(List<NotificationOutbox> group) {
+        NotificationOutbox first = group.get(0);
+        List<Long> ids = group.stream().map(NotificationOutbox::getOutboxId).toList();
+        if (group.size() == 1) {
+            return new MailDeliveryEngine.Mail(ids, first.getRecipient(), first.getSubject(), first.getBody());
+        }
+
+        // Same subject for all (like "Booking Cancelled: Padel Court 1") -> keep it and add the count.
+        boolean sameSubject = group.stream().allMatch(m -> m.getSubject().equals(first.getSubject()));
+        String subject = sameSubject
+                ? first.getSubject() + " (" + group.size() + " updates)"
+                : "FitEasePWR: " + group.size() + " new updates";
+
+        StringBuilder body = new StringBuilder("You have " + group.size() + " new notifications:\n");
+        for (NotificationOutbox message : group) {
+            body.append("\n──────── ").append(message.getSubject()).append(" ────────\n\n")
+                    .append(message.getBody()).append('\n');
+        }
+        return new MailDeliveryEngine.Mail(ids, first.getRecipient(), subject, body.toString());
+    }
+}
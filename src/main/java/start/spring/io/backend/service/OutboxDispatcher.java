@@ -0,0 +1,206 @@
+package start.spring.io.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.model.NotificationOutbox;
+import start.spring.io.backend.repository.NotificationOutboxRepository;
+
+/**
+ * This is an automated service that empties the email Outbox.
+ *
+ * <p>Every few seconds it:</p>
+ * <ol>
+ * <li>Claims a batch of ready messages (short transaction, marks them SENDING with a lease),
+ *     together with any other waiting messages for the same recipients.</li>
+ * <li>Merges the messages for the same person into one digest email (see NotificationCoalescer).</li>
+ * <li>Hands them to the MailDeliveryEngine in groups (one SMTP connection per group), OUTSIDE of any transaction,
+ *     so no database connection is held while waiting. If the engine is busy, fewer messages are claimed.</li>
+ * <li>Marks them SENT, or schedules a retry with exponential backoff (1 min, 2 min, 4 min...).
+ *     After too many failures the message is marked DEAD (the "dead letter" pile) so it stops blocking the queue.</li>
+ * </ol>
+ */
+@Service
+public class OutboxDispatcher {
+
+    private final NotificationOutboxRepository repository;
+    private final MailDeliveryEngine deliveryEngine;
+    private final NotificationCoalescer coalescer;
+    private final ClusterJobLock jobLock;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int messagesPerConnection;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration sentRetention;
+
+    public OutboxDispatcher(NotificationOutboxRepository repository,
+                            MailDeliveryEngine deliveryEngine,
+                            NotificationCoalescer coalescer,
+                            ClusterJobLock jobLock,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${fitease.outbox.batch-size:50}") int batchSize,
+                            @Value("${fitease.mail.messages-per-connection:25}") int messagesPerConnection,
+                            @Value("${fitease.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                            @Value("${fitease.outbox.max-attempts:6}") int maxAttempts,
+                            @Value("${fitease.outbox.base-backoff:1m}") Duration baseBackoff,
+                            @Value("${fitease.outbox.max-backoff:1h}") Duration maxBackoff,
+                            @Value("${fitease.outbox.lease:5m}") Duration lease,
+                            @Value("${fitease.outbox.sent-retention:7d}") Duration sentRetention) {
+        this.repository = repository;
+        this.deliveryEngine = deliveryEngine;
+        this.coalescer = coalescer;
+        this.jobLock = jobLock;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.messagesPerConnection = Math.max(1, messagesPerConnection);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.sentRetention = sentRetention;
+    }
+
+    /**
+     * Runs a few seconds after the previous run has finished.
+     * It keeps going batch after batch while there is work, up to a limit per run.
+     * This job does not need the cluster lock: every server may drain the Outbox at the same time,
+     * because "FOR UPDATE SKIP LOCKED" already hands each message to only one of them.
+     */
+    @Scheduled(fixedDelayString = "${fitease.outbox.poll-interval:2s}")
+    public void drain() {
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            // Backpressure: never take more out of the table than the delivery engine can accept.
+            int limit = Math.min(batchSize, deliveryEngine.remainingCapacity() * messagesPerConnection);
+            if (limit <= 0) return;
+
+            List<NotificationOutbox> batch = claimBatch(limit);
+            if (batch.isEmpty()) return;
+            deliver(batch);
+            if (batch.size() < limit) return;
+        }
+    }
+
+    /**
+     * Cleanup once a day: sent messages are only kept for a while for troubleshooting.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSentMessages() {
+        jobLock.runExclusively("outbox-purge", Duration.ofMinutes(10), Duration.ofMinutes(1),
+                () -> repository.deleteSentBefore(LocalDateTime.now().minus(sentRetention)));
+    }
+
+    /**
+     * Locks the next batch and marks it SENDING. The lease (nextAttemptAt) makes sure that if this
+     * server crashes while sending, another run will pick the messages up again later.
+     * Messages for the same recipients that are still inside their waiting window are taken too,
+     * so they end up in the same digest instead of a second email a few seconds later.
+     */
+    private List<NotificationOutbox> claimBatch(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> due = repository.lockNextBatch(now, limit);
+            if (due.isEmpty()) return due;
+
+            Map<Long, NotificationOutbox> batch = new LinkedHashMap<>();
+            due.forEach(m -> batch.put(m.getOutboxId(), m));
+            // Never more than the limit in total, so the delivery engine can take all of them.
+            int room = limit - due.size();
+            if (room > 0) {
+                List<String> recipients = due.stream()
+                        .map(m -> NotificationCoalescer.recipientKey(m.getRecipient())).distinct().toList();
+                for (NotificationOutbox message : repository.lockPendingForRecipients(recipients, now, limit)) {
+                    if (batch.size() == limit) break;
+                    batch.putIfAbsent(message.getOutboxId(), message);
+                }
+            }
+
+            for (NotificationOutbox message : batch.values()) {
+                message.setStatus("SENDING");
+                message.setNextAttemptAt(now.plus(lease));
+            }
+            return new ArrayList<>(batch.values());
+        });
+    }
+
+    /**
+     * Merges the claimed messages into digests, splits them into groups,
+     * sends the groups in parallel and waits for the results.
+     */
+    private void deliver(List<NotificationOutbox> batch) {
+        Map<Long, NotificationOutbox> byId = new HashMap<>();
+        batch.forEach(message -> byId.put(message.getOutboxId(), message));
+        List<MailDeliveryEngine.Mail> mails = coalescer.coalesce(batch);
+
+        List<CompletableFuture<Map<MailDeliveryEngine.Mail, Exception>>> pending = new ArrayList<>();
+        List<List<MailDeliveryEngine.Mail>> groups = new ArrayList<>();
+        for (int from = 0; from < mails.size(); from += messagesPerConnection) {
+            List<MailDeliveryEngine.Mail> group = mails.subList(from, Math.min(from + messagesPerConnection, mails.size()));
+            try {
+                pending.add(deliveryEngine.submit(group));
+                groups.add(group);
+            } catch (RejectedExecutionException e) {
+                // The engine is full: give the messages back without counting it as a failed attempt.
+                List<Long> ids = group.stream().flatMap(m -> m.outboxIds().stream()).toList();
+                repository.release(ids, LocalDateTime.now());
+            }
+        }
+
+        List<Long> sent = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            Map<MailDeliveryEngine.Mail, Exception> failures = pending.get(i).join();
+            for (MailDeliveryEngine.Mail mail : groups.get(i)) {
+                Exception error = failures.get(mail);
+                for (Long id : mail.outboxIds()) {
+                    if (error == null) {
+                        sent.add(id);
+                    } else {
+                        // If the internet is down or the email is wrong, we try again later instead of losing the message.
+                        recordFailure(byId.get(id), error);
+                    }
+                }
+            }
+        }
+        if (!sent.isEmpty()) {
+            repository.markSent(sent, LocalDateTime.now());
+        }
+    }
+
+    private void recordFailure(NotificationOutbox message, Exception e) {
+        int attempts = message.getAttempts() + 1;
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+
+        if (attempts >= maxAttempts) {
+            System.err.println("❌ Giving up on email to " + message.getRecipient() + " after " + attempts + " attempts: " + error);
+            repository.markFailed(message.getOutboxId(), "DEAD", attempts, LocalDateTime.now(), error);
+        } else {
+            System.err.println("⚠️ Error sending email to " + message.getRecipient() + ", will retry: " + error);
+            repository.markFailed(message.getOutboxId(), "PENDING", attempts, LocalDateTime.now().plus(backoff(attempts)), error);
+        }
+    }
+
+    /**
+     * Exponential backoff: base, 2 x base, 4 x base... but never more than maxBackoff.
+     */
+    Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
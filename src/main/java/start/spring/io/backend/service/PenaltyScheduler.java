@@ -1,10 +1,16 @@
 package start.spring.io.backend.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import start.spring.io.backend.repository.PenaltyRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is an automated service.
@@ -14,21 +20,73 @@ import java.time.LocalDateTime;
 public class PenaltyScheduler {
 
     private final PenaltyRepository penaltyRepository;
+    private final ClusterJobLock jobLock;
+    private final StrikeCounter strikeCounter;
 
-    public PenaltyScheduler(PenaltyRepository penaltyRepository) {
+    // How many penalties are deleted per statement, and how long one run may take at most.
+    private final int batchSize;
+    private final Duration timeBudget;
+
+    private final Counter expiredCounter;
+    private final Counter batchCounter;
+    private final Timer runTimer;
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+
+    public PenaltyScheduler(PenaltyRepository penaltyRepository,
+                            ClusterJobLock jobLock,
+                            StrikeCounter strikeCounter,
+                            MeterRegistry meterRegistry,
+                            @Value("${fitease.penalties.expiry-batch-size:500}") int batchSize,
+                            @Value("${fitease.penalties.expiry-time-budget:30s}") Duration timeBudget) {
         this.penaltyRepository = penaltyRepository;
+        this.jobLock = jobLock;
+        this.strikeCounter = strikeCounter;
+        this.batchSize = Math.max(1, batchSize);
+        this.timeBudget = timeBudget;
+        this.expiredCounter = meterRegistry.counter("fitease.penalties.expired");
+        this.batchCounter = meterRegistry.counter("fitease.penalties.expiry.batches");
+        this.runTimer = meterRegistry.timer("fitease.penalties.expiry.run");
+        meterRegistry.gauge("fitease.penalties.expiry.last.deleted", lastRunDeleted);
     }
 
     /**
      * This method runs automatically every day at 3:00 AM.
-     * It deletes penalties that are older than 3 months to be fair to users.
+     * It deletes penalties that are older than the strike window (90 days by default) to be fair to users.
+     * StrikeCounter stops counting them at the same age.
+     * The delete is done in small chunks (each one a short transaction), so a big backlog never
+     * locks the whole table or loads thousands of rows into memory. If the time budget runs out,
+     * the rest is simply deleted by the next run.
+     * With several servers, only the one that takes the cluster lock does the work.
      */
     @Scheduled(cron = "0 0 3 * * *")
     public void removeExpiredPenalties() {
-        LocalDateTime threeMonthsAgo = LocalDateTime.now().minusMonths(3);
+        jobLock.runExclusively("penalty-expiry", timeBudget.plusMinutes(5), Duration.ofMinutes(1), this::deleteExpiredInChunks);
+        // Expired strikes already stopped counting when they left the window; this only frees the memory.
+        strikeCounter.pruneExpired();
+    }
+
+    private void deleteExpiredInChunks() {
+        LocalDateTime cutoff = strikeCounter.windowStart();
+
+        System.out.println("Running maintenance: Deleting penalties older than " + cutoff);
 
-        System.out.println("Running maintenance: Deleting penalties older than " + threeMonthsAgo);
+        runTimer.record(() -> {
+            long deadline = System.nanoTime() + timeBudget.toNanos();
+            long total = 0;
+            int deleted;
+            do {
+                deleted = penaltyRepository.deleteBatchByDatehourBefore(cutoff, batchSize);
+                total += deleted;
+                expiredCounter.increment(deleted);
+                batchCounter.increment();
+            } while (deleted == batchSize && System.nanoTime() < deadline);
 
-        penaltyRepository.deleteByDatehourBefore(threeMonthsAgo);
+            lastRunDeleted.set(total);
+            if (deleted == batchSize) {
+                System.out.println("Penalty cleanup stopped after " + total + " rows (time budget reached), continuing next run.");
+            } else {
+                System.out.println("Penalty cleanup finished: " + total + " expired penalties removed.");
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,17 @@
 package start.spring.io.backend.service;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import start.spring.io.backend.dto.api.PenaltySummaryDto;
 import start.spring.io.backend.model.Penalty;
+import start.spring.io.backend.model.PenaltyReason;
+import start.spring.io.backend.model.Reservation;
 import start.spring.io.backend.model.User;
 import start.spring.io.backend.repository.PenaltyRepository;
 
@@ -16,18 +24,31 @@ import start.spring.io.backend.repository.PenaltyRepository;
 public class PenaltyService {
 
     private final PenaltyRepository repository;
+    private final StrikeCounter strikeCounter;
 
-    public PenaltyService(PenaltyRepository repository) {
+    public PenaltyService(PenaltyRepository repository, StrikeCounter strikeCounter) {
         this.repository = repository;
+        this.strikeCounter = strikeCounter;
     }
 
     /**
      * Retrieves a list of all penalties ever recorded.
      */
+    @Transactional(readOnly = true)
     public List<Penalty> getAllPenalties() {
         return repository.findAll();
     }
 
+    /**
+     * The strikes of one user for the JSON API: the active count and suspension come from the
+     * in-memory StrikeCounter, the list of penalties from one small query.
+     */
+    @Transactional(readOnly = true)
+    public PenaltySummaryDto getPenaltySummary(Integer userId) {
+        return new PenaltySummaryDto(strikeCounter.activeStrikes(userId), strikeCounter.suspendedUntil(userId),
+                repository.findPenaltiesOfUser(userId));
+    }
+
     /**
      * Finds a specific penalty by its unique ID number.
      */
@@ -39,26 +60,34 @@ public class PenaltyService {
      * Saves a new penalty to the database.
      * We ensure the ID is null so the database knows to create a new row,
      * rather than updating an old one.
+     * The user's strike counter goes up by one.
      */
     public Penalty createPenalty(Penalty penalty) {
         penalty.setPenaltyId(null);
-        return repository.save(penalty);
+        Penalty saved = repository.save(penalty);
+        strikeCounter.onStrikeAdded(userIdOf(saved), saved.getDatehour());
+        return saved;
     }
 
     /**
      * Updates an existing penalty.
      * It looks for the penalty by ID. If found, it updates the details (User, Description, Date)
      * and saves it again. If not found, it returns null.
+     * The strike is moved in the counter too (the user or the date may have changed).
      */
+    @Transactional
     public Penalty updatePenalty(Integer id, Penalty penaltyDetails) {
         return repository.findById(id).map(penalty -> {
+            strikeCounter.onStrikeRemoved(userIdOf(penalty), penalty.getDatehour());
             // Update the relationship only if a new user is provided
             if (penaltyDetails.getUser() != null) {
                 penalty.setUser(penaltyDetails.getUser());
             }
             penalty.setDescription(penaltyDetails.getDescription());
             penalty.setDatehour(penaltyDetails.getDatehour());
-            return repository.save(penalty);
+            Penalty saved = repository.save(penalty);
+            strikeCounter.onStrikeAdded(userIdOf(saved), saved.getDatehour());
+            return saved;
         }).orElse(null);
     }
 
@@ -66,19 +95,51 @@ public class PenaltyService {
      * Deletes a penalty permanently.
      * Returns true if successful, false if the penalty didn't exist.
      */
+    @Transactional
     public boolean deletePenalty(Integer id) {
-        if (repository.existsById(id)) {
-            repository.deleteById(id);
+        return repository.findById(id).map(penalty -> {
+            repository.delete(penalty);
+            strikeCounter.onStrikeRemoved(userIdOf(penalty), penalty.getDatehour());
             return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Gives a penalty for a reservation, but only once per reason.
+     * There is no "does it already exist?" query first: the database decides atomically.
+     * Returns true if the penalty was created, false if the user already had it.
+     */
+    public boolean penalizeReservation(Reservation reservation, PenaltyReason reason, String description) {
+        User user = reservation.getUser();
+        if (user == null) return false;
+        LocalDateTime now = LocalDateTime.now();
+        boolean created = repository.insertForReservation(user.getUserId(), reservation.getReservationId(),
+                reason.name(), description, now) == 1;
+        if (created) {
+            strikeCounter.onStrikeAdded(user.getUserId(), now);
         }
-        return false;
+        return created;
     }
 
     /**
-     * Checks if a user already has a penalty for a specific reason.
-     * This helps prevent duplicate punishments for the same mistake.
+     * Gives a NO_SHOW penalty for many reservations with one INSERT statement.
+     * Returns the reservations whose user really got a new strike (the others already had one).
      */
-    public boolean existsPenalty(User user, String description) {
-        return repository.existsByUserAndDescription(user, description);
+    public List<Reservation> penalizeNoShows(List<Reservation> reservations) {
+        if (reservations.isEmpty()) return List.of();
+        // Seconds only, so the StrikeCounter keeps exactly the time the database stores.
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Integer> ids = reservations.stream().map(Reservation::getReservationId).toList();
+
+        // The INSERT tells us which rows it created; the others were given by somebody else
+        // (an admin click, or another server running the same check in the same second).
+        Set<Integer> ours = new HashSet<>(repository.insertNoShows(ids, now));
+        List<Reservation> penalized = reservations.stream().filter(r -> ours.contains(r.getReservationId())).toList();
+        penalized.forEach(r -> strikeCounter.onStrikeAdded(r.getUser().getUserId(), now));
+        return penalized;
+    }
+
+    private Integer userIdOf(Penalty penalty) {
+        return penalty.getUser() != null ? penalty.getUser().getUserId() : null;
     }
-}
\ No newline at end of file
+}
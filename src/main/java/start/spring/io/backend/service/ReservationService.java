@@ -1,7 +1,13 @@
 package start.spring.io.backend.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import start.spring.io.backend.dto.api.AvailabilityDto;
+import start.spring.io.backend.dto.api.BookingDto;
 import start.spring.io.backend.model.Facility;
 import start.spring.io.backend.model.Reservation;
 import start.spring.io.backend.model.User;
@@ -23,6 +29,12 @@ public class ReservationService {
     private final UserService userService;
     private final EmailService emailService;
     private final FacilityService facilityService;
+    private final CancellationProgressTracker progressTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationTimers timers;
+
+    // How many bookings are cancelled per transaction during a mass cancellation.
+    private final int cancellationBatchSize;
 
     /**
      * Constructor Injection.
@@ -32,17 +44,47 @@ public class ReservationService {
     public ReservationService(ReservationRepository repo,
                               UserService userService,
                               EmailService emailService,
-                              @Lazy FacilityService facilityService) {
+                              @Lazy FacilityService facilityService,
+                              CancellationProgressTracker progressTracker,
+                              TransactionTemplate transactionTemplate,
+                              ReservationTimers timers,
+                              @Value("${fitease.reservations.cancellation-batch-size:100}") int cancellationBatchSize) {
         this.repo = repo;
         this.userService = userService;
         this.emailService = emailService;
         this.facilityService = facilityService;
+        this.progressTracker = progressTracker;
+        this.transactionTemplate = transactionTemplate;
+        this.timers = timers;
+        this.cancellationBatchSize = Math.max(1, cancellationBatchSize);
     }
 
+    @Transactional(readOnly = true)
     public List<Reservation> getAll() { return repo.findAll(); }
+
+    @Transactional(readOnly = true)
     public List<Reservation> getByUserId(Integer userId) { return repo.findByUser_UserId(userId); }
+
     public Optional<Reservation> getById(Integer id) { return repo.findById(id); }
 
+    /**
+     * The bookings of a user from 'from' on, as small DTOs (used by the JSON API).
+     */
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingsOfUser(Integer userId, LocalDateTime from) {
+        return repo.findBookingsOfUser(userId, from);
+    }
+
+    /**
+     * The time slots of a facility that are already booked on one day, in order.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailabilityDto.TimeSlot> getBookedSlots(Integer facilityId, LocalDate date) {
+        return repo.findBookedTimes(facilityId, date.atStartOfDay(), date.plusDays(1).atStartOfDay()).stream()
+                .map(row -> new AvailabilityDto.TimeSlot((LocalTime) row[0], (LocalTime) row[1]))
+                .toList();
+    }
+
     /**
      * Creates a reservation using ID numbers.
      * The web form sends us "User ID 5" and "Facility ID 2".
@@ -60,10 +102,16 @@ public class ReservationService {
         r.setUser(user);
         r.setFacility(facility);
 
-        return repo.save(r);
+        Reservation saved = repo.save(r);
+        timers.onSaved(saved); // Reminder and no-show check for the new booking
+        return saved;
     }
 
-    public Reservation create(Reservation r) { return repo.save(r); }
+    public Reservation create(Reservation r) {
+        Reservation saved = repo.save(r);
+        timers.onSaved(saved);
+        return saved;
+    }
 
     /**
      * It checks if a requested time slot overlaps with any existing booking for a facility.
@@ -94,6 +142,7 @@ public class ReservationService {
      * Updates an existing reservation.
      * Allows changing time, date, or even moving it to a different court.
      */
+    @Transactional
     public Optional<Reservation> update(Integer id, Reservation details) {
         return repo.findById(id).map(r -> {
             if(details.getUser() != null) r.setUser(details.getUser());
@@ -101,16 +150,23 @@ public class ReservationService {
             // If the user changed the facility, we update the link
             if(details.getFacility() != null) r.setFacility(details.getFacility());
 
+            // A booking moved to another time gets a new reminder.
+            if (!details.getDate().equals(r.getDate())) r.setRemindedAt(null);
             r.setDate(details.getDate());
             r.setStartTime(details.getStartTime());
             r.setEndTime(details.getEndTime());
             r.setParticipants(details.getParticipants());
             r.setPurpose(details.getPurpose());
-            return repo.save(r);
+            Reservation saved = repo.save(r);
+            timers.onSaved(saved); // Moves the timers if the time changed
+            return saved;
         });
     }
 
-    public void delete(Integer id) { repo.deleteById(id); }
+    public void delete(Integer id) {
+        repo.deleteById(id);
+        timers.onDeleted(id);
+    }
 
     /**
      * Helper method to calculate time collision.
@@ -124,25 +180,48 @@ public class ReservationService {
      * Fetches all reservations between two dates.
      * Used by the Manager Dashboard to show today's agenda.
      */
+    @Transactional(readOnly = true)
     public List<Reservation> getReservationsByDateRange(LocalDateTime start, LocalDateTime end) {
         return repo.findAllByDateBetween(start, end);
     }
 
     /**
      * When a facility breaks (Maintenance Request), this method:
-     * 1. Finds all FUTURE bookings for that court.
+     * 1. Finds the FUTURE bookings for that court, one batch at a time.
      * 2. Sends an apology email to every affected user.
-     * 3. Deletes the bookings from the system.
+     * 3. Deletes the batch from the system with a single statement.
+     * Every batch is its own short transaction, and the progress is reported to the CancellationProgressTracker.
+     * It normally runs in the background (see FacilityClosureListener).
      */
     public void cancelReservationsForFacility(Integer facilityId, String reason) {
-        // Find only future reservations (we don't cancel past games)
-        List<Reservation> futureReservations = repo.findByFacility_FacilityIdAndDateAfter(facilityId, LocalDateTime.now());
+        // Only future reservations (we don't cancel past games)
+        LocalDateTime now = LocalDateTime.now();
 
         String facilityName = facilityService.getFacilityById(facilityId)
                 .map(Facility::getName)
                 .orElse("Sports Facility");
 
-        for (Reservation r : futureReservations) {
+        progressTracker.start(facilityId, reason, repo.countByFacility_FacilityIdAndDateAfter(facilityId, now));
+        try {
+            int cancelled;
+            do {
+                cancelled = transactionTemplate.execute(status -> cancelNextBatch(facilityId, now, facilityName, reason));
+                progressTracker.advance(facilityId, cancelled);
+            } while (cancelled == cancellationBatchSize);
+        } finally {
+            progressTracker.finish(facilityId);
+        }
+    }
+
+    /**
+     * Cancels the next batch of bookings. Because the previous batches were already deleted,
+     * we can always ask for the "first page" again.
+     */
+    private int cancelNextBatch(Integer facilityId, LocalDateTime after, String facilityName, String reason) {
+        List<Reservation> batch = repo.findByFacility_FacilityIdAndDateAfterOrderByReservationIdAsc(
+                facilityId, after, PageRequest.of(0, cancellationBatchSize));
+
+        for (Reservation r : batch) {
             if (r.getUser() != null) {
                 String userEmail = r.getUser().getEmail();
                 String userName = r.getUser().getName();
@@ -158,8 +237,12 @@ public class ReservationService {
                 // Send the email
                 emailService.sendEmail(userEmail, subject, body);
             }
-            // Remove the booking
-            repo.delete(r);
         }
+
+        // Remove the whole batch with one DELETE ... WHERE id IN (...)
+        List<Integer> ids = batch.stream().map(Reservation::getReservationId).toList();
+        repo.deleteAllByIdInBatch(ids);
+        ids.forEach(timers::onDeleted);
+        return batch.size();
     }
 }
\ No newline at end of file
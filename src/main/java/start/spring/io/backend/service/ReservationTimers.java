@@ -0,0 +1,202 @@
+package start.spring.io.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.repository.ReservationRepository;
+
+/**
+ * Fires things that must happen at a moment relative to a reservation, exactly when they are due:
+ * <ul>
+ * <li><b>Reminder</b> 24 hours before the start, which is also the last moment to cancel without a penalty.</li>
+ * <li><b>No-show check</b> when the 10-minute grace period after the start is over.</li>
+ * </ul>
+ * The timers live in a {@link TimingWheel} in memory. It is filled from the reservation table once at
+ * startup and then kept up to date by ReservationService on every create, update and delete, so no
+ * table has to be scanned every few minutes to find out what is due.
+ *
+ * <p>Every server keeps its own wheel. That is safe: the reminder is marked as sent with a conditional
+ * UPDATE and the NO_SHOW penalty is protected by its unique index, so only one server acts.
+ * A timer can be stale (the booking was moved on another server), so when it fires the due time is
+ * checked again against the row just loaded; a booking that is not due yet gets a new timer instead.</p>
+ */
+@Service
+public class ReservationTimers {
+
+    /**
+     * The kinds of timers one reservation can have.
+     */
+    public enum Kind { REMINDER, NO_SHOW_CHECK }
+
+    /**
+     * What the wheel stores: which reservation and which kind of timer.
+     */
+    public record TimerKey(Integer reservationId, Kind kind) {
+    }
+
+    private final ReservationRepository repository;
+    private final NoShowScheduler noShowScheduler;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration reminderBefore;
+    private final Duration noShowGrace;
+    private final TimingWheel<TimerKey> wheel = new TimingWheel<>(1000, 60, System.currentTimeMillis());
+
+    public ReservationTimers(ReservationRepository repository,
+                             NoShowScheduler noShowScheduler,
+                             EmailService emailService,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${fitease.reservations.reminder-before:24h}") Duration reminderBefore,
+                             @Value("${fitease.reservations.no-show-grace:10m}") Duration noShowGrace) {
+        this.repository = repository;
+        this.noShowScheduler = noShowScheduler;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.reminderBefore = reminderBefore;
+        this.noShowGrace = noShowGrace;
+        Gauge.builder("fitease.reservations.timers", wheel, TimingWheel::size)
+                .description("Reservation timers waiting in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the timers of all reservations whose no-show check is still ahead of us.
+     * Only (id, date) pairs are read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        wheel.clear(System.currentTimeMillis());
+        for (Object[] row : repository.findStartTimesAfter(now.minus(noShowGrace))) {
+            schedule((Integer) row[0], (LocalDateTime) row[1], now);
+        }
+    }
+
+    /**
+     * Called after a reservation was created or moved to another time.
+     */
+    public void onSaved(Reservation reservation) {
+        if (reservation.getReservationId() == null || reservation.getDate() == null) return;
+        schedule(reservation.getReservationId(), reservation.getDate(), LocalDateTime.now());
+    }
+
+    /**
+     * Called after a reservation was deleted. The timers are only cancelled once the delete
+     * commits, so a rolled back delete keeps its reminder and no-show check.
+     */
+    public void onDeleted(Integer reservationId) {
+        afterCommit(() -> {
+            for (Kind kind : Kind.values()) {
+                wheel.cancel(new TimerKey(reservationId, kind));
+            }
+        });
+    }
+
+    /**
+     * Moves the wheel forward every second and handles the timers that are due.
+     */
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        List<TimerKey> due = wheel.advanceTo(System.currentTimeMillis());
+        if (due.isEmpty()) return;
+
+        List<Integer> reminders = new ArrayList<>();
+        List<Integer> noShowChecks = new ArrayList<>();
+        for (TimerKey key : due) {
+            (key.kind() == Kind.REMINDER ? reminders : noShowChecks).add(key.reservationId());
+        }
+        if (!reminders.isEmpty()) sendReminders(reminders);
+        if (!noShowChecks.isEmpty()) checkNoShows(noShowChecks);
+    }
+
+    private void schedule(Integer reservationId, LocalDateTime start, LocalDateTime now) {
+        LocalDateTime remindAt = start.minus(reminderBefore);
+        TimerKey reminder = new TimerKey(reservationId, Kind.REMINDER);
+        if (remindAt.isAfter(now)) {
+            wheel.schedule(reminder, toMillis(remindAt));
+        } else {
+            wheel.cancel(reminder); // Booked (or moved) less than 24h ahead: the confirmation is enough.
+        }
+        wheel.schedule(new TimerKey(reservationId, Kind.NO_SHOW_CHECK), toMillis(start.plus(noShowGrace)));
+    }
+
+    /**
+     * Sends the reminders. A reminder is only sent by the server that manages to mark it as sent.
+     */
+    private void sendReminders(List<Integer> reservationIds) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Reservation r : dueOnly(repository.findAllById(reservationIds), reminderBefore.negated(), now)) {
+                if (r.getUser() == null || repository.markReminded(r.getReservationId(), now) == 0) continue;
+                String facilityName = r.getFacility() != null ? r.getFacility().getName() : "your facility";
+                emailService.sendEmail(r.getUser().getEmail(), "Reminder: " + facilityName + " tomorrow",
+                        "Hello " + r.getUser().getName() + ",\n\nThis is a reminder of your booking for " + facilityName
+                                + " on " + r.getDate().toLocalDate() + " at " + r.getStartTime() + ".\n\n"
+                                + "From now on, cancelling will give you a penalty. Please remember to check in when you arrive.\n\n"
+                                + "FitEasePWR Team");
+            }
+        });
+    }
+
+    /**
+     * Gives a NO_SHOW penalty for the due reservations that nobody checked in to (one INSERT for all).
+     */
+    private void checkNoShows(List<Integer> reservationIds) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> noShowScheduler.penalize(
+                dueOnly(repository.findAllById(reservationIds), noShowGrace, now).stream()
+                        .filter(r -> r.getCheckedInAt() == null && r.getUser() != null)
+                        .toList()));
+    }
+
+    /**
+     * Keeps the reservations whose start + offset has really passed. The others were moved to a later
+     * time after their timer was set: they are scheduled again for their current start.
+     */
+    private List<Reservation> dueOnly(List<Reservation> reservations, Duration offsetFromStart, LocalDateTime now) {
+        List<Reservation> due = new ArrayList<>();
+        for (Reservation r : reservations) {
+            if (r.getDate() == null) continue;
+            if (now.isBefore(r.getDate().plus(offsetFromStart))) {
+                schedule(r.getReservationId(), r.getDate(), now);
+            } else {
+                due.add(r);
+            }
+        }
+        return due;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
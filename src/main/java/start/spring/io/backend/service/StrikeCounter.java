@@ -0,0 +1,216 @@
+package start.spring.io.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import start.spring.io.backend.repository.PenaltyRepository;
+
+/**
+ * Keeps, in memory, how many "active" strikes every user has.
+ *
+ * <p>A strike is active while it is younger than the rolling window ("fitease.penalties.strike-window",
+ * 90 days by default). PenaltyScheduler deletes penalties at the same age (see windowStart). For each user we keep the dates
+ * of their strikes in a small sorted map, so answering "how many strikes does this user have
+ * right now?" only drops the strikes that fell out of the window and returns a stored number.
+ * A booking never needs to query the penalty table.</p>
+ *
+ * <p>The counter is loaded once at startup and refreshed every few minutes as a safety net
+ * (for example when another server gave out a penalty). A user whose strikes changed on this server
+ * while the refresh was reading the database keeps what is in memory until the next refresh,
+ * so that change is never lost.</p>
+ */
+@Service
+public class StrikeCounter {
+
+    private final PenaltyRepository repository;
+    private final Duration window;
+    private final int suspensionThreshold;
+
+    // userId -> strikes of that user (date -> how many strikes at that exact moment)
+    private final Map<Integer, UserStrikes> strikesByUser = new ConcurrentHashMap<>();
+
+    // Every change of a user's strikes gets a new number, so rebuild can tell which users changed meanwhile.
+    private final AtomicLong changes = new AtomicLong();
+
+    public StrikeCounter(PenaltyRepository repository,
+                         @Value("${fitease.penalties.strike-window:90d}") Duration window,
+                         @Value("${fitease.penalties.suspension-threshold:3}") int suspensionThreshold) {
+        this.repository = repository;
+        this.window = window;
+        this.suspensionThreshold = Math.max(1, suspensionThreshold);
+    }
+
+    /**
+     * Loads the active strikes of all users. Only (userId, date) pairs are read, no Penalty objects.
+     * Each user is replaced on their own (ConcurrentHashMap.compute), and only if nothing changed
+     * their strikes on this server since the database was read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${fitease.penalties.strike-refresh:10m}", initialDelayString = "${fitease.penalties.strike-refresh:10m}")
+    public void rebuild() {
+        Map<Integer, Long> versionsBefore = new HashMap<>();
+        strikesByUser.forEach((userId, strikes) -> versionsBefore.put(userId, strikes.version()));
+
+        Map<Integer, UserStrikes> fresh = new HashMap<>();
+        for (Object[] row : repository.findStrikeDatesSince(windowStart())) {
+            fresh.computeIfAbsent((Integer) row[0], id -> new UserStrikes()).add((LocalDateTime) row[1], 0);
+        }
+
+        Set<Integer> users = new HashSet<>(versionsBefore.keySet());
+        users.addAll(fresh.keySet());
+        for (Integer userId : users) {
+            strikesByUser.compute(userId, (id, current) -> {
+                Long before = versionsBefore.get(id);
+                boolean unchanged = current == null ? before == null : before != null && before == current.version();
+                return unchanged ? fresh.get(id) : current;
+            });
+        }
+    }
+
+    /**
+     * Called when a penalty is given. If we are inside a transaction, the counter
+     * only changes once it commits, so a rolled back penalty is never counted.
+     */
+    public void onStrikeAdded(Integer userId, LocalDateTime when) {
+        if (userId == null || when == null) return;
+        afterCommit(() -> strikesByUser.compute(userId, (id, strikes) -> {
+            UserStrikes updated = strikes != null ? strikes : new UserStrikes();
+            updated.add(when, changes.incrementAndGet());
+            return updated;
+        }));
+    }
+
+    /**
+     * Called when a penalty is removed (by a manager, or when it is moved to another user or date).
+     */
+    public void onStrikeRemoved(Integer userId, LocalDateTime when) {
+        if (userId == null || when == null) return;
+        afterCommit(() -> strikesByUser.computeIfPresent(userId, (id, strikes) -> {
+            strikes.remove(when, changes.incrementAndGet());
+            return strikes;
+        }));
+    }
+
+    /**
+     * Called when a user account (and with it all its penalties) was deleted.
+     */
+    public void onUserDeleted(Integer userId) {
+        if (userId == null) return;
+        afterCommit(() -> strikesByUser.remove(userId));
+    }
+
+    /**
+     * Number of strikes the user received inside the rolling window.
+     */
+    public int activeStrikes(Integer userId) {
+        UserStrikes strikes = strikesByUser.get(userId);
+        return strikes == null ? 0 : strikes.countSince(windowStart());
+    }
+
+    /**
+     * Returns when the suspension ends, or null if the user may book.
+     * A user is suspended while they have at least "suspension-threshold" active strikes;
+     * the suspension ends as soon as enough old strikes leave the window.
+     */
+    public LocalDateTime suspendedUntil(Integer userId) {
+        UserStrikes strikes = strikesByUser.get(userId);
+        if (strikes == null) return null;
+        return strikes.suspendedUntil(windowStart(), suspensionThreshold, window);
+    }
+
+    /**
+     * Forgets strikes that are already outside the window, so memory does not grow forever.
+     * PenaltyScheduler calls this after it deleted the expired penalties.
+     */
+    public void pruneExpired() {
+        LocalDateTime since = windowStart();
+        strikesByUser.values().removeIf(strikes -> strikes.countSince(since) == 0);
+    }
+
+    /**
+     * Strikes (and penalties) older than this no longer count. PenaltyScheduler deletes them.
+     */
+    public LocalDateTime windowStart() {
+        return LocalDateTime.now().minus(window);
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * The strike dates of one user, oldest first, plus the total so we never have to count.
+     */
+    private static final class UserStrikes {
+
+        private final TreeMap<LocalDateTime, Integer> dates = new TreeMap<>();
+        private int total;
+        private long version;
+
+        synchronized void add(LocalDateTime when, long change) {
+            dates.merge(when, 1, Integer::sum);
+            total++;
+            version = change;
+        }
+
+        synchronized void remove(LocalDateTime when, long change) {
+            version = change;
+            Integer count = dates.get(when);
+            if (count == null) return;
+            if (count == 1) dates.remove(when); else dates.put(when, count - 1);
+            total--;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        /**
+         * Drops the strikes older than 'since' (each one only once, ever) and returns what is left.
+         */
+        synchronized int countSince(LocalDateTime since) {
+            Map.Entry<LocalDateTime, Integer> oldest;
+            while ((oldest = dates.firstEntry()) != null && oldest.getKey().isBefore(since)) {
+                total -= oldest.getValue();
+                dates.pollFirstEntry();
+            }
+            return total;
+        }
+
+        synchronized LocalDateTime suspendedUntil(LocalDateTime since, int threshold, Duration window) {
+            int active = countSince(since);
+            if (active < threshold) return null;
+            // Walk from the oldest strike until only (threshold - 1) would be left: that one's expiry frees the user.
+            int toExpire = active - threshold + 1;
+            for (Map.Entry<LocalDateTime, Integer> entry : dates.entrySet()) {
+                toExpire -= entry.getValue();
+                if (toExpire <= 0) return entry.getKey().plus(window);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package start.spring.io.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A "hierarchical timing wheel": a data structure that holds many timers and tells us which ones are due.
+ *
+ * <p>Think of a clock with several hands. The first wheel has one slot per second (60 slots), the
+ * next one has one slot per minute (60 slots), then one per hour, and so on (more wheels are added
+ * only when a timer is far enough in the future). A timer is dropped into the slot of the coarsest
+ * wheel that still fits it. When a coarse slot comes up, its timers are moved down to a finer wheel,
+ * until they end up in the seconds wheel and fire.</p>
+ *
+ * <p>Adding or cancelling a timer is O(1), and moving the clock one tick forward only touches the
+ * slots whose time has come, no matter how many timers there are in total. Timers fire at most one
+ * tick late, never early.</p>
+ *
+ * <p>The class is thread-safe; all methods are synchronized.</p>
+ *
+ * @param <K> what identifies a timer (scheduling the same key again moves the timer)
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+
+    // wheels.get(0) is the finest one. Each wheel's tick is the whole span of the previous wheel.
+    private final List<Wheel<K>> wheels = new ArrayList<>();
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+
+    // Timers that were already due when they were added; they fire on the next advance.
+    private final Set<Timer<K>> overdue = new LinkedHashSet<>();
+
+    // The clock of the wheel, always a multiple of tickMillis.
+    private long currentTime;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) throw new IllegalArgumentException("Invalid timing wheel size");
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        this.wheels.add(new Wheel<>(tickMillis, wheelSize));
+    }
+
+    /**
+     * Adds a timer that fires at 'dueMillis' (epoch millis), or moves it if the key is already scheduled.
+     */
+    public synchronized void schedule(K key, long dueMillis) {
+        cancel(key);
+        // Round up to the next tick so a timer never fires before its time.
+        long due = Math.floorMod(dueMillis, tickMillis) == 0 ? dueMillis : dueMillis - Math.floorMod(dueMillis, tickMillis) + tickMillis;
+        Timer<K> timer = new Timer<>(key, due);
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    /**
+     * Removes a timer. Returns false if there was none.
+     */
+    public synchronized boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) return false;
+        if (timer.slot != null) timer.slot.remove(timer);
+        overdue.remove(timer);
+        return true;
+    }
+
+    /**
+     * Moves the clock forward to 'nowMillis' and returns the keys of all timers that are now due,
+     * in the order they were due.
+     */
+    public synchronized List<K> advanceTo(long nowMillis) {
+        List<K> fired = new ArrayList<>();
+        for (Timer<K> timer : overdue) fire(timer, fired);
+        overdue.clear();
+
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+
+            // From the coarsest wheel down: when one of its slots comes up, move its timers to finer wheels.
+            for (int level = wheels.size() - 1; level >= 1; level--) {
+                Wheel<K> wheel = wheels.get(level);
+                if (currentTime % wheel.tick == 0) {
+                    for (Timer<K> timer : wheel.drain(currentTime)) place(timer);
+                }
+            }
+
+            // Everything left in the current slot of the finest wheel is due now.
+            for (Timer<K> timer : wheels.get(0).drain(currentTime)) fire(timer, fired);
+            for (Timer<K> timer : overdue) fire(timer, fired);
+            overdue.clear();
+        }
+        return fired;
+    }
+
+    /**
+     * Removes all timers and restarts the clock (used when rebuilding from the database).
+     */
+    public synchronized void clear(long startMillis) {
+        timers.clear();
+        overdue.clear();
+        wheels.forEach(Wheel::clear);
+        currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Puts a timer into the coarsest wheel that can still hold it (adding wheels when needed).
+     */
+    private void place(Timer<K> timer) {
+        long delay = timer.due - currentTime;
+        if (delay <= 0) {
+            timer.slot = null;
+            overdue.add(timer);
+            return;
+        }
+        int level = 0;
+        while (delay >= wheels.get(level).span()) {
+            level++;
+            if (level == wheels.size()) {
+                wheels.add(new Wheel<>(wheels.get(level - 1).span(), wheelSize));
+            }
+        }
+        wheels.get(level).add(timer);
+    }
+
+    private void fire(Timer<K> timer, List<K> fired) {
+        timer.slot = null;
+        if (timers.remove(timer.key, timer)) fired.add(timer.key);
+    }
+
+    /**
+     * One timer: its key and when it is due.
+     */
+    private static final class Timer<K> {
+        private final K key;
+        private final long due;
+        private Set<Timer<K>> slot; // The slot it sits in, so cancelling is O(1)
+
+        private Timer(K key, long due) {
+            this.key = key;
+            this.due = due;
+        }
+    }
+
+    /**
+     * One wheel: 'size' slots of 'tick' milliseconds each.
+     */
+    private static final class Wheel<K> {
+        private final long tick;
+        private final List<Set<Timer<K>>> slots = new ArrayList<>();
+
+        private Wheel(long tick, int size) {
+            this.tick = tick;
+            for (int i = 0; i < size; i++) slots.add(new LinkedHashSet<>());
+        }
+
+        long span() {
+            return tick * slots.size();
+        }
+
+        /**
+         * The slot is chosen by the tick that contains the due time. It is emptied when the clock
+         * reaches the start of that tick: the finest wheel then fires the timer, a coarser wheel
+         * hands what is left of the wait (less than one of its ticks) to a finer wheel.
+         */
+        void add(Timer<K> timer) {
+            Set<Timer<K>> slot = slots.get(index(timer.due));
+            slot.add(timer);
+            timer.slot = slot;
+        }
+
+        List<Timer<K>> drain(long time) {
+            Set<Timer<K>> slot = slots.get(index(time));
+            List<Timer<K>> drained = new ArrayList<>(slot);
+            slot.clear();
+            return drained;
+        }
+
+        void clear() {
+            slots.forEach(Set::clear);
+        }
+
+        private int index(long time) {
+            return (int) Math.floorMod(Math.floorDiv(time, tick), (long) slots.size());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package start.spring.io.backend.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import start.spring.io.backend.event.UserImportRequestedEvent;
+
+/**
+ * Runs a bulk user import on a background thread, so the admin's upload returns immediately.
+ */
+@Service
+public class UserImportListener {
+
+    private final UserImportService userImportService;
+
+    public UserImportListener(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    @Async
+    @EventListener
+    public void onImportRequested(UserImportRequestedEvent event) {
+        userImportService.importUsers(event.importId(), event.file(), event.fileName());
+    }
+}
@@ -0,0 +1,361 @@
+package start.spring.io.backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.json.JsonMapper;
+
+import start.spring.io.backend.dto.UserImportProgressView;
+import start.spring.io.backend.dto.UserImportProgressView.RowError;
+import start.spring.io.backend.event.UserImportRequestedEvent;
+import start.spring.io.backend.repository.UserRepository;
+
+/**
+ * Creates many user accounts at once from a file (for example at the start of a semester).
+ *
+ * <p>Two formats are accepted:</p>
+ * <ul>
+ * <li><b>CSV</b> with a header line: {@code name,email,password,role} (role is optional, default "user").</li>
+ * <li><b>NDJSON</b>: one JSON object per line, e.g. {@code {"name":"Ana","email":"ana@pwr.edu.pl","password":"..."}}.</li>
+ * </ul>
+ *
+ * <p>Creating the users one by one would cost an email check, a password hash and an insert each.
+ * Instead, the file is read line by line in chunks (1000 rows by default), and for every chunk:</p>
+ * <ol>
+ * <li>Emails that already exist are found with ONE query.</li>
+ * <li>Passwords are hashed in parallel on a small pool of our own ("fitease.users.import-hash-threads",
+ *     by default half of the CPU cores), so the rest of the cores keep serving requests during a big import.
+ *     Passwords that are already BCrypt hashes (when moving users from another system) are stored as they are.</li>
+ * <li>The new users are written with one JDBC batch in one transaction.</li>
+ * </ol>
+ * Hashing uses "fitease.users.import-bcrypt-cost" (the safe minimum, 10) instead of the slower cost
+ * measured at startup; the hash is upgraded automatically the first time each user logs in.
+ * Hashing is still what takes the most time: roughly 10-15 passwords per second per core.
+ */
+@Service
+public class UserImportService {
+
+    private static final Set<String> ROLES = Set.of("user", "maintenance", "admin");
+    private static final int MAX_ERRORS_SHOWN = 200;
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^(\\{bcrypt})?\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
+    // ON CONFLICT DO NOTHING: a user who signs up during the import simply wins, and the row counts as a duplicate.
+    // The id comes from the same sequence Hibernate uses (see User). Each row takes a whole block of 50 ids;
+    // the gaps are harmless and the INSERTs still go out as one JDBC batch.
+    private static final String INSERT_USER = "INSERT INTO users (userid, name, email, password, role) "
+            + "VALUES (nextval('users_seq'), ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final UserRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final MaintenanceDispatcher dispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BCryptPasswordEncoder importEncoder;
+    private final int chunkSize;
+    private final ExecutorService hashers;
+
+    // importId -> latest progress of that import
+    private final Map<String, UserImportProgressView> imports = new ConcurrentHashMap<>();
+
+    public UserImportService(UserRepository repository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             JsonMapper jsonMapper,
+                             MaintenanceDispatcher dispatcher,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${fitease.users.import-bcrypt-cost:10}") int importCost,
+                             @Value("${fitease.users.import-chunk-size:1000}") int chunkSize,
+                             @Value("${fitease.users.import-hash-threads:0}") int hashThreads) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.dispatcher = dispatcher;
+        this.eventPublisher = eventPublisher;
+        this.importEncoder = new BCryptPasswordEncoder(importCost);
+        this.chunkSize = Math.max(1, chunkSize);
+        // Not the common ForkJoinPool: that one is shared with the rest of the app and uses every core.
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashers.shutdownNow();
+    }
+
+    /**
+     * Saves the uploaded file to a temporary file and starts the import in the background.
+     */
+    public UserImportProgressView startImport(MultipartFile upload) throws IOException {
+        Path copy = Files.createTempFile("user-import-", ".tmp");
+        upload.transferTo(copy);
+
+        String importId = UUID.randomUUID().toString().substring(0, 8);
+        String fileName = upload.getOriginalFilename() != null ? upload.getOriginalFilename() : "upload";
+        UserImportProgressView started = new Progress(importId, fileName).snapshot(null);
+        imports.put(importId, started);
+        eventPublisher.publishEvent(new UserImportRequestedEvent(importId, copy, fileName));
+        return started;
+    }
+
+    /**
+     * Reads the whole file and creates the users. Deletes the file at the end.
+     */
+    public UserImportProgressView importUsers(String importId, Path file, String fileName) {
+        Progress progress = new Progress(importId, fileName);
+        Set<String> emailsInFile = new HashSet<>();
+        long start = System.currentTimeMillis();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            Map<String, Integer> csvColumns = null;
+            boolean ndjson = false;
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) line = line.substring(1); // Excel's BOM
+                if (line.isBlank()) continue;
+
+                // The first line decides the format: a JSON object, or the CSV header.
+                if (csvColumns == null && !ndjson) {
+                    ndjson = line.stripLeading().startsWith("{");
+                    if (!ndjson) {
+                        csvColumns = readHeader(line);
+                        continue;
+                    }
+                }
+
+                try {
+                    ImportRow row = ndjson ? jsonMapper.readValue(line, ImportRow.class) : csvRow(csvColumns, line);
+                    chunk.add(row.atLine(lineNumber));
+                } catch (RuntimeException e) {
+                    progress.processed++;
+                    progress.error(lineNumber, null, "Could not read this line");
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, emailsInFile, progress);
+                    chunk.clear();
+                    imports.put(importId, progress.snapshot(null));
+                }
+            }
+            writeChunk(chunk, emailsInFile, progress);
+        } catch (IOException | RuntimeException e) {
+            // A bad header, an unreadable file or a database failure: keep what was imported so far.
+            progress.error(0, null, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Only a temporary file.
+            }
+        }
+
+        if (progress.staffImported) dispatcher.rebuild();
+        UserImportProgressView finished = progress.snapshot(LocalDateTime.now());
+        imports.put(importId, finished);
+        System.out.println("📥 User import " + importId + ": " + finished.imported() + " created, "
+                + finished.duplicates() + " duplicates, " + finished.failed() + " errors in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return finished;
+    }
+
+    /**
+     * All imports since the server started, newest first.
+     */
+    public List<UserImportProgressView> getImports() {
+        return imports.values().stream()
+                .sorted(Comparator.comparing(UserImportProgressView::startedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Checks, de-duplicates, hashes and inserts one chunk of rows.
+     */
+    private void writeChunk(List<ImportRow> chunk, Set<String> emailsInFile, Progress progress) {
+        progress.processed += chunk.size();
+        List<ImportRow> valid = new ArrayList<>();
+        for (ImportRow raw : chunk) {
+            ImportRow row = raw.normalized();
+            String error = validate(row);
+            if (error != null) {
+                progress.error(row.line(), row.email(), error);
+            } else if (!emailsInFile.add(row.email())) {
+                progress.duplicates++;
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        // One query for the whole chunk instead of one findByEmail per row.
+        Set<String> existing = new HashSet<>(repository.findExistingEmails(valid.stream().map(ImportRow::email).toList()));
+        int before = valid.size();
+        valid.removeIf(row -> existing.contains(row.email()));
+        progress.duplicates += before - valid.size();
+        if (valid.isEmpty()) return;
+
+        // BCrypt is slow on purpose, so this is where the time goes: spread it over the hashing threads.
+        List<CompletableFuture<Object[]>> hashed = valid.stream()
+                .map(row -> CompletableFuture.supplyAsync(
+                        () -> new Object[]{row.name(), row.email(), hash(row.password()), row.role()}, hashers))
+                .toList();
+        List<Object[]> rows = hashed.stream().map(CompletableFuture::join).toList();
+
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_USER, rows));
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                progress.duplicates++;
+            } else {
+                progress.imported++;
+                if ("maintenance".equals(valid.get(i).role())) progress.staffImported = true;
+            }
+        }
+    }
+
+    private String hash(String password) {
+        if (BCRYPT_HASH.matcher(password).matches()) {
+            return password.startsWith("{bcrypt}") ? password : "{bcrypt}" + password;
+        }
+        return "{bcrypt}" + importEncoder.encode(password);
+    }
+
+    private static String validate(ImportRow row) {
+        if (row.name() == null || row.name().isEmpty()) return "Name is missing";
+        if (row.email() == null || !row.email().contains("@") || row.email().length() > 255) return "Invalid email";
+        if (row.password() == null || row.password().isEmpty()) return "Password is missing";
+        if (!ROLES.contains(row.role())) return "Unknown role '" + row.role() + "'";
+        return null;
+    }
+
+    private static Map<String, Integer> readHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) columns.put(names.get(i).trim().toLowerCase(), i);
+        if (!columns.keySet().containsAll(List.of("name", "email", "password"))) {
+            throw new IllegalArgumentException("The CSV header must contain the columns name, email and password");
+        }
+        return columns;
+    }
+
+    private static ImportRow csvRow(Map<String, Integer> columns, String line) {
+        List<String> values = splitCsv(line);
+        return new ImportRow(column(values, columns, "name"), column(values, columns, "email"),
+                column(values, columns, "password"), column(values, columns, "role"), null);
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    /**
+     * Splits one CSV line. Values may be quoted ("Smith, John"), and "" inside quotes is a quote.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    /**
+     * One line of the file. 'line' is its line number, for error messages (not part of the file itself).
+     */
+    record ImportRow(String name, String email, String password, String role, Long line) {
+
+        ImportRow atLine(long lineNumber) {
+            return new ImportRow(name, email, password, role, lineNumber);
+        }
+
+        ImportRow normalized() {
+            String cleanRole = role == null || role.isBlank() ? "user" : role.trim().toLowerCase();
+            return new ImportRow(name == null ? null : name.trim(), email == null ? null : email.trim(),
+                    password, cleanRole, line);
+        }
+    }
+
+    /**
+     * The running totals of one import.
+     */
+    private static final class Progress {
+        private final String importId;
+        private final String fileName;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final List<RowError> errors = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long duplicates;
+        private long failed;
+        private boolean staffImported;
+
+        private Progress(String importId, String fileName) {
+            this.importId = importId;
+            this.fileName = fileName;
+        }
+
+        void error(long line, String email, String message) {
+            failed++;
+            if (errors.size() < MAX_ERRORS_SHOWN) errors.add(new RowError(line, email, message));
+        }
+
+        UserImportProgressView snapshot(LocalDateTime finishedAt) {
+            return new UserImportProgressView(importId, fileName, processed, imported, duplicates, failed,
+                    List.copyOf(errors), startedAt, finishedAt);
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package start.spring.io.backend.service;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder; // Importante
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import start.spring.io.backend.dto.UserDeletionReport;
+import start.spring.io.backend.dto.UserPageView;
+import start.spring.io.backend.dto.UserSummaryView;
 import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.MaintenanceRequestRepository;
+import start.spring.io.backend.repository.PenaltyRepository;
+import start.spring.io.backend.repository.ReservationRepository;
 import start.spring.io.backend.repository.UserRepository;
 
 import java.util.List;
@@ -17,16 +25,80 @@ public class UserService {
 
     private final UserRepository repository;
     private final PasswordEncoder passwordEncoder; // We inject the encryption tool
+    private final MaintenanceDispatcher dispatcher;
+    private final ReservationRepository reservationRepository;
+    private final PenaltyRepository penaltyRepository;
+    private final MaintenanceRequestRepository maintenanceRepository;
+    private final ReservationTimers reservationTimers;
+    private final StrikeCounter strikeCounter;
 
-    public UserService(UserRepository repository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository repository,
+                       PasswordEncoder passwordEncoder,
+                       MaintenanceDispatcher dispatcher,
+                       ReservationRepository reservationRepository,
+                       PenaltyRepository penaltyRepository,
+                       MaintenanceRequestRepository maintenanceRepository,
+                       ReservationTimers reservationTimers,
+                       StrikeCounter strikeCounter) {
         this.repository = repository;
         this.passwordEncoder = passwordEncoder;
+        this.dispatcher = dispatcher;
+        this.reservationRepository = reservationRepository;
+        this.penaltyRepository = penaltyRepository;
+        this.maintenanceRepository = maintenanceRepository;
+        this.reservationTimers = reservationTimers;
+        this.strikeCounter = strikeCounter;
     }
 
-    public List<User> getAllUsers() { return repository.findAll(); }
     public Optional<User> getUserById(Integer id) { return repository.findById(id); }
     public Optional<User> getUserByEmail(String email) { return repository.findByEmail(email); }
 
+    /**
+     * Returns a placeholder for the user that only knows the id, without reading the row.
+     * Enough to link something (a report, a booking) to the logged-in user.
+     */
+    public User getUserReference(Integer id) { return repository.getReferenceById(id); }
+
+    /**
+     * One page of the admin user list, optionally only the users whose name or email starts with 'query'.
+     * We ask for one row more than the page size: if it comes back, there is a next page.
+     */
+    @Transactional(readOnly = true)
+    public UserPageView getUserPage(String query, Integer afterId, int pageSize) {
+        String pattern = prefixPattern(query);
+        int after = afterId != null ? afterId : 0;
+        List<UserSummaryView> rows = pattern == null
+                ? repository.findPage(after, Limit.of(pageSize + 1))
+                : repository.searchPage(pattern, after, Limit.of(pageSize + 1));
+
+        if (rows.size() <= pageSize) return new UserPageView(rows, pattern == null ? null : query.trim(), null);
+        List<UserSummaryView> page = rows.subList(0, pageSize);
+        return new UserPageView(page, pattern == null ? null : query.trim(), page.get(pageSize - 1).userId());
+    }
+
+    /**
+     * Suggestions for a search box: at most 'limit' users with this role whose name or email starts with 'query'.
+     */
+    @Transactional(readOnly = true)
+    public List<UserSummaryView> suggestUsers(String query, String role, int limit) {
+        String pattern = prefixPattern(query);
+        if (pattern == null) return List.of();
+        return repository.searchByRole(pattern, role, Limit.of(limit));
+    }
+
+    /**
+     * Turns what the admin typed into a LIKE pattern: "Ana" -> "ana%".
+     * '%' and '_' typed by the admin are escaped, so they are searched for literally.
+     */
+    private static String prefixPattern(String query) {
+        if (query == null || query.isBlank()) return null;
+        String escaped = query.trim().toLowerCase()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return escaped + "%";
+    }
+
     /**
      * Creates a new user (Signup).
      * We immediately encrypt the password using 'passwordEncoder.encode()'
@@ -36,7 +108,9 @@ public class UserService {
         request.setUserId(null);
         // Encrypt password before saving
         request.setPassword(passwordEncoder.encode(request.getPassword()));
-        return repository.save(request);
+        User saved = repository.save(request);
+        if (isStaff(saved)) dispatcher.onStaffChanged();
+        return saved;
     }
 
     /**
@@ -44,8 +118,10 @@ public class UserService {
      * If the user leaves the password field empty, we keep their old password.
      * If the user types a new password, we encrypt it and update it.
      */
+    @Transactional
     public Optional<User> updateUser(Integer id, User userDetails) {
         return repository.findById(id).map(existingUser -> {
+            boolean wasStaff = isStaff(existingUser);
             existingUser.setName(userDetails.getName());
             existingUser.setEmail(userDetails.getEmail());
 
@@ -59,7 +135,10 @@ public class UserService {
                 existingUser.setRole(userDetails.getRole());
             }
 
-            return repository.save(existingUser);
+            User saved = repository.save(existingUser);
+            // A new or removed maintenance member changes who can receive requests (once this commits)
+            if (wasStaff || isStaff(saved)) dispatcher.onStaffChanged();
+            return saved;
         });
     }
 
@@ -70,11 +149,41 @@ public class UserService {
         return repository.findByRole(role);
     }
 
-    public boolean deleteUser(Integer id) {
-        if (repository.existsById(id)) {
-            repository.deleteById(id);
-            return true;
-        }
-        return false;
+    /**
+     * Deletes a user together with their reservations, penalties and maintenance reports.
+     *
+     * <p>Letting Hibernate cascade the delete would load every child row and delete them one by one
+     * (thousands of statements for a long-time member). Instead we run a fixed number of
+     * set-based statements, one per table, however much history the user has. The timeout stops
+     * the transaction (and releases its locks) if the database is unexpectedly slow.</p>
+     *
+     * @return what was removed, or empty if there is no such user
+     */
+    @Transactional(timeout = 30)
+    public Optional<UserDeletionReport> deleteUser(Integer id) {
+        Optional<User> found = repository.findById(id);
+        if (found.isEmpty()) return Optional.empty();
+        User user = found.get();
+
+        List<Integer> reservationIds = reservationRepository.findIdsByUser(id);
+        int penalties = penaltyRepository.deleteByUser(id);
+        int reservations = reservationRepository.deleteByUser(id);
+        int reports = maintenanceRepository.deleteByReporter(id);
+        int unassigned = maintenanceRepository.unassignStaff(id);
+        repository.deleteAccount(id);
+
+        // Keep the in-memory helpers in step with the database; each of them waits for the commit,
+        // so a rollback or timeout leaves them as they were.
+        reservationIds.forEach(reservationTimers::onDeleted);
+        strikeCounter.onUserDeleted(id);
+        if (isStaff(user) || reports > 0 || unassigned > 0) dispatcher.onStaffChanged();
+
+        UserDeletionReport report = new UserDeletionReport(id, user.getEmail(), reservations, penalties, reports, unassigned);
+        System.out.println("🗑️ " + report.summary());
+        return Optional.of(report);
+    }
+
+    private boolean isStaff(User user) {
+        return "maintenance".equalsIgnoreCase(user.getRole());
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+-- The tables of FitEase. Flyway runs every migration once, in version order, and remembers it in
+-- "flyway_schema_history"; never edit a migration that has run somewhere, add a new one instead.
+-- This folder works on PostgreSQL and on the H2 test database; PostgreSQL-only steps are in ../postgresql.
+--
+-- A database that was created by "ddl-auto=update" already has these tables: Flyway marks it as
+-- version 1 ("baseline-on-migrate") without running this script and continues with version 2. So this
+-- script holds exactly the tables of that old schema, and everything added since is in a later version.
+
+-- Ids come from sequences that hand out 50 numbers at a time, so Hibernate can batch INSERTs
+-- (see the entities). The DEFAULT keeps plain SQL inserts working.
+CREATE SEQUENCE users_seq INCREMENT BY 50;
+CREATE SEQUENCE facility_seq INCREMENT BY 50;
+CREATE SEQUENCE reservation_seq INCREMENT BY 50;
+CREATE SEQUENCE maintenance_request_seq INCREMENT BY 50;
+CREATE SEQUENCE penalty_seq INCREMENT BY 50;
+
+CREATE TABLE users (
+  userid INT DEFAULT nextval('users_seq') PRIMARY KEY,
+  name VARCHAR(150) NOT NULL,
+  email VARCHAR(254) UNIQUE NOT NULL,
+  password VARCHAR(255) NOT NULL,
+  role VARCHAR(20) NOT NULL
+);
+
+CREATE TABLE facility (
+  facilityid INT DEFAULT nextval('facility_seq') PRIMARY KEY,
+  name VARCHAR(100) NOT NULL,
+  type VARCHAR(50) NOT NULL,
+  status VARCHAR(20) NOT NULL
+);
+
+CREATE TABLE reservation (
+  reservationid INT DEFAULT nextval('reservation_seq') PRIMARY KEY,
+  userid INT NOT NULL,
+  facilityid INT NOT NULL,
+  date TIMESTAMP NOT NULL,
+  starttime TIME NOT NULL,
+  endtime TIME NOT NULL,
+  participants INT,
+  purpose TEXT,
+
+  FOREIGN KEY (userid) REFERENCES users(userid) ON DELETE CASCADE,
+  FOREIGN KEY (facilityid) REFERENCES facility(facilityid) ON DELETE CASCADE
+);
+
+CREATE TABLE maintenance_request (
+  requestid INT DEFAULT nextval('maintenance_request_seq') PRIMARY KEY,
+  userid INT NOT NULL,
+  facilityid INT NOT NULL,
+  staffid INT NULL,
+  description TEXT NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  reportdate TIMESTAMP NOT NULL,
+  issuetype VARCHAR(100) NOT NULL,
+  severity VARCHAR(100) NOT NULL,
+
+  FOREIGN KEY (userid) REFERENCES users(userid) ON DELETE CASCADE,
+  FOREIGN KEY (facilityid) REFERENCES facility(facilityid) ON DELETE CASCADE,
+  FOREIGN KEY (staffid) REFERENCES users(userid) ON DELETE SET NULL
+);
+
+CREATE TABLE penalty (
+  penaltyid INT DEFAULT nextval('penalty_seq') PRIMARY KEY,
+  userid INT NOT NULL,
+  description TEXT NOT NULL,
+  datehour TIMESTAMP NOT NULL,
+
+  FOREIGN KEY (userid) REFERENCES users(userid) ON DELETE CASCADE
+);
@@ -0,0 +1,60 @@
+-- Everything added after the old "ddl-auto=update" schema of V1: the mail outbox, the lock of the
+-- scheduled jobs, the stored HTTP sessions, check-in and reminders on bookings, and automatic
+-- no-show penalties.
+--
+-- On a database made by V1 every statement creates something new. A baselined database skipped V1
+-- and may already have some of these (ddl-auto=update created tables and columns for new entities),
+-- so every statement uses "IF NOT EXISTS" and leaves what is there alone.
+
+CREATE SEQUENCE IF NOT EXISTS notification_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+  outboxid BIGINT DEFAULT nextval('notification_outbox_seq') PRIMARY KEY,
+  recipient VARCHAR(254) NOT NULL,
+  subject VARCHAR(255) NOT NULL,
+  body TEXT NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  attempts INT DEFAULT 0 NOT NULL,
+  createdat TIMESTAMP NOT NULL,
+  nextattemptat TIMESTAMP NOT NULL,
+  sentat TIMESTAMP NULL,
+  lasterror TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_status_next ON notification_outbox (status, nextattemptat);
+
+CREATE TABLE IF NOT EXISTS scheduler_lock (
+  name VARCHAR(64) PRIMARY KEY,
+  lockuntil TIMESTAMP NOT NULL,
+  lockedat TIMESTAMP NOT NULL,
+  lockedby VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS http_session (
+  sessionid VARCHAR(64) PRIMARY KEY,
+  creationtime BIGINT NOT NULL,
+  lastaccesstime BIGINT NOT NULL,
+  maxinactiveseconds INT NOT NULL,
+  expirytime BIGINT NOT NULL,
+  attributes BYTEA NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_http_session_expiry ON http_session (expirytime);
+
+-- Check-in and the reminder e-mail of a booking.
+ALTER TABLE reservation ADD COLUMN IF NOT EXISTS checkedinat TIMESTAMP;
+ALTER TABLE reservation ADD COLUMN IF NOT EXISTS remindedat TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_reservation_date_checkin ON reservation (date, checkedinat);
+
+-- Which booking a penalty is for and why. Existing penalties were all given by hand.
+ALTER TABLE penalty ADD COLUMN IF NOT EXISTS reservationid INT
+  REFERENCES reservation(reservationid) ON DELETE SET NULL;
+ALTER TABLE penalty ADD COLUMN IF NOT EXISTS reason VARCHAR(30) DEFAULT 'MANUAL' NOT NULL;
+
+-- At most one no-show penalty per booking, even when two servers check at once (PenaltyRepository
+-- inserts with ON CONFLICT DO NOTHING). A unique index, because "ADD CONSTRAINT" has no IF NOT EXISTS;
+-- a constraint of the same name made by ddl-auto=update already comes with this index.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_penalty_reservation_reason ON penalty (reservationid, reason);
+
+CREATE INDEX IF NOT EXISTS idx_penalty_datehour ON penalty (datehour);
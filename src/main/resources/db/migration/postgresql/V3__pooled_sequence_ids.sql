@@ -0,0 +1,53 @@
+-- Moves a database created by "ddl-auto=update" from SERIAL/IDENTITY ids to the pooled sequences used
+-- by the entities. On a database created by V1 there is nothing to move and every statement does nothing.
+-- It runs after V2, which creates notification_outbox on a database that does not have it yet.
+-- (This used to run at every start; every statement is still safe to repeat.)
+--
+-- For each table:
+--   1. the sequence exists and hands out 50 ids per call (Hibernate's allocationSize);
+--   2. it is moved past the highest existing id. Hibernate uses the ids up to the value it gets, so
+--      "last_value >= MAX(id)" is already safe and is left alone (another server may be using that block);
+--   3. plain SQL inserts without an id take it from the same sequence;
+--   4. the old SERIAL sequence / IDENTITY is removed.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+ALTER SEQUENCE users_seq INCREMENT BY 50;
+SELECT setval('users_seq', t.maxid) FROM (SELECT MAX(userid) AS maxid FROM users) t WHERE t.maxid > (SELECT last_value FROM users_seq);
+ALTER TABLE users ALTER COLUMN userid DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN userid SET DEFAULT nextval('users_seq');
+DROP SEQUENCE IF EXISTS users_userid_seq;
+
+CREATE SEQUENCE IF NOT EXISTS facility_seq INCREMENT BY 50;
+ALTER SEQUENCE facility_seq INCREMENT BY 50;
+SELECT setval('facility_seq', t.maxid) FROM (SELECT MAX(facilityid) AS maxid FROM facility) t WHERE t.maxid > (SELECT last_value FROM facility_seq);
+ALTER TABLE facility ALTER COLUMN facilityid DROP IDENTITY IF EXISTS;
+ALTER TABLE facility ALTER COLUMN facilityid SET DEFAULT nextval('facility_seq');
+DROP SEQUENCE IF EXISTS facility_facilityid_seq;
+
+CREATE SEQUENCE IF NOT EXISTS reservation_seq INCREMENT BY 50;
+ALTER SEQUENCE reservation_seq INCREMENT BY 50;
+SELECT setval('reservation_seq', t.maxid) FROM (SELECT MAX(reservationid) AS maxid FROM reservation) t WHERE t.maxid > (SELECT last_value FROM reservation_seq);
+ALTER TABLE reservation ALTER COLUMN reservationid DROP IDENTITY IF EXISTS;
+ALTER TABLE reservation ALTER COLUMN reservationid SET DEFAULT nextval('reservation_seq');
+DROP SEQUENCE IF EXISTS reservation_reservationid_seq;
+
+CREATE SEQUENCE IF NOT EXISTS maintenance_request_seq INCREMENT BY 50;
+ALTER SEQUENCE maintenance_request_seq INCREMENT BY 50;
+SELECT setval('maintenance_request_seq', t.maxid) FROM (SELECT MAX(requestid) AS maxid FROM maintenance_request) t WHERE t.maxid > (SELECT last_value FROM maintenance_request_seq);
+ALTER TABLE maintenance_request ALTER COLUMN requestid DROP IDENTITY IF EXISTS;
+ALTER TABLE maintenance_request ALTER COLUMN requestid SET DEFAULT nextval('maintenance_request_seq');
+DROP SEQUENCE IF EXISTS maintenance_request_requestid_seq;
+
+CREATE SEQUENCE IF NOT EXISTS penalty_seq INCREMENT BY 50;
+ALTER SEQUENCE penalty_seq INCREMENT BY 50;
+SELECT setval('penalty_seq', t.maxid) FROM (SELECT MAX(penaltyid) AS maxid FROM penalty) t WHERE t.maxid > (SELECT last_value FROM penalty_seq);
+ALTER TABLE penalty ALTER COLUMN penaltyid DROP IDENTITY IF EXISTS;
+ALTER TABLE penalty ALTER COLUMN penaltyid SET DEFAULT nextval('penalty_seq');
+DROP SEQUENCE IF EXISTS penalty_penaltyid_seq;
+
+CREATE SEQUENCE IF NOT EXISTS notification_outbox_seq INCREMENT BY 50;
+ALTER SEQUENCE notification_outbox_seq INCREMENT BY 50;
+SELECT setval('notification_outbox_seq', t.maxid) FROM (SELECT MAX(outboxid) AS maxid FROM notification_outbox) t WHERE t.maxid > (SELECT last_value FROM notification_outbox_seq);
+ALTER TABLE notification_outbox ALTER COLUMN outboxid DROP IDENTITY IF EXISTS;
+ALTER TABLE notification_outbox ALTER COLUMN outboxid SET DEFAULT nextval('notification_outbox_seq');
+DROP SEQUENCE IF EXISTS notification_outbox_outboxid_seq;
@@ -0,0 +1,10 @@
+-- Indexes that make the user search fast ("lower(email) LIKE 'ana%'", see UserRepository.search).
+-- A normal index on email cannot answer that (because of lower() and LIKE), so lower(email) and
+-- lower(name) are indexed with "text_pattern_ops", which PostgreSQL uses for prefix LIKE.
+-- H2 has no such indexes, which is why this is PostgreSQL only.
+--
+-- "CONCURRENTLY" does not block signups while an index is built on a big table. It cannot run inside
+-- a transaction; Flyway sees that and runs this script without one. "IF NOT EXISTS": the indexes were
+-- created at startup before migrations existed.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_prefix ON users (lower(email) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_name_prefix ON users (lower(name) text_pattern_ops);
@@ -0,0 +1,193 @@
+package start.spring.io.backend.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+/**
+ * Load run comparing the two ways to read "my bookings":
+ * the HTML page (session cookie, session row, Thymeleaf) and the JSON API (signed token, DTO query).
+ *
+ * <p>It starts the whole app on a random port, logs one user in both ways and sends the same number
+ * of requests from several threads to each endpoint. It prints requests/second and latency percentiles.
+ * Run it with: {@code ./mvnw test -Pbenchmark}</p>
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"h2", "local-smtp"})
+class ApiThroughputBenchmark {
+
+    private static final String PASSWORD = "bench-password";
+    private static final int BOOKINGS = 20;
+    private static final int THREADS = 16;
+    private static final int WARMUP_REQUESTS = 1_000;
+    private static final int REQUESTS = 5_000;
+
+    @LocalServerPort private int port;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+
+    @Test
+    void htmlPageVersusJsonApi() throws Exception {
+        User user = userRepository.save(new User("Api Bench", "api-bench@test.com", passwordEncoder.encode(PASSWORD), "user"));
+        Facility facility = facilityRepository.save(new Facility("Api Bench Court", "Tennis", "Available"));
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Reservation r = new Reservation();
+            r.setUser(user);
+            r.setFacility(facility);
+            r.setDate(LocalDate.now().plusDays(1 + i).atTime(10, 0));
+            r.setStartTime(LocalTime.of(10, 0));
+            r.setEndTime(LocalTime.of(11, 0));
+            r.setParticipants(2);
+            reservations.add(r);
+        }
+        reservationRepository.saveAll(reservations);
+
+        HttpClient browser = HttpClient.newBuilder().cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER).build();
+        loginWithForm(browser);
+        HttpClient app = HttpClient.newHttpClient();
+        String token = requestToken(app);
+
+        HttpRequest page = HttpRequest.newBuilder(url("/reservations")).GET().build();
+        HttpRequest api = HttpRequest.newBuilder(url("/api/v1/bookings"))
+                .header("Authorization", "Bearer " + token).GET().build();
+
+        HttpResponse<String> pageResponse = browser.send(page, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> apiResponse = app.send(api, HttpResponse.BodyHandlers.ofString());
+        assertThat(pageResponse.statusCode()).isEqualTo(200);
+        assertThat(pageResponse.body()).contains("Api Bench Court");
+        assertThat(apiResponse.statusCode()).isEqualTo(200);
+        assertThat(apiResponse.body()).contains("Api Bench Court");
+        System.out.println("📦 Response size: HTML " + pageResponse.body().length() + " chars, JSON "
+                + apiResponse.body().length() + " chars (" + BOOKINGS + " bookings)");
+
+        // A booking through the API follows the same rules as the website.
+        String booking = "{\"facilityId\":" + facility.getFacilityId() + ",\"date\":\"" + LocalDate.now().plusDays(2)
+                + "\",\"startTime\":\"10:30\",\"endTime\":\"11:30\",\"participants\":2}";
+        HttpResponse<String> rejected = app.send(HttpRequest.newBuilder(url("/api/v1/bookings"))
+                .header("Authorization", "Bearer " + token).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(booking)).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(rejected.statusCode()).isEqualTo(409);
+        assertThat(app.send(HttpRequest.newBuilder(url("/api/v1/bookings")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(401);
+
+        run(browser, page, WARMUP_REQUESTS);
+        run(app, api, WARMUP_REQUESTS);
+        report("HTML /reservations   ", run(browser, page, REQUESTS));
+        report("JSON /api/v1/bookings", run(app, api, REQUESTS));
+    }
+
+    /**
+     * Logs in through the login page like a browser: read the CSRF token, then post the form.
+     */
+    private void loginWithForm(HttpClient browser) throws Exception {
+        String loginPage = browser.send(HttpRequest.newBuilder(url("/login")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher csrf = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"").matcher(loginPage);
+        assertThat(csrf.find()).isTrue();
+
+        String form = "username=" + URLEncoder.encode("api-bench@test.com", StandardCharsets.UTF_8)
+                + "&password=" + PASSWORD + "&_csrf=" + csrf.group(1);
+        HttpResponse<String> login = browser.send(HttpRequest.newBuilder(url("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(login.statusCode()).isEqualTo(302);
+        assertThat(login.headers().firstValue("Location").orElse("")).doesNotContain("error");
+    }
+
+    private String requestToken(HttpClient app) throws Exception {
+        HttpResponse<String> response = app.send(HttpRequest.newBuilder(url("/api/v1/auth/token"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"api-bench@test.com\",\"password\":\"" + PASSWORD + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        Matcher token = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+        assertThat(token.find()).isTrue();
+        return token.group(1);
+    }
+
+    /**
+     * Sends 'count' requests from THREADS threads and returns [elapsed nanos, latencies...].
+     */
+    private static long[] run(HttpClient client, HttpRequest request, int count) throws Exception {
+        long[] latencies = new long[count];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int first = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = first; i < count; i += THREADS) {
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - sent;
+                        if (response.statusCode() != 200) throw new IllegalStateException("HTTP " + response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+            long elapsed = System.nanoTime() - start;
+
+            long[] result = new long[count + 1];
+            result[0] = elapsed;
+            System.arraycopy(latencies, 0, result, 1, count);
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void report(String name, long[] result) {
+        long[] latencies = Arrays.copyOfRange(result, 1, result.length);
+        Arrays.sort(latencies);
+        double seconds = result[0] / 1e9;
+        System.out.printf("📊 %s: %,.0f req/s, p50 %.2f ms, p99 %.2f ms (%d requests, %d threads)%n",
+                name, latencies.length / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies.length, THREADS);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private URI url(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
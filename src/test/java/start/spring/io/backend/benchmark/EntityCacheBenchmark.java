@@ -0,0 +1,171 @@
+package start.spring.io.backend.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Penalty;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.PenaltyRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+/**
+ * How many SQL statements the main pages send, with the second-level cache for Facility and User
+ * emptied before every request ("no cache") and with the cache warm.
+ *
+ * <p>It starts the whole app on a random port, fills the database with users, facilities, bookings
+ * and penalties, logs in an admin and a regular user and loads each page several times.
+ * Hibernate's statistics count the statements; the smallest count of the runs is shown, so that the
+ * background jobs (which also use the database) do not blur the numbers.
+ * Run it with: {@code ./mvnw test -Pbenchmark -Dtest=EntityCacheBenchmark}</p>
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"fitease.outbox.poll-interval=1h", "fitease.reservations.no-show-check-interval=1h"})
+@ActiveProfiles({"h2", "local-smtp"})
+class EntityCacheBenchmark {
+
+    private static final String PASSWORD = "bench-password";
+    private static final int USERS = 40;
+    private static final int FACILITIES = 8;
+    private static final int BOOKINGS_PER_USER = 5;
+    private static final int RUNS = 10;
+
+    @LocalServerPort private int port;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private PenaltyRepository penaltyRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statementsPerPageWithAndWithoutTheCache() throws Exception {
+        List<Facility> facilities = new ArrayList<>();
+        for (int f = 0; f < FACILITIES; f++) {
+            facilities.add(new Facility("Cache Court " + f, "Tennis", "Available"));
+        }
+        facilityRepository.saveAll(facilities);
+
+        String encoded = passwordEncoder.encode(PASSWORD);
+        userRepository.save(new User("Cache Admin", "cache-admin@test.com", encoded, "admin"));
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            users.add(new User("Cache User " + u, "cache-user" + u + "@test.com", encoded, "user"));
+        }
+        userRepository.saveAll(users);
+
+        List<Reservation> reservations = new ArrayList<>();
+        List<Penalty> penalties = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            for (int b = 0; b < BOOKINGS_PER_USER; b++) {
+                Reservation r = new Reservation();
+                r.setUser(users.get(u));
+                r.setFacility(facilities.get((u + b) % FACILITIES));
+                r.setDate(LocalDate.now().plusDays(1 + b).atTime(8 + u % 12, 0));
+                r.setStartTime(LocalTime.of(8 + u % 12, 0));
+                r.setEndTime(LocalTime.of(9 + u % 12, 0));
+                r.setParticipants(2);
+                reservations.add(r);
+            }
+            penalties.add(new Penalty(users.get(u), "Benchmark strike", LocalDateTime.now().minusDays(1)));
+        }
+        reservationRepository.saveAll(reservations);
+        penaltyRepository.saveAll(penalties);
+
+        HttpClient admin = logIn("cache-admin@test.com");
+        HttpClient user = logIn("cache-user0@test.com");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        System.out.println("📊 SQL statements per page (" + USERS + " users, " + FACILITIES + " facilities, "
+                + USERS * BOOKINGS_PER_USER + " bookings)");
+        System.out.println("   page                      no cache   warm cache");
+        long totalCold = 0;
+        long totalWarm = 0;
+        for (String[] page : new String[][]{
+                {"admin", "/reservations/manager"}, {"admin", "/calendar/events"},
+                {"admin", "/facilities"}, {"user", "/reservations"}, {"user", "/profile"}}) {
+            HttpClient client = page[0].equals("admin") ? admin : user;
+            long cold = statementsPerRequest(client, page[1], statistics, true);
+            long warm = statementsPerRequest(client, page[1], statistics, false);
+            totalCold += cold;
+            totalWarm += warm;
+            System.out.printf("   %-25s %8d   %10d%n", page[1], cold, warm);
+        }
+        System.out.printf("📊 All pages: %d -> %d statements (%.0f%% fewer), second-level cache hit ratio %.0f%%%n",
+                totalCold, totalWarm, 100.0 * (totalCold - totalWarm) / totalCold,
+                100.0 * statistics.getSecondLevelCacheHitCount()
+                        / Math.max(1, statistics.getSecondLevelCacheHitCount() + statistics.getSecondLevelCacheMissCount()));
+        assertThat(totalWarm).isLessThan(totalCold);
+    }
+
+    /**
+     * Loads the page RUNS times and returns the smallest number of statements one request needed.
+     */
+    private long statementsPerRequest(HttpClient client, String path, Statistics statistics, boolean emptyCache) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(url(path)).GET().build();
+        client.send(request, HttpResponse.BodyHandlers.discarding()); // Warms the cache (and the JIT)
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            if (emptyCache) entityManagerFactory.getCache().evictAll();
+            long before = statistics.getPrepareStatementCount();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            fewest = Math.min(fewest, statistics.getPrepareStatementCount() - before);
+            assertThat(response.statusCode()).as(path).isEqualTo(200);
+        }
+        return fewest;
+    }
+
+    /**
+     * Logs in through the login page like a browser: read the CSRF token, then post the form.
+     */
+    private HttpClient logIn(String email) throws Exception {
+        HttpClient browser = HttpClient.newBuilder().cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER).build();
+        String loginPage = browser.send(HttpRequest.newBuilder(url("/login")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher csrf = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"").matcher(loginPage);
+        assertThat(csrf.find()).isTrue();
+
+        String form = "username=" + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                + "&password=" + PASSWORD + "&_csrf=" + csrf.group(1);
+        HttpResponse<String> login = browser.send(HttpRequest.newBuilder(url("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(login.statusCode()).isEqualTo(302);
+        assertThat(login.headers().firstValue("Location").orElse("")).doesNotContain("error");
+        return browser;
+    }
+
+    private URI url(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,178 @@
+package start.spring.io.backend.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import javax.sql.DataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.model.NotificationOutbox;
+import start.spring.io.backend.repository.NotificationOutboxRepository;
+
+/**
+ * Insert throughput before and after moving the ids from IDENTITY columns to pooled sequences.
+ *
+ * <ol>
+ * <li>Plain JDBC, the statements Hibernate sends in each case. Before: one INSERT per row that returns
+ *     the generated id. After: one nextval per 50 rows, then the 50 INSERTs as one batch.</li>
+ * <li>Hibernate itself: saving outbox messages (what a cancellation of many bookings does) with
+ *     batching switched off for the session, and with the configured batch size.</li>
+ * </ol>
+ *
+ * <p>It uses the in-memory H2 database, where a "round trip" costs almost nothing, so the gain is
+ * much smaller than on a real server. To measure on a local PostgreSQL (use an empty scratch database,
+ * the test profile creates and drops the tables):</p>
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dtest=InsertBatchBenchmark \
+ *     -Dspring.datasource.driver-class-name=org.postgresql.Driver \
+ *     -Dspring.datasource.url='jdbc:postgresql://localhost:5432/fitease_bench?reWriteBatchedInserts=true' \
+ *     -Dspring.datasource.username=postgres -Dspring.datasource.password=postgres
+ * </pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class InsertBatchBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int WARMUP_ROWS = 2_000;
+    private static final int ROWS_PER_TRANSACTION = 1_000;
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired private DataSource dataSource;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private NotificationOutboxRepository outboxRepository;
+    @PersistenceContext private EntityManager entityManager;
+
+    @Test
+    void identityVersusPooledSequence() throws SQLException {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_identity");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_sequence");
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS bench_sequence_seq");
+        jdbcTemplate.execute("CREATE TABLE bench_identity (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, payload VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE bench_sequence (id BIGINT PRIMARY KEY, payload VARCHAR(100))");
+        jdbcTemplate.execute("CREATE SEQUENCE bench_sequence_seq INCREMENT BY " + ALLOCATION_SIZE);
+
+        insertWithIdentity(WARMUP_ROWS);
+        insertWithSequence(WARMUP_ROWS);
+        report("JDBC IDENTITY, one INSERT per row", time(() -> insertWithIdentity(ROWS)));
+        report("JDBC sequence, batches of " + ALLOCATION_SIZE + "    ", time(() -> insertWithSequence(ROWS)));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bench_sequence", Integer.class))
+                .isEqualTo(WARMUP_ROWS + ROWS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM bench_sequence", Integer.class))
+                .isEqualTo(WARMUP_ROWS + ROWS);
+
+        saveOutboxMessages(WARMUP_ROWS, 1);
+        saveOutboxMessages(WARMUP_ROWS, 0);
+        report("JPA  outbox, batching off         ", time(() -> saveOutboxMessages(ROWS, 1)));
+        report("JPA  outbox, hibernate batch_size ", time(() -> saveOutboxMessages(ROWS, 0)));
+        assertThat(outboxRepository.count()).isEqualTo(2L * (WARMUP_ROWS + ROWS));
+
+        outboxRepository.deleteAllInBatch();
+        jdbcTemplate.execute("DROP TABLE bench_identity");
+        jdbcTemplate.execute("DROP TABLE bench_sequence");
+        jdbcTemplate.execute("DROP SEQUENCE bench_sequence_seq");
+    }
+
+    /**
+     * Before: what Hibernate does with GenerationType.IDENTITY, one round trip per row.
+     */
+    private void insertWithIdentity(int rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO bench_identity (payload) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "row " + i);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+                if ((i + 1) % ROWS_PER_TRANSACTION == 0) connection.commit();
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * After: what Hibernate does with a pooled sequence and hibernate.jdbc.batch_size, one nextval
+     * and one batch per 50 rows.
+     */
+    private void insertWithSequence(int rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement nextIds = connection.prepareStatement("SELECT nextval('bench_sequence_seq')");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO bench_sequence (id, payload) VALUES (?, ?)")) {
+            connection.setAutoCommit(false);
+            long nextId = 0;
+            long lastId = -1;
+            for (int i = 0; i < rows; i++) {
+                if (nextId > lastId) {
+                    try (ResultSet hi = nextIds.executeQuery()) {
+                        hi.next();
+                        lastId = hi.getLong(1);
+                        nextId = lastId - ALLOCATION_SIZE + 1;
+                    }
+                }
+                insert.setLong(1, nextId++);
+                insert.setString(2, "row " + i);
+                insert.addBatch();
+                if ((i + 1) % ALLOCATION_SIZE == 0) insert.executeBatch();
+                if ((i + 1) % ROWS_PER_TRANSACTION == 0) connection.commit();
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    /**
+     * Saves outbox messages through Hibernate. batchSize 1 turns batching off for the session,
+     * 0 keeps the configured spring.jpa.properties.hibernate.jdbc.batch_size.
+     */
+    private void saveOutboxMessages(int rows, int batchSize) {
+        for (int done = 0; done < rows; done += ROWS_PER_TRANSACTION) {
+            int first = done;
+            transactionTemplate.executeWithoutResult(status -> {
+                if (batchSize > 0) entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                LocalDateTime now = LocalDateTime.now();
+                for (int i = first; i < Math.min(rows, first + ROWS_PER_TRANSACTION); i++) {
+                    NotificationOutbox message = new NotificationOutbox("bench" + i + "@test.com", "Benchmark", "Message " + i, now);
+                    message.setNextAttemptAt(now.plusYears(1)); // Not picked up by the dispatcher
+                    entityManager.persist(message);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private interface Work {
+        void run() throws SQLException;
+    }
+
+    private static long time(Work work) throws SQLException {
+        long start = System.nanoTime();
+        work.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.printf("📊 %s: %,8.0f rows/s (%,d rows in %.2f s)%n", name, ROWS / (nanos / 1e9), ROWS, nanos / 1e9);
+    }
+}
@@ -0,0 +1,126 @@
+package start.spring.io.backend.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.config.LocalSmtpServer;
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.NotificationOutboxRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+import start.spring.io.backend.service.ReservationService;
+
+/**
+ * Load run for the notification pipeline: a "cancellation storm" on one facility.
+ *
+ * <p>It books many future reservations, cancels them all through
+ * ReservationService.cancelReservationsForFacility and measures how fast the emails
+ * reach the local SMTP stand-in. Run it with: {@code ./mvnw test -Pbenchmark}</p>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class NotificationThroughputBenchmark {
+
+    private static final int USERS = 200;
+    private static final int BOOKINGS_PER_USER = 5;
+
+    @Autowired private ReservationService reservationService;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private NotificationOutboxRepository outboxRepository;
+    @Autowired private LocalSmtpServer smtpServer;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void cancellationStorm() throws InterruptedException {
+        Facility facility = facilityRepository.save(new Facility("Benchmark Court", "Padel", "Available"));
+        List<Reservation> reservations = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = userRepository.save(new User("Bench User " + u, "bench" + u + "@test.com", "x", "user"));
+            for (int b = 0; b < BOOKINGS_PER_USER; b++) {
+                Reservation r = new Reservation();
+                r.setUser(user);
+                r.setFacility(facility);
+                r.setDate(LocalDateTime.now().plusDays(1 + b).withHour(10).withMinute(0));
+                r.setStartTime(LocalTime.of(10, 0));
+                r.setEndTime(LocalTime.of(11, 0));
+                r.setParticipants(2);
+                reservations.add(r);
+            }
+        }
+        reservationRepository.saveAll(reservations);
+
+        outboxRepository.deleteAll();
+        smtpServer.reset();
+        long heapBefore = usedHeap();
+        long peakHeap = heapBefore;
+        double peakQueueDepth = 0;
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        reservationService.cancelReservationsForFacility(facility.getFacilityId(), "Benchmark");
+        long cancelNanos = System.nanoTime() - start;
+        long enqueued = outboxRepository.count();
+
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (outboxRepository.countByStatus("SENT") + outboxRepository.countByStatus("DEAD") < enqueued
+                && System.nanoTime() < deadline) {
+            peakQueueDepth = Math.max(peakQueueDepth, meterRegistry.get("fitease.mail.queue.depth").gauge().value());
+            peakHeap = Math.max(peakHeap, usedHeap());
+            Thread.sleep(20);
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        List<Long> latenciesMs = smtpServer.getLastMessages().stream()
+                .map(m -> Duration.between(startedAt, m.receivedAt()).toMillis())
+                .sorted()
+                .toList();
+
+        double seconds = totalNanos / 1e9;
+        System.out.println("=== Notification throughput (cancellation storm) ===");
+        System.out.printf("Reservations cancelled : %d%n", reservations.size());
+        System.out.printf("Outbox rows enqueued   : %d (cancel call took %d ms)%n", enqueued, cancelNanos / 1_000_000);
+        System.out.printf("SMTP messages received : %d (after per-user digests)%n", smtpServer.getReceivedCount());
+        System.out.printf("Drained in             : %.2f s%n", seconds);
+        System.out.printf("Throughput             : %.1f notifications/s, %.1f SMTP messages/s%n",
+                enqueued / seconds, smtpServer.getReceivedCount() / seconds);
+        // Includes the coalescing window (fitease.notifications.coalesce-window in application-h2.properties)
+        System.out.printf("End-to-end latency     : p50=%d ms, p95=%d ms, max=%d ms%n",
+                percentile(latenciesMs, 50), percentile(latenciesMs, 95), percentile(latenciesMs, 100));
+        System.out.printf("Peak SMTP queue depth  : %.0f batches%n", peakQueueDepth);
+        System.out.printf("Heap growth            : %d KB (peak +%d KB)%n",
+                (usedHeap() - heapBefore) / 1024, (peakHeap - heapBefore) / 1024);
+
+        assertThat(outboxRepository.countByStatus("SENT")).isEqualTo(enqueued);
+        assertThat(smtpServer.getReceivedCount()).isPositive();
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        if (sorted.isEmpty()) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,73 @@
+package start.spring.io.backend.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import start.spring.io.backend.config.ApplicationConfig;
+import start.spring.io.backend.security.BCryptCostCalibrator;
+
+/**
+ * JMH micro-benchmark of the password check done at every login.
+ *
+ * <p>It runs on ONE thread, so the "ops/s" in the report are <b>logins per core per second</b>
+ * for each BCrypt cost. Multiply by the number of cores to estimate how many logins per second a
+ * server can take in the morning rush. It also prints the cost the calibration picks on this machine.
+ * Run it with: {@code ./mvnw test -Pbenchmark -Dtest=PasswordHashBenchmark}</p>
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class PasswordHashBenchmark {
+
+    @Param({"10", "11", "12", "13"})
+    public int cost;
+
+    private PasswordEncoder encoder;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        encoder = new ApplicationConfig().passwordEncoder(cost, Duration.ZERO);
+        storedHash = encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean login() {
+        return encoder.matches("correct horse battery staple", storedHash);
+    }
+
+    @Test
+    void reportLoginsPerCorePerSecond() throws RunnerException {
+        int calibrated = BCryptCostCalibrator.calibrate(Duration.ofMillis(250));
+        System.out.println("Calibrated BCrypt cost for a 250 ms target on this machine: " + calibrated
+                + " (" + Runtime.getRuntime().availableProcessors() + " cores)");
+
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashBenchmark.class.getName() + ".login")
+                .build()).run();
+    }
+}
@@ -0,0 +1,186 @@
+package start.spring.io.backend.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import start.spring.io.backend.BackendApplication;
+
+/**
+ * Time to first request: from starting the app until the login page has been served once.
+ *
+ * <p>Two ways of starting are compared, each restarted against its own (already filled) database:</p>
+ * <ul>
+ * <li>"ddl-auto + seeding": how the app used to start. Hibernate reads the table metadata and updates the
+ *     schema, asks the database for its version, starts on the main thread, and DataInitializer checks
+ *     its demo data with a dozen queries.</li>
+ * <li>"migrations": the current settings. Flyway only checks its history table, Hibernate does not touch
+ *     the schema or the metadata and starts on a background thread, and there is no seeding.</li>
+ * </ul>
+ *
+ * <p>Both use an in-memory H2 database, where a round trip costs microseconds. The real database is
+ * across the network, so every statement, commit and metadata lookup also waits ROUND_TRIP_MILLIS here
+ * (see SimulatedNetwork); it is measured once without that wait too. All runs share one JVM; the first
+ * run of each way is a warm-up and the median of the others is shown.
+ * Run it with: {@code ./mvnw test -Pbenchmark -Dtest=StartupBenchmark}</p>
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final int RUNS = 5;
+    private static final long ROUND_TRIP_MILLIS = 5;
+
+    private static final String H2_OPTIONS =
+            ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=DATE,USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        System.out.println("📊 Time to first request (median of " + RUNS + " restarts, in-memory H2)");
+        System.out.println("   round trip   ddl-auto + seeding   migrations");
+        for (long roundTrip : new long[]{0, ROUND_TRIP_MILLIS}) {
+            Map<String, Object> oldWay = common(roundTrip);
+            oldWay.put("spring.datasource.url", "jdbc:h2:mem:startup-ddl-auto-" + roundTrip + H2_OPTIONS);
+            oldWay.put("spring.flyway.enabled", false);
+            oldWay.put("spring.jpa.hibernate.ddl-auto", "update");
+            oldWay.put("spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access", true);
+            oldWay.put("spring.data.jpa.repositories.bootstrap-mode", "default");
+            oldWay.put("fitease.seed.demo-data", true);
+
+            Map<String, Object> migrations = common(roundTrip);
+            migrations.put("spring.datasource.url", "jdbc:h2:mem:startup-migrations-" + roundTrip + H2_OPTIONS);
+            migrations.put("spring.jpa.hibernate.ddl-auto", "none");
+            migrations.put("spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access", false);
+
+            // Warm-up: creates and fills both databases, and loads the classes
+            startAndServe(oldWay);
+            startAndServe(migrations);
+
+            long[] oldTimes = new long[RUNS];
+            long[] newTimes = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                oldTimes[i] = startAndServe(oldWay);
+                newTimes[i] = startAndServe(migrations);
+            }
+            long oldMedian = median(oldTimes);
+            long newMedian = median(newTimes);
+            System.out.printf("   %7d ms   %15d ms   %7d ms   (%+.0f%%)%n", roundTrip, oldMedian, newMedian,
+                    100.0 * (newMedian - oldMedian) / oldMedian);
+        }
+    }
+
+    /**
+     * Starts the app, loads the login page once, stops the app, and returns the milliseconds
+     * from the start until the page had arrived.
+     */
+    private long startAndServe(Map<String, Object> properties) throws Exception {
+        // Passed like command line arguments, so they win over application-h2.properties
+        String[] args = properties.entrySet().stream().map(p -> "--" + p.getKey() + "=" + p.getValue()).toArray(String[]::new);
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class, SimulatedNetwork.class)
+                .profiles("h2", "local-smtp")
+                .run(args);
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login")).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertThat(response.statusCode()).isEqualTo(200);
+            return millis;
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Map<String, Object> common(long roundTripMillis) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("benchmark.round-trip-millis", roundTripMillis);
+        properties.put("server.port", 0);
+        properties.put("spring.mail.port", 0);
+        properties.put("fitease.security.bcrypt-cost", 0); // Measure the BCrypt cost like in production
+        properties.put("fitease.outbox.poll-interval", "1h");
+        properties.put("fitease.reservations.no-show-check-interval", "1h");
+        return properties;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Makes the in-memory database behave a bit like one across the network: every statement, batch,
+     * commit, rollback and metadata query (Hibernate's schema checks) waits "benchmark.round-trip-millis".
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class SimulatedNetwork {
+
+        @Bean
+        static BeanPostProcessor simulatedNetworkPostProcessor(Environment environment) {
+            long millis = environment.getProperty("benchmark.round-trip-millis", Long.class, 0L);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (millis == 0 || !(bean instanceof DataSource dataSource) || !"dataSource".equals(beanName)) return bean;
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return slow(super.getConnection(), Connection.class, millis);
+                        }
+                    };
+                }
+            };
+        }
+
+        private static <T> T slow(T target, Class<T> type, long millis) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("execute") || name.equals("commit") || name.equals("rollback")
+                        || (target instanceof DatabaseMetaData && method.getReturnType() == ResultSet.class)) {
+                    Thread.sleep(millis);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof CallableStatement statement) return slow(statement, CallableStatement.class, millis);
+                if (result instanceof PreparedStatement statement) return slow(statement, PreparedStatement.class, millis);
+                if (result instanceof Statement statement) return slow(statement, Statement.class, millis);
+                if (result instanceof DatabaseMetaData metaData) return slow(metaData, DatabaseMetaData.class, millis);
+                return result;
+            }));
+        }
+    }
+}
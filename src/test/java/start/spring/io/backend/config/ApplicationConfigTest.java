@@ -0,0 +1,29 @@
+package start.spring.io.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class ApplicationConfigTest {
+
+    private final PasswordEncoder encoder = new ApplicationConfig().passwordEncoder(5, Duration.ofMillis(250));
+
+    @Test
+    void onlyWeakerHashesAreUpgraded() {
+        assertThat(encoder.upgradeEncoding("{bcrypt}" + BCrypt.hashpw("secret", BCrypt.gensalt(4)))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+        // Another server with a higher cost already re-hashed it: keep it, do not go back down
+        assertThat(encoder.upgradeEncoding("{bcrypt}" + BCrypt.hashpw("secret", BCrypt.gensalt(6)))).isFalse();
+    }
+
+    @Test
+    void readsTheCostOutOfTheHash() {
+        assertThat(ApplicationConfig.storedCost("$2a$12$abcdefghijklmnopqrstuv")).isEqualTo(12);
+        assertThat(ApplicationConfig.storedCost("plain")).isZero();
+        assertThat(ApplicationConfig.storedCost("$2a$xx$abc")).isZero();
+    }
+}
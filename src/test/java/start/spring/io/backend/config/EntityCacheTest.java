@@ -0,0 +1,96 @@
+package start.spring.io.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.HttpSessionRecordRepository;
+import start.spring.io.backend.repository.UserRepository;
+import start.spring.io.backend.service.CustomUserDetailsService;
+import start.spring.io.backend.service.UserService;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class EntityCacheTest {
+
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserService userService;
+    @Autowired private HttpSessionRecordRepository sessionRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private CustomUserDetailsService userDetailsService;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private SqlStatementRecorder sqlRecorder; // Counts this thread only, not the background jobs
+
+    @Test
+    void facilitiesAndUsersAreReadFromTheCacheAfterTheFirstTime() {
+        Facility facility = facilityRepository.save(new Facility("Cache Court", "Tennis", "Available"));
+        User user = userRepository.save(new User("Cache User", "cache-user@test.com", "x", "user"));
+        entityManagerFactory.getCache().evictAll();
+
+        facilityRepository.findById(facility.getFacilityId());
+        userRepository.findByEmail("cache-user@test.com");
+
+        SqlRequestStats cachedReads = sqlRecorder.measure("cached reads", () -> {
+            assertThat(facilityRepository.findById(facility.getFacilityId())).get()
+                    .extracting(Facility::getName).isEqualTo("Cache Court");
+            assertThat(userRepository.findByEmail("cache-user@test.com")).get()
+                    .extracting(User::getUserId).isEqualTo(user.getUserId());
+            assertThat(userRepository.findById(user.getUserId())).isPresent();
+        });
+        assertThat(cachedReads.getStatements()).isZero();
+
+        // Only the natural-id lookup can tell "no such email", so a miss goes to the database.
+        assertThat(userRepository.findByEmail("nobody@test.com")).isEmpty();
+    }
+
+    @Test
+    void changesAreVisibleAndUnrelatedNativeWritesKeepTheCache() {
+        User user = userRepository.save(new User("Before", "cache-before@test.com", "x", "user"));
+        userRepository.findByEmail("cache-before@test.com");
+
+        User changes = new User("After", "cache-after@test.com", null, null);
+        userService.updateUser(user.getUserId(), changes);
+        assertThat(userRepository.findByEmail("cache-before@test.com")).isEmpty();
+        assertThat(userRepository.findByEmail("cache-after@test.com")).get()
+                .extracting(User::getName).isEqualTo("After");
+
+        // A native INSERT into http_session names its table, so the users region is not emptied.
+        SqlRequestStats insertThenRead = sqlRecorder.measure("insert, then read", () -> {
+            sessionRepository.insert("cache-test-session", 0, 0, 60, Long.MAX_VALUE, new byte[0]);
+            assertThat(userRepository.findById(user.getUserId())).isPresent();
+        });
+        assertThat(insertThenRead.getStatements()).isEqualTo(1);
+        sessionRepository.delete("cache-test-session");
+    }
+
+    @Test
+    void loggingInIgnoresAStaleCacheEntry() {
+        userRepository.save(new User("Login User", "cache-login@test.com", "old-hash", "user"));
+        assertThat(userRepository.findByEmail("cache-login@test.com")).isPresent();
+
+        // Changed behind Hibernate's back, as another server or a script would: the cache still has the old row.
+        jdbc.update("UPDATE users SET password = 'new-hash', role = 'admin' WHERE email = 'cache-login@test.com'");
+        assertThat(userRepository.findByEmail("cache-login@test.com")).get()
+                .extracting(User::getPassword).isEqualTo("old-hash");
+
+        UserDetails login = userDetailsService.loadUserByUsername("cache-login@test.com");
+        assertThat(login.getPassword()).isEqualTo("new-hash");
+        assertThat(login.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_admin");
+
+        jdbc.update("DELETE FROM users WHERE email = 'cache-login@test.com'");
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("cache-login@test.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+}
@@ -0,0 +1,166 @@
+package start.spring.io.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.security.FitEaseUserDetails;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. Each has a one-row table
+ * that says which database it is, so every query tells us where it was routed.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        routing = routingTo(database("primary"), database("replica"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void onlyReadOnlyTransactionsUseTheReplica() {
+        assertThat(readOnlyWhoAnswers()).isEqualTo("replica");
+        assertThat(readWriteWhoAnswers()).isEqualTo("primary");
+        assertThat(whoAnswers()).isEqualTo("primary"); // No transaction at all
+    }
+
+    @Test
+    void laggingOrBrokenReplicaFallsBackToPrimary() {
+        jdbc.execute("UPDATE replica_lag SET seconds = 10"); // Written on the primary: no effect
+        routing.checkReplica();
+        assertThat(routing.isReplicaAvailable()).isTrue();
+
+        JdbcTemplate replica = new JdbcTemplate(database("replica"));
+        replica.execute("UPDATE replica_lag SET seconds = 10");
+        routing.checkReplica();
+        assertThat(routing.isReplicaAvailable()).isFalse();
+        assertThat(readOnlyWhoAnswers()).isEqualTo("primary");
+
+        replica.execute("UPDATE replica_lag SET seconds = 0.5");
+        routing.checkReplica();
+        assertThat(readOnlyWhoAnswers()).isEqualTo("replica");
+
+        routing = routingTo(database("primary"), new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("replica is down");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getConnection();
+            }
+        });
+        assertThat(readOnlyWhoAnswers()).isEqualTo("primary");
+        assertThat(routing.isReplicaAvailable()).isFalse();
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(routing, TimeUnit.SECONDS.toNanos(60));
+        logIn(7);
+
+        assertThat(request(filter, this::readOnlyWhoAnswers)).isEqualTo("replica");
+        request(filter, () -> readWrite.execute(status -> jdbc.update("UPDATE replica_lag SET seconds = 0")));
+        assertThat(request(filter, this::readOnlyWhoAnswers)).isEqualTo("primary");
+
+        // Other users are not affected by user 7's write.
+        logIn(8);
+        assertThat(request(filter, this::readOnlyWhoAnswers)).isEqualTo("replica");
+    }
+
+    private ReadWriteRoutingDataSource routingTo(DataSource primary, DataSource replica) {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primary, replica,
+                "SELECT seconds FROM replica_lag", Duration.ofSeconds(2), new SimpleMeterRegistry());
+        DataSource proxy = new LazyConnectionDataSourceProxy(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        jdbc = new JdbcTemplate(proxy);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return dataSource;
+    }
+
+    private String readOnlyWhoAnswers() {
+        return readOnly.execute(status -> whoAnswers());
+    }
+
+    private String readWriteWhoAnswers() {
+        return readWrite.execute(status -> whoAnswers());
+    }
+
+    private String whoAnswers() {
+        return jdbc.queryForObject("SELECT name FROM which_database", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS which_database (name VARCHAR(20))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds DECIMAL(10, 3))");
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM which_database", Integer.class) == 0) {
+            jdbc.update("INSERT INTO which_database VALUES (?)", name);
+            jdbc.update("INSERT INTO replica_lag VALUES (0)");
+        }
+        jdbc.update("UPDATE replica_lag SET seconds = 0");
+        return dataSource;
+    }
+
+    private static void logIn(int userId) {
+        User user = new User("User " + userId, "user" + userId + "@pwr.edu.pl", "", "user");
+        user.setUserId(userId);
+        FitEaseUserDetails details = new FitEaseUserDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(details, null, details.getAuthorities()));
+    }
+
+    private static <T> T request(ReadYourWritesFilter filter, Supplier<T> work) throws Exception {
+        Object[] result = new Object[1];
+        filter.doFilter(new MockHttpServletRequest("GET", "/reservations"), new MockHttpServletResponse(),
+                new MockFilterChain() {
+                    @Override
+                    public void doFilter(ServletRequest request, ServletResponse response) {
+                        result[0] = work.get();
+                    }
+                });
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+}
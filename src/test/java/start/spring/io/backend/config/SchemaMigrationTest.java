@@ -0,0 +1,54 @@
+package start.spring.io.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Runs the migrations on a database made by the old "ddl-auto=update", like the production one.
+ * Flyway takes it as version 1 without running V1, so everything newer must come from V2 onwards.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void anOldDdlAutoDatabaseGetsEverythingAddedSince() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline-migration-test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=DATE,USER,VALUE", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE users (userid SERIAL PRIMARY KEY, name VARCHAR(150) NOT NULL, email VARCHAR(254) UNIQUE NOT NULL,"
+                + " password VARCHAR(255) NOT NULL, role VARCHAR(20) NOT NULL)");
+        jdbc.execute("CREATE TABLE facility (facilityid SERIAL PRIMARY KEY, name VARCHAR(100) NOT NULL, type VARCHAR(50) NOT NULL,"
+                + " status VARCHAR(20) NOT NULL)");
+        jdbc.execute("CREATE TABLE reservation (reservationid SERIAL PRIMARY KEY, userid INT NOT NULL REFERENCES users(userid),"
+                + " facilityid INT NOT NULL REFERENCES facility(facilityid), date TIMESTAMP NOT NULL, starttime TIME NOT NULL,"
+                + " endtime TIME NOT NULL, participants INT, purpose TEXT)");
+        jdbc.execute("CREATE TABLE penalty (penaltyid SERIAL PRIMARY KEY, userid INT NOT NULL REFERENCES users(userid),"
+                + " description TEXT NOT NULL, datehour TIMESTAMP NOT NULL)");
+        // ddl-auto=update had already created the table of one newer entity.
+        jdbc.execute("CREATE TABLE scheduler_lock (name VARCHAR(64) PRIMARY KEY, lockuntil TIMESTAMP NOT NULL,"
+                + " lockedat TIMESTAMP NOT NULL, lockedby VARCHAR(255) NOT NULL)");
+        jdbc.update("INSERT INTO users (name, email, password, role) VALUES ('Old', 'old@test.com', 'x', 'user')");
+        jdbc.update("INSERT INTO penalty (userid, description, datehour) VALUES (1, 'Given by hand', CURRENT_TIMESTAMP)");
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/common")
+                .baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertThat(jdbc.queryForList("SELECT table_name FROM information_schema.tables WHERE table_schema = 'public'", String.class))
+                .contains("notification_outbox", "scheduler_lock", "http_session");
+        assertThat(jdbc.queryForList("SELECT column_name FROM information_schema.columns WHERE table_name = 'reservation'", String.class))
+                .contains("checkedinat", "remindedat");
+        assertThat(jdbc.queryForObject("SELECT reason FROM penalty", String.class)).isEqualTo("MANUAL");
+
+        jdbc.update("INSERT INTO facility (name, type, status) VALUES ('Court', 'Tennis', 'Available')");
+        jdbc.update("INSERT INTO reservation (userid, facilityid, date, starttime, endtime) VALUES (1, 1, CURRENT_TIMESTAMP, '10:00', '11:00')");
+        jdbc.update("INSERT INTO penalty (userid, reservationid, reason, description, datehour) VALUES (1, 1, 'NO_SHOW', 'No-show', CURRENT_TIMESTAMP)");
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO penalty (userid, reservationid, reason, description, datehour)"
+                + " VALUES (1, 1, 'NO_SHOW', 'No-show', CURRENT_TIMESTAMP)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
@@ -0,0 +1,128 @@
+package start.spring.io.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * The recorder on its own, in front of an in-memory H2 database.
+ */
+class SqlStatementRecorderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SqlStatementRecorder recorder;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        recorder = recorderWithSlowThreshold(Long.MAX_VALUE);
+    }
+
+    @Test
+    void countsTheStatementsOfTheMeasuredCodeAndFindsRepeats() {
+        SqlRequestStats stats = recorder.measure("cards", () -> {
+            jdbc.queryForList("SELECT id FROM card");
+            for (int id = 1; id <= 3; id++) {
+                jdbc.queryForObject("SELECT COUNT(*) FROM card WHERE id = ?", Integer.class, id);
+            }
+        });
+
+        assertThat(stats.getStatements()).isEqualTo(4);
+        assertThat(stats.repeatedStatements(3)).containsOnlyKeys("SELECT COUNT(*) FROM card WHERE id = ?");
+        assertThat(meterRegistry.get("fitease.sql.statements").tag("type", "select").timer().count()).isEqualTo(4);
+
+        // Outside of a measured block nothing is counted per request, but everything is still timed
+        jdbc.queryForList("SELECT id FROM card");
+        assertThat(stats.getStatements()).isEqualTo(4);
+        assertThat(meterRegistry.get("fitease.sql.statements").tag("type", "select").timer().count()).isEqualTo(5);
+    }
+
+    @Test
+    void aBatchIsOneStatement() {
+        SqlRequestStats stats = recorder.measure("import", () -> jdbc.batchUpdate("INSERT INTO card VALUES (?, ?)",
+                List.of(new Object[]{10, "a"}, new Object[]{11, "b"}, new Object[]{12, "c"})));
+
+        assertThat(stats.getStatements()).isEqualTo(1);
+        assertThat(meterRegistry.get("fitease.sql.statements").tag("type", "insert").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void slowStatementsAreKeptWithTheirParameters(CapturedOutput output) {
+        recorder = recorderWithSlowThreshold(0); // Everything is "slow"
+        recorder.measure("GET /search", () -> {
+            for (int id = 1; id <= 3; id++) {
+                jdbc.queryForList("SELECT * FROM card WHERE id = ? AND name <> ?", id, "x".repeat(200));
+            }
+        });
+
+        List<SqlStatementRecorder.SlowQuery> slow = recorder.getSlowQueries();
+        assertThat(slow).hasSize(2); // Only the last two are kept
+        assertThat(slow.get(0).request()).isEqualTo("GET /search");
+        assertThat(slow.get(0).sql()).isEqualTo("SELECT * FROM card WHERE id = ? AND name <> ?");
+        assertThat(slow.get(0).parameters()).singleElement().asString()
+                .startsWith("[1=3, 2='xxx").endsWith("...]").hasSizeLessThan(120);
+        assertThat(meterRegistry.get("fitease.sql.slow").counter().count()).isEqualTo(3);
+
+        // The log only gets the statement and its time, the values stay in the admin-only endpoint
+        assertThat(output).contains("Slow SQL", "GET /search", "SELECT * FROM card WHERE id = ? AND name <> ?")
+                .doesNotContain("xxx");
+    }
+
+    @Test
+    void theFilterHandsEveryRequestToOpenCaptures() throws Exception {
+        SqlInstrumentationFilter filter = new SqlInstrumentationFilter(recorder, meterRegistry, 3);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cards");
+
+        try (SqlCapture capture = recorder.capture()) {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+                @Override
+                protected void service(HttpServletRequest req, HttpServletResponse res) {
+                    for (int id = 1; id <= 3; id++) jdbc.queryForList("SELECT * FROM card WHERE id = ?", id);
+                }
+            }));
+
+            assertThat(capture.lastRequest("GET /cards").getStatements()).isEqualTo(3);
+        }
+        assertThat(meterRegistry.get("fitease.sql.request.statements").summary().totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.get("fitease.sql.n-plus-one").counter().count()).isEqualTo(1);
+
+        // A closed capture does not see later requests
+        SqlCapture closed = recorder.capture();
+        closed.close();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(closed.getRequests()).isEmpty();
+    }
+
+    private SqlStatementRecorder recorderWithSlowThreshold(long nanos) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sql-recorder-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(h2).execute("CREATE TABLE card (id INT PRIMARY KEY, name VARCHAR(20))");
+        new JdbcTemplate(h2).update("INSERT INTO card VALUES (1, 'one'), (2, 'two'), (3, 'three')");
+
+        SqlStatementRecorder newRecorder = new SqlStatementRecorder(nanos, 2);
+        newRecorder.bindTo(meterRegistry);
+        DataSource dataSource = ProxyDataSourceBuilder.create(h2).listener(newRecorder).build();
+        jdbc = new JdbcTemplate(dataSource);
+        return newRecorder;
+    }
+}
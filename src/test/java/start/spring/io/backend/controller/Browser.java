@@ -0,0 +1,65 @@
+package start.spring.io.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A tiny browser for the tests that run against the real web server: it keeps the session cookie,
+ * does not follow redirects, and sends forms with the CSRF token of the page they came from.
+ */
+class Browser {
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+
+    private final int port;
+    private final HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager())
+            .followRedirects(HttpClient.Redirect.NEVER).build();
+
+    Browser(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Logs in through the login page like a person would. Fails the test if the login is refused.
+     */
+    Browser logIn(String email, String password) throws Exception {
+        HttpResponse<String> login = submit("/login", "/login", Map.of("username", email, "password", password));
+        assertThat(login.statusCode()).isEqualTo(302);
+        assertThat(login.headers().firstValue("Location").orElse("")).doesNotContain("error");
+        return this;
+    }
+
+    HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(url(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Opens formPage, takes its CSRF token and posts the fields to action.
+     */
+    HttpResponse<String> submit(String formPage, String action, Map<String, String> fields) throws Exception {
+        Matcher csrf = CSRF.matcher(get(formPage).body());
+        assertThat(csrf.find()).as("CSRF token on " + formPage).isTrue();
+
+        String form = fields.entrySet().stream()
+                .map(field -> field.getKey() + "=" + URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&")) + "&_csrf=" + csrf.group(1);
+        return client.send(HttpRequest.newBuilder(url(action))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI url(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
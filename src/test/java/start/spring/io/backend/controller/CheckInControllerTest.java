@@ -0,0 +1,79 @@
+package start.spring.io.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+import start.spring.io.backend.service.CheckInService;
+
+/**
+ * Check-in through the real web server: only the staff at the desk can check a booking in.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.mail.port=0", "fitease.outbox.poll-interval=1h", "fitease.reservations.no-show-check-interval=1h",
+                "fitease.checkin.opens-before=15m"})
+@ActiveProfiles({"h2", "local-smtp"})
+class CheckInControllerTest {
+
+    private static final String PASSWORD = "check-in-test-password";
+
+    @LocalServerPort private int port;
+    @Autowired private CheckInService checkInService;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+
+    @Test
+    void onlyTheDeskCanCheckABookingIn() throws Exception {
+        User member = userRepository.save(new User("Desk Member", "desk-member@test.com", passwordEncoder.encode(PASSWORD), "user"));
+        userRepository.save(new User("Desk Admin", "desk-admin@test.com", passwordEncoder.encode(PASSWORD), "admin"));
+        Facility facility = facilityRepository.save(new Facility("Desk Court", "Tennis", "Available"));
+        Reservation reservation = reservationRepository.save(startingIn(10, member, facility));
+        Reservation later = reservationRepository.save(startingIn(120, member, facility));
+        String code = checkInService.codeFor(reservation);
+
+        // The member sees the code, but cannot use it themselves
+        Browser memberBrowser = new Browser(port).logIn("desk-member@test.com", PASSWORD);
+        assertThat(memberBrowser.get("/reservations").body()).contains(code).doesNotContain("/check-in");
+        HttpResponse<String> denied = memberBrowser.get("/check-in");
+        assertThat(denied.statusCode()).isEqualTo(302);
+        assertThat(denied.headers().firstValue("Location").orElse("")).endsWith("/access-denied");
+        assertThat(reservationRepository.findById(reservation.getReservationId()).orElseThrow().getCheckedInAt()).isNull();
+
+        Browser desk = new Browser(port).logIn("desk-admin@test.com", PASSWORD);
+        assertThat(desk.submit("/check-in", "/check-in", Map.of("code", "1-forged")).body()).contains("not valid");
+        assertThat(desk.submit("/check-in", "/check-in", Map.of("code", checkInService.codeFor(later))).body())
+                .contains("Check-in opens 15 minutes before the booking starts.");
+        assertThat(desk.submit("/check-in", "/check-in", Map.of("code", code)).body()).contains("Welcome!");
+        assertThat(reservationRepository.findById(reservation.getReservationId()).orElseThrow().getCheckedInAt()).isNotNull();
+    }
+
+    private static Reservation startingIn(int minutes, User user, Facility facility) {
+        LocalDateTime start = LocalDateTime.now().plusMinutes(minutes).withSecond(0).withNano(0);
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setFacility(facility);
+        reservation.setDate(start);
+        reservation.setStartTime(start.toLocalTime());
+        reservation.setEndTime(LocalTime.of(23, 59));
+        reservation.setParticipants(2);
+        return reservation;
+    }
+}
@@ -0,0 +1,83 @@
+package start.spring.io.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.config.SqlCapture;
+import start.spring.io.backend.config.SqlRequestStats;
+import start.spring.io.backend.config.SqlStatementRecorder;
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.MaintenanceRequest;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.MaintenanceRequestRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+/**
+ * The Facilities page through the real web server, with the SQL it sends counted.
+ * The fake mail server takes any free port, because the other test contexts keep the usual one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.mail.port=0", "fitease.outbox.poll-interval=1h", "fitease.reservations.no-show-check-interval=1h"})
+@ActiveProfiles({"h2", "local-smtp"})
+class FacilityControllerTest {
+
+    private static final String PASSWORD = "facility-test-password";
+    private static final int FACILITIES = 6;
+
+    @LocalServerPort private int port;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private MaintenanceRequestRepository maintenanceRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private SqlStatementRecorder sqlRecorder;
+
+    @Test
+    void theFacilitiesPageDoesNotQueryOncePerCard() throws Exception {
+        User admin = userRepository.save(new User("Facility Admin", "facility-admin@test.com",
+                passwordEncoder.encode(PASSWORD), "admin"));
+        List<Facility> facilities = new ArrayList<>();
+        for (int f = 0; f < FACILITIES; f++) {
+            facilities.add(new Facility("Card Court " + f, "Tennis", "Available"));
+        }
+        facilityRepository.saveAll(facilities);
+        maintenanceRepository.save(report(admin, facilities.get(0), "PENDING"));
+        maintenanceRepository.save(report(admin, facilities.get(1), "RESOLVED"));
+
+        Browser browser = new Browser(port).logIn("facility-admin@test.com", PASSWORD);
+        browser.get("/facilities"); // The first visit also loads the session
+
+        try (SqlCapture capture = sqlRecorder.capture()) {
+            HttpResponse<String> response = browser.get("/facilities");
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("Card Court 0", "Under Maintenance");
+
+            SqlRequestStats stats = capture.lastRequest("GET /facilities");
+            assertThat(stats.repeatedStatements(2)).as("statements repeated per card").isEmpty();
+            assertThat(stats.getStatements()).isLessThan(FACILITIES);
+        }
+    }
+
+    private static MaintenanceRequest report(User user, Facility facility, String status) {
+        MaintenanceRequest request = new MaintenanceRequest();
+        request.setUser(user);
+        request.setFacility(facility);
+        request.setDescription("Broken net");
+        request.setStatus(status);
+        request.setReportDate(LocalDateTime.now());
+        request.setIssueType("Equipment");
+        request.setSeverity("LOW");
+        return request;
+    }
+}
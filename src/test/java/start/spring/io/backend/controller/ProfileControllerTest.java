@@ -0,0 +1,77 @@
+package start.spring.io.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.session.MapSession;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.HttpSessionRecord;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.HttpSessionRecordRepository;
+import start.spring.io.backend.repository.UserRepository;
+import start.spring.io.backend.security.DatabaseSessionRepository;
+import start.spring.io.backend.security.FitEaseUserDetails;
+import start.spring.io.backend.service.ClusterJobLock;
+
+/**
+ * The profile page through the real web server, and what ends up in the stored session.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.mail.port=0", "fitease.outbox.poll-interval=1h", "fitease.reservations.no-show-check-interval=1h"})
+@ActiveProfiles({"h2", "local-smtp"})
+class ProfileControllerTest {
+
+    private static final String PASSWORD = "profile-test-password";
+
+    @LocalServerPort private int port;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private HttpSessionRecordRepository sessionRecords;
+    @Autowired private ClusterJobLock clusterJobLock;
+
+    @Test
+    void theStoredSessionNeverContainsThePasswordHash() throws Exception {
+        userRepository.save(new User("Profile Member", "profile-member@test.com", passwordEncoder.encode(PASSWORD), "user"));
+        Browser browser = new Browser(port).logIn("profile-member@test.com", PASSWORD);
+        assertThat(storedPrincipals("profile-member@test.com")).singleElement()
+                .satisfies(user -> assertThat(user.getPassword()).isNull());
+
+        browser.submit("/profile", "/profile", Map.of("name", "Renamed Member", "email", "profile-member@test.com",
+                "role", "user", "password", ""));
+
+        assertThat(storedPrincipals("profile-member@test.com")).singleElement().satisfies(user -> {
+            assertThat(user.getName()).isEqualTo("Renamed Member");
+            assertThat(user.getPassword()).isNull();
+        });
+    }
+
+    /**
+     * Reads the sessions back from the table, like another server would (no near-cache).
+     */
+    private List<FitEaseUserDetails> storedPrincipals(String email) {
+        DatabaseSessionRepository otherServer = new DatabaseSessionRepository(sessionRecords, clusterJobLock,
+                new SimpleMeterRegistry(), Duration.ofMinutes(30), Duration.ZERO, Duration.ofMinutes(1), 100);
+        List<FitEaseUserDetails> principals = new ArrayList<>();
+        for (HttpSessionRecord record : sessionRecords.findAll()) {
+            MapSession session = otherServer.findById(record.getSessionId());
+            SecurityContext context = session == null ? null : session.getAttribute("SPRING_SECURITY_CONTEXT");
+            if (context != null && context.getAuthentication().getPrincipal() instanceof FitEaseUserDetails user
+                    && user.getEmail().equals(email)) {
+                principals.add(user);
+            }
+        }
+        return principals;
+    }
+}
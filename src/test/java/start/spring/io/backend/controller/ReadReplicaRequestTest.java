@@ -0,0 +1,133 @@
+package start.spring.io.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.config.ReadWriteRoutingDataSource;
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+/**
+ * Pages that read something and then change it, with a read replica that refuses writes.
+ * The "replica" is the same in-memory database opened by a user who may only SELECT,
+ * so a write that ends up on a replica connection fails instead of silently working.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.mail.port=0", "fitease.outbox.poll-interval=1h", "fitease.reservations.no-show-check-interval=1h",
+                "spring.datasource.url=" + ReadReplicaRequestTest.DATABASE,
+                "fitease.datasource.replica.url=" + ReadReplicaRequestTest.DATABASE,
+                "fitease.datasource.replica.username=reader",
+                "fitease.datasource.replica.password=reader",
+                "fitease.datasource.replica.lag-query=SELECT 0",
+                // A user's reads are pinned to the primary only briefly after a write
+                "fitease.datasource.replica.max-lag=0s",
+                "fitease.datasource.replica.check-interval=50ms"})
+@ActiveProfiles({"h2", "local-smtp"})
+class ReadReplicaRequestTest {
+
+    static final String DATABASE = "jdbc:h2:mem:replica-request-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=DATE,USER,VALUE";
+    private static final String PASSWORD = "replica-test-password";
+
+    @LocalServerPort private int port;
+    @Autowired private ReadWriteRoutingDataSource routing;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void openTheReplica() {
+        jdbc.execute("CREATE USER IF NOT EXISTS reader PASSWORD 'reader'");
+        jdbc.execute("GRANT SELECT ON SCHEMA public TO reader");
+        routing.checkReplica();
+        assertThat(routing.isReplicaAvailable()).isTrue();
+    }
+
+    @Test
+    void closingAFacilityWritesToThePrimary() throws Exception {
+        userRepository.save(new User("Replica Admin", "replica-admin@test.com", passwordEncoder.encode(PASSWORD), "admin"));
+        Facility facility = facilityRepository.save(new Facility("Replica Court", "Tennis", "Available"));
+        entityManagerFactory.getCache().evictAll(); // The read must really go to the database
+        Browser admin = new Browser(port).logIn("replica-admin@test.com", PASSWORD);
+        waitUntilNotPinned();
+
+        double replicaReads = replicaConnections();
+        HttpResponse<String> response = admin.submit("/facilities",
+                "/facilities/status/" + facility.getFacilityId() + "/toggle", Map.of());
+
+        assertThat(response.statusCode()).isEqualTo(302);
+        assertThat(response.headers().firstValue("Location").orElse("")).endsWith("/facilities");
+        assertThat(replicaConnections()).as("the facilities page read from the replica").isGreaterThan(replicaReads);
+        assertThat(facilityRepository.findCurrent(facility.getFacilityId()).orElseThrow().getStatus()).isEqualTo("Unavailable");
+    }
+
+    @Test
+    void editingABookingWritesToThePrimary() throws Exception {
+        User member = userRepository.save(new User("Replica Member", "replica-member@test.com", passwordEncoder.encode(PASSWORD), "user"));
+        Facility facility = facilityRepository.save(new Facility("Replica Field", "Soccer", "Available"));
+        Reservation reservation = reservationRepository.save(dayAfterTomorrow(member, facility));
+        Browser browser = new Browser(port).logIn("replica-member@test.com", PASSWORD);
+        waitUntilNotPinned();
+
+        double replicaReads = replicaConnections();
+        String editPage = "/reservations/edit/" + reservation.getReservationId();
+        HttpResponse<String> response = browser.submit(editPage, editPage, Map.of(
+                "bookingDate", reservation.getDate().toLocalDate().toString(),
+                "startTime", "18:00", "endTime", "19:00", "participants", "6", "purpose", "Moved to the evening"));
+
+        assertThat(response.statusCode()).isEqualTo(302);
+        assertThat(response.headers().firstValue("Location").orElse("")).endsWith("/reservations");
+        assertThat(replicaConnections()).as("the edit page read from the replica").isGreaterThan(replicaReads);
+        Reservation saved = reservationRepository.findById(reservation.getReservationId()).orElseThrow();
+        assertThat(saved.getStartTime()).isEqualTo(LocalTime.of(18, 0));
+        assertThat(saved.getPurpose()).isEqualTo("Moved to the evening");
+    }
+
+    private double replicaConnections() {
+        return meterRegistry.counter("fitease.datasource.connections", "target", "replica").count();
+    }
+
+    /**
+     * Logging in is a write, after which ReadYourWritesFilter keeps the user on the primary for a moment.
+     */
+    private static void waitUntilNotPinned() throws InterruptedException {
+        Thread.sleep(200);
+    }
+
+    private static Reservation dayAfterTomorrow(User user, Facility facility) {
+        LocalDateTime start = LocalDate.now().plusDays(2).atTime(10, 0);
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setFacility(facility);
+        reservation.setDate(start);
+        reservation.setStartTime(start.toLocalTime());
+        reservation.setEndTime(LocalTime.of(11, 0));
+        reservation.setParticipants(4);
+        reservation.setPurpose("Morning match");
+        return reservation;
+    }
+}
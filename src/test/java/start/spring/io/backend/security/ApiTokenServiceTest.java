@@ -0,0 +1,75 @@
+package start.spring.io.backend.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import start.spring.io.backend.model.User;
+
+class ApiTokenServiceTest {
+
+    private final ApiTokenService tokens = new ApiTokenService("test-secret", Duration.ofHours(1));
+
+    @Test
+    void tokenCarriesTheUserWithoutDatabase() {
+        FitEaseUserDetails user = tokens.verify(tokens.issue(user()));
+
+        assertThat(user).isNotNull();
+        assertThat(user.getUserId()).isEqualTo(42);
+        assertThat(user.getEmail()).isEqualTo("ana@pwr.edu.pl");
+        assertThat(user.getName()).isEqualTo("Ana Kowalska");
+        assertThat(user.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_user");
+    }
+
+    @Test
+    void changedExpiredOrForeignTokensAreRejected() {
+        String token = tokens.issue(user());
+        String payload = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.indexOf('.') + 1);
+
+        // Another user id with the old signature
+        String forged = payload.substring(0, payload.length() - 2) + "xx." + signature;
+        assertThat(tokens.verify(forged)).isNull();
+        assertThat(tokens.verify(payload + ".")).isNull();
+        assertThat(tokens.verify("not-a-token")).isNull();
+        assertThat(tokens.verify(null)).isNull();
+
+        assertThat(new ApiTokenService("other-secret", Duration.ofHours(1)).verify(token)).isNull();
+
+        ApiTokenService expiring = new ApiTokenService("test-secret", Duration.ofSeconds(-1));
+        assertThat(tokens.verify(expiring.issue(user()))).isNull();
+    }
+
+    @Test
+    void filterLogsInOnlyWithValidBearerToken() throws Exception {
+        ApiTokenFilter filter = new ApiTokenFilter(tokens);
+        try {
+            assertThat(authenticationFor(filter, "Bearer " + tokens.issue(user()))).isNotNull();
+            assertThat(authenticationFor(filter, "Bearer invalid.token")).isNull();
+            assertThat(authenticationFor(filter, null)).isNull();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static Authentication authenticationFor(ApiTokenFilter filter, String header) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/bookings");
+        if (header != null) request.addHeader("Authorization", header);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static FitEaseUserDetails user() {
+        User user = new User("Ana Kowalska", "ana@pwr.edu.pl", "{bcrypt}hash", "user");
+        user.setUserId(42);
+        return new FitEaseUserDetails(user);
+    }
+}
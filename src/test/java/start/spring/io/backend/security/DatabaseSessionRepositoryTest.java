@@ -0,0 +1,124 @@
+package start.spring.io.backend.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.session.MapSession;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.HttpSessionRecordRepository;
+import start.spring.io.backend.service.ClusterJobLock;
+
+/**
+ * Simulates two servers (two DatabaseSessionRepository instances) sharing the same database.
+ */
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class DatabaseSessionRepositoryTest {
+
+    @Autowired
+    private HttpSessionRecordRepository repository;
+
+    @Autowired
+    private ClusterJobLock clusterJobLock;
+
+    private DatabaseSessionRepository node(Duration nearCacheTtl) {
+        return new DatabaseSessionRepository(repository, clusterJobLock, new SimpleMeterRegistry(),
+                Duration.ofMinutes(30), nearCacheTtl, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void aSessionSavedOnOneServerIsReadOnAnother() {
+        DatabaseSessionRepository nodeA = node(Duration.ofSeconds(5));
+        DatabaseSessionRepository nodeB = node(Duration.ofSeconds(5));
+
+        MapSession session = nodeA.createSession();
+        User account = new User("Ana", "ana@pwr.edu.pl", "{bcrypt}x", "user");
+        account.setUserId(7);
+        FitEaseUserDetails user = new FitEaseUserDetails(account);
+        session.setAttribute("principal", user);
+        session.setAttribute("fullName", "Ana");
+        nodeA.save(session);
+
+        MapSession loaded = nodeB.findById(session.getId());
+        assertThat(loaded).isNotNull();
+        assertThat((String) loaded.getAttribute("fullName")).isEqualTo("Ana");
+        assertThat(loaded.<FitEaseUserDetails>getAttribute("principal").getUserId()).isEqualTo(7);
+        // The whole session is one small compressed value.
+        assertThat(repository.findById(session.getId()).orElseThrow().getAttributes().length).isLessThan(1024);
+    }
+
+    @Test
+    void changingTheIdAtLoginMovesTheSession() {
+        DatabaseSessionRepository nodeA = node(Duration.ofSeconds(5));
+        MapSession session = nodeA.createSession();
+        session.setAttribute("fullName", "Ana");
+        nodeA.save(session);
+        String oldId = session.getId();
+
+        MapSession loaded = nodeA.findById(oldId);
+        loaded.changeSessionId();
+        nodeA.save(loaded);
+
+        assertThat(nodeA.findById(oldId)).isNull();
+        assertThat(node(Duration.ZERO).findById(loaded.getId())).isNotNull();
+    }
+
+    @Test
+    void onlyTouchingTheSessionDoesNotWriteUntilTheTouchInterval() {
+        DatabaseSessionRepository nodeA = node(Duration.ofSeconds(5));
+        MapSession session = nodeA.createSession();
+        session.setAttribute("fullName", "Ana");
+        nodeA.save(session);
+        long stored = repository.findById(session.getId()).orElseThrow().getLastAccessTime();
+
+        MapSession loaded = nodeA.findById(session.getId());
+        loaded.setLastAccessedTime(loaded.getLastAccessedTime().plusSeconds(10));
+        nodeA.save(loaded);
+        assertThat(repository.findById(session.getId()).orElseThrow().getLastAccessTime()).isEqualTo(stored);
+
+        loaded = nodeA.findById(session.getId());
+        loaded.setLastAccessedTime(Instant.ofEpochMilli(stored).plusSeconds(120));
+        nodeA.save(loaded);
+        assertThat(repository.findById(session.getId()).orElseThrow().getLastAccessTime()).isEqualTo(stored + 120_000);
+    }
+
+    @Test
+    void aLogoutOnOneServerIsSeenByTheOthers() {
+        DatabaseSessionRepository nodeA = node(Duration.ZERO);
+        DatabaseSessionRepository nodeB = node(Duration.ZERO);
+        MapSession session = nodeA.createSession();
+        nodeA.save(session);
+        assertThat(nodeB.findById(session.getId())).isNotNull();
+
+        nodeA.deleteById(session.getId());
+        assertThat(nodeB.findById(session.getId())).isNull();
+    }
+
+    @Test
+    void aSessionLoggedOutOnAnotherServerIsNotWrittenBack() {
+        DatabaseSessionRepository nodeA = node(Duration.ofSeconds(30));
+        DatabaseSessionRepository nodeB = node(Duration.ofSeconds(30));
+        MapSession session = nodeA.createSession();
+        session.setAttribute("fullName", "Ana");
+        nodeA.save(session);
+
+        nodeB.deleteById(session.getId()); // Logout on B
+
+        // A still has it in its near-cache, and the request changes it (a flash attribute, a saved request...)
+        MapSession stale = nodeA.findById(session.getId());
+        assertThat(stale).isNotNull();
+        stale.setAttribute("flash", "Saved!");
+        nodeA.save(stale);
+
+        assertThat(repository.findById(session.getId())).isEmpty();
+        assertThat(nodeA.findById(session.getId())).isNull();
+    }
+}
@@ -0,0 +1,109 @@
+package start.spring.io.backend.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+class RateLimitFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void bucketRefillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(3, SECOND, 0);
+
+        for (int i = 0; i < 3; i++) assertThat(bucket.tryConsume(0)).isZero();
+        assertThat(bucket.tryConsume(0)).isEqualTo(SECOND); // Empty: the next token comes in one second.
+
+        assertThat(bucket.tryConsume(SECOND)).isZero();
+        assertThat(bucket.tryConsume(SECOND)).isPositive();
+        assertThat(bucket.isFull(3 * SECOND)).isFalse();
+        assertThat(bucket.isFull(4 * SECOND)).isTrue();
+    }
+
+    @Test
+    void loginIsRejectedPerEmailBeforeReachingSecurity() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitFilter filter = filter(registry);
+
+        assertThat(login(filter, "ana@pwr.edu.pl").getStatus()).isEqualTo(200);
+        assertThat(login(filter, "ANA@pwr.edu.pl").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = login(filter, "ana@pwr.edu.pl");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isNotNull();
+
+        // Another account from the same address still has its own budget.
+        assertThat(login(filter, "jan@pwr.edu.pl").getStatus()).isEqualTo(200);
+        assertThat(registry.counter("fitease.ratelimit.rejected", "endpoint", "login", "scope", "user").count()).isEqualTo(1);
+    }
+
+    @Test
+    void apiTokenIsRejectedPerEmailFromAnyAddress() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitFilter filter = filter(registry);
+
+        assertThat(apiToken(filter, "ana@pwr.edu.pl", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(apiToken(filter, "ANA@pwr.edu.pl", "10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(apiToken(filter, "ana@pwr.edu.pl", "10.0.0.3").getStatus()).isEqualTo(429);
+
+        // The same budget as the login page: the website is closed for this email too.
+        assertThat(login(filter, "ana@pwr.edu.pl").getStatus()).isEqualTo(429);
+        assertThat(apiToken(filter, "jan@pwr.edu.pl", "10.0.0.3").getStatus()).isEqualTo(200);
+        assertThat(registry.counter("fitease.ratelimit.rejected", "endpoint", "login", "scope", "user").count()).isEqualTo(2);
+    }
+
+    @Test
+    void theControllerStillReadsTheJsonBody() throws Exception {
+        MockHttpServletRequest request = apiTokenRequest("ana@pwr.edu.pl", "10.0.0.1");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(new SimpleMeterRegistry()).doFilter(request, new MockHttpServletResponse(), chain);
+
+        String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(body).isEqualTo(tokenBody("ana@pwr.edu.pl"));
+    }
+
+    private static RateLimitFilter filter(SimpleMeterRegistry registry) {
+        return new RateLimitFilter(registry, new ApiTokenService("test-secret", Duration.ofHours(1)), JsonMapper.builder().build(),
+                true, 5, 2, Duration.ofMinutes(1), 3, Duration.ofMinutes(1), 10, Duration.ofSeconds(3));
+    }
+
+    private static MockHttpServletResponse apiToken(RateLimitFilter filter, String email, String address) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(apiTokenRequest(email, address), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest apiTokenRequest(String email, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/token");
+        request.setServletPath("/api/v1/auth/token");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(tokenBody(email).getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String tokenBody(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"secret\"}";
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filter, String email) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.setParameter("username", email);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,55 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.repository.SchedulerLockRepository;
+
+/**
+ * Simulates two servers (two ClusterJobLock instances) sharing the same database.
+ */
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class ClusterJobLockTest {
+
+    @Autowired
+    private SchedulerLockRepository repository;
+
+    @Test
+    void onlyOneNodeRunsTheJobWhileTheLeaseIsHeld() {
+        ClusterJobLock nodeA = new ClusterJobLock(repository, new SimpleMeterRegistry());
+        ClusterJobLock nodeB = new ClusterJobLock(repository, new SimpleMeterRegistry());
+        AtomicInteger runs = new AtomicInteger();
+
+        boolean ranOnA = nodeA.runExclusively("test-job", Duration.ofMinutes(5), Duration.ZERO, () -> {
+            runs.incrementAndGet();
+            // While A is still running, B must skip.
+            boolean ranOnB = nodeB.runExclusively("test-job", Duration.ofMinutes(5), Duration.ZERO, runs::incrementAndGet);
+            assertThat(ranOnB).isFalse();
+        });
+
+        assertThat(ranOnA).isTrue();
+        assertThat(runs).hasValue(1);
+
+        // Released with lockAtLeast = 0, so the next run may happen anywhere.
+        assertThat(nodeB.runExclusively("test-job", Duration.ofMinutes(5), Duration.ZERO, runs::incrementAndGet)).isTrue();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void lockAtLeastKeepsOtherNodesOutAfterAShortRun() {
+        ClusterJobLock nodeA = new ClusterJobLock(repository, new SimpleMeterRegistry());
+        ClusterJobLock nodeB = new ClusterJobLock(repository, new SimpleMeterRegistry());
+
+        assertThat(nodeA.runExclusively("daily-job", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> { })).isTrue();
+        assertThat(nodeB.runExclusively("daily-job", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> { })).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Sends real SMTP traffic to GreenMail, a mail server that runs inside the test.
+ */
+class MailDeliveryEngineTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort()); // 3025 may be taken by LocalSmtpServer
+
+    private SimpleMeterRegistry registry;
+    private MailDeliveryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(greenMail.getSmtp().getPort());
+        registry = new SimpleMeterRegistry();
+        engine = new MailDeliveryEngine(sender, registry, 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.shutdown();
+    }
+
+    @Test
+    void sendsWholeBatchOverOneConnection() {
+        List<MailDeliveryEngine.Mail> batch = mails(10);
+
+        Map<MailDeliveryEngine.Mail, Exception> failures = engine.submit(batch).join();
+
+        assertThat(failures).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).hasSize(10);
+        assertThat(registry.counter("fitease.mail.sent").count()).isEqualTo(10);
+        assertThat(registry.counter("fitease.mail.connections.opened").count()).isEqualTo(1);
+    }
+
+    @Test
+    void reusesPooledConnectionForNextBatch() {
+        engine.submit(mails(3)).join();
+        engine.submit(mails(3)).join();
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(6);
+        assertThat(registry.counter("fitease.mail.connections.opened").count()).isEqualTo(1);
+    }
+
+    @Test
+    void reportsFailuresPerMessage() {
+        List<MailDeliveryEngine.Mail> batch = new ArrayList<>(mails(2));
+        batch.add(new MailDeliveryEngine.Mail(List.of(99L), "not an address", "Hi", "Body"));
+
+        Map<MailDeliveryEngine.Mail, Exception> failures = engine.submit(batch).join();
+
+        assertThat(failures).containsOnlyKeys(batch.get(2));
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        assertThat(registry.counter("fitease.mail.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWorkWhenQueueIsFull() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(greenMail.getSmtp().getPort());
+        MailDeliveryEngine tiny = new MailDeliveryEngine(sender, new SimpleMeterRegistry(), 1, 1);
+        try {
+            List<CompletableFuture<?>> accepted = new ArrayList<>();
+            assertThatThrownBy(() -> {
+                for (int i = 0; i < 50; i++) {
+                    accepted.add(tiny.submit(mails(20)));
+                }
+            }).isInstanceOf(RejectedExecutionException.class);
+            assertThat(accepted.size()).isLessThan(50);
+        } finally {
+            try {
+                tiny.shutdown();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<MailDeliveryEngine.Mail> mails(int count) {
+        List<MailDeliveryEngine.Mail> mails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mails.add(new MailDeliveryEngine.Mail(List.of((long) i), "user" + i + "@test.com", "Subject " + i, "Body " + i));
+        }
+        return mails;
+    }
+}
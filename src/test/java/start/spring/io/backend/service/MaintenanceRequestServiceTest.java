@@ -0,0 +1,100 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.dto.StaffWorkloadView;
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.MaintenanceRequest;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class MaintenanceRequestServiceTest {
+
+    @Autowired private MaintenanceRequestService maintenanceService;
+    @Autowired private MaintenanceDispatcher dispatcher;
+    @Autowired private UserService userService;
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void theDispatcherOnlyHearsAboutCommittedChanges() {
+        userRepository.save(new User("Fixer", "fixer@dispatch.test", "x", "maintenance"));
+        dispatcher.rebuild();
+        User reporter = userRepository.save(new User("Reporter", "reporter@dispatch.test", "x", "user"));
+        Facility facility = facilityRepository.save(new Facility("Dispatch Court", "Tennis", "Available"));
+        int before = openRequests();
+
+        Integer id = transactionTemplate.execute(status -> maintenanceService.createRequest(report(reporter, facility)))
+                .getRequestId();
+        assertThat(openRequests()).isEqualTo(before + 1);
+        // Assigned after the commit, in a transaction of its own
+        assertThat(jdbc.queryForObject("SELECT staffid FROM maintenance_request WHERE requestid = ?", Integer.class, id)).isNotNull();
+
+        // Rolled back: the staff member keeps the request
+        transactionTemplate.executeWithoutResult(status -> {
+            maintenanceService.markResolved(id);
+            status.setRollbackOnly();
+        });
+        assertThat(openRequests()).isEqualTo(before + 1);
+
+        maintenanceService.updateRequestStatus(id, "RESOLVED");
+        assertThat(openRequests()).isEqualTo(before);
+
+        // Opened again through the generic path: back in the queue
+        maintenanceService.updateRequestStatus(id, "PENDING");
+        assertThat(openRequests()).isEqualTo(before + 1);
+
+        maintenanceService.deleteRequest(id);
+        assertThat(openRequests()).isEqualTo(before);
+    }
+
+    @Test
+    void aNewStaffMemberOnlyJoinsOnceTheChangeCommits() {
+        User member = userRepository.save(new User("Soon Staff", "soon-staff@dispatch.test", "x", "user"));
+        dispatcher.rebuild();
+        User promotion = new User("Soon Staff", "soon-staff@dispatch.test", "", "maintenance");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.updateUser(member.getUserId(), promotion);
+            status.setRollbackOnly();
+        });
+        assertThat(dispatcher.getWorkload()).extracting(StaffWorkloadView::staffId).doesNotContain(member.getUserId());
+
+        userService.updateUser(member.getUserId(), promotion);
+        assertThat(dispatcher.getWorkload()).extracting(StaffWorkloadView::staffId).contains(member.getUserId());
+    }
+
+    /**
+     * Requests the dispatcher counts as open: assigned to somebody or still waiting.
+     */
+    private int openRequests() {
+        return dispatcher.getWorkload().stream().mapToInt(StaffWorkloadView::activeRequests).sum()
+                + dispatcher.getBacklogSize();
+    }
+
+    private static MaintenanceRequest report(User user, Facility facility) {
+        MaintenanceRequest request = new MaintenanceRequest();
+        request.setUser(user);
+        request.setFacility(facility);
+        request.setDescription("Torn net");
+        request.setStatus("PENDING");
+        request.setReportDate(LocalDateTime.now());
+        request.setIssueType("Equipment");
+        request.setSeverity("HIGH");
+        return request;
+    }
+}
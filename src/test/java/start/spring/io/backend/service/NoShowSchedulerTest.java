@@ -0,0 +1,115 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.PenaltyRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class NoShowSchedulerTest {
+
+    @Autowired private NoShowScheduler scheduler;
+    @Autowired private PenaltyService penaltyService;
+    @Autowired private CheckInService checkInService;
+    @Autowired private ReservationTimers timers;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private PenaltyRepository penaltyRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FacilityRepository facilityRepository;
+
+    @Test
+    void penalizesOnlyBookingsWithoutCheckInAndOnlyOnce() {
+        Facility facility = facilityRepository.save(new Facility("No-Show Court", "Tennis", "Available"));
+        User absent = userRepository.save(new User("Absent User", "absent@test.com", "x", "user"));
+        User present = userRepository.save(new User("Present User", "present@test.com", "x", "user"));
+
+        LocalDateTime start = LocalDateTime.now().minusMinutes(20).withSecond(0).withNano(0);
+        Reservation missed = reservationRepository.save(reservation(absent, facility, start));
+        Reservation attended = reservationRepository.save(reservation(present, facility, start));
+
+        assertThat(checkInService.checkIn(attended.getReservationId(), "wrong")).isEqualTo(CheckInService.Result.INVALID);
+        assertThat(checkInService.checkIn(attended.getReservationId(), checkInService.tokenFor(attended)))
+                .isEqualTo(CheckInService.Result.CHECKED_IN);
+
+        long before = penaltyRepository.count();
+        scheduler.penalizeUnattended();
+        scheduler.penalizeUnattended(); // The second run finds nothing new
+
+        assertThat(penaltyRepository.count()).isEqualTo(before + 1);
+        assertThat(penaltyRepository.findByUser(absent)).singleElement()
+                .satisfies(p -> assertThat(p.getReservation().getReservationId()).isEqualTo(missed.getReservationId()));
+        assertThat(penaltyRepository.findByUser(present)).isEmpty();
+    }
+
+    @Test
+    void aManagerCanOnlyMarkANoShowAfterTheGracePeriod() {
+        Facility facility = facilityRepository.save(new Facility("Manager Court", "Tennis", "Available"));
+        User late = userRepository.save(new User("Late User", "late@test.com", "x", "user"));
+        LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+        Reservation justStarted = reservationRepository.save(reservation(late, facility, now.minusMinutes(5)));
+        Reservation missed = reservationRepository.save(reservation(late, facility, now.minusMinutes(20)));
+
+        assertThat(scheduler.markNoShow(justStarted.getReservationId())).isFalse();
+        assertThat(scheduler.markNoShow(missed.getReservationId())).isTrue();
+        assertThat(scheduler.markNoShow(missed.getReservationId())).isFalse(); // Never twice
+        assertThat(penaltyRepository.findByUser(late)).singleElement()
+                .satisfies(p -> assertThat(p.getReservation().getReservationId()).isEqualTo(missed.getReservationId()));
+    }
+
+    @Test
+    void aStaleTimerDoesNotPenalizeABookingThatWasMovedLater() {
+        Facility facility = facilityRepository.save(new Facility("Moved Court", "Tennis", "Available"));
+        User mover = userRepository.save(new User("Mover", "mover@test.com", "x", "user"));
+        LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+        Reservation moved = reservationRepository.save(reservation(mover, facility, now.plusHours(2)));
+
+        // This server still has the timer of the old time (for example it was moved on another server)
+        Reservation oldTime = reservation(mover, facility, now.minusMinutes(20));
+        oldTime.setReservationId(moved.getReservationId());
+        timers.onSaved(oldTime);
+        timers.tick();
+
+        assertThat(penaltyRepository.findByUser(mover)).isEmpty();
+    }
+
+    @Test
+    void twoServersInTheSameSecondGiveTheStrikeOnlyOnce() {
+        Facility facility = facilityRepository.save(new Facility("Race Court", "Tennis", "Available"));
+        User racer = userRepository.save(new User("Racer", "racer@test.com", "x", "user"));
+        Reservation missed = reservationRepository.save(reservation(racer, facility,
+                LocalDateTime.now().minusMinutes(20).withSecond(0).withNano(0)));
+        Reservation other = reservationRepository.save(reservation(racer, facility,
+                LocalDateTime.now().minusMinutes(30).withSecond(0).withNano(0)));
+
+        // Both servers' wheels fire in the same tick; the second one finds the first one's row
+        assertThat(penaltyService.penalizeNoShows(List.of(missed))).containsExactly(missed);
+        assertThat(penaltyService.penalizeNoShows(List.of(missed, other))).containsExactly(other);
+        assertThat(penaltyRepository.findByUser(racer)).hasSize(2);
+    }
+
+    private Reservation reservation(User user, Facility facility, LocalDateTime start) {
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setFacility(facility);
+        reservation.setDate(start);
+        reservation.setStartTime(start.toLocalTime());
+        reservation.setEndTime(LocalTime.of(23, 59));
+        reservation.setParticipants(2);
+        return reservation;
+    }
+}
@@ -0,0 +1,53 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import start.spring.io.backend.model.NotificationOutbox;
+
+class NotificationCoalescerTest {
+
+    private final NotificationCoalescer coalescer = new NotificationCoalescer(3);
+
+    @Test
+    void mergesMessagesForSameRecipientIntoOneDigest() {
+        List<MailDeliveryEngine.Mail> mails = coalescer.coalesce(List.of(
+                message(1L, "marta@test.com", "Booking Cancelled: Padel"),
+                message(2L, "user@test.com", "Booking Confirmed: Tennis"),
+                message(3L, "Marta@test.com", "Booking Cancelled: Padel")));
+
+        assertThat(mails).hasSize(2);
+        MailDeliveryEngine.Mail digest = mails.get(0);
+        assertThat(digest.outboxIds()).containsExactly(1L, 3L);
+        assertThat(digest.subject()).isEqualTo("Booking Cancelled: Padel (2 updates)");
+        assertThat(digest.body()).contains("You have 2 new notifications").contains("Body 1").contains("Body 3");
+
+        MailDeliveryEngine.Mail single = mails.get(1);
+        assertThat(single.outboxIds()).containsExactly(2L);
+        assertThat(single.subject()).isEqualTo("Booking Confirmed: Tennis");
+        assertThat(single.body()).isEqualTo("Body 2");
+    }
+
+    @Test
+    void splitsVeryLargeDigests() {
+        List<MailDeliveryEngine.Mail> mails = coalescer.coalesce(List.of(
+                message(1L, "marta@test.com", "A"),
+                message(2L, "marta@test.com", "B"),
+                message(3L, "marta@test.com", "C"),
+                message(4L, "marta@test.com", "D")));
+
+        assertThat(mails).hasSize(2);
+        assertThat(mails.get(0).subject()).isEqualTo("FitEasePWR: 3 new updates");
+        assertThat(mails.get(1).outboxIds()).containsExactly(4L);
+    }
+
+    private NotificationOutbox message(Long id, String to, String subject) {
+        NotificationOutbox message = new NotificationOutbox(to, subject, "Body " + id, LocalDateTime.now());
+        message.setOutboxId(id);
+        return message;
+    }
+}
@@ -0,0 +1,40 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.model.NotificationOutbox;
+import start.spring.io.backend.repository.NotificationOutboxRepository;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class OutboxDispatcherTest {
+
+    @Autowired private OutboxDispatcher dispatcher;
+    @Autowired private NotificationOutboxRepository repository;
+
+    @Test
+    void mergesWaitingMessagesForTheSamePersonButNotRetriesInBackoff() {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox due = new NotificationOutbox("Pat@Claim.test", "Booking Cancelled", "Due", now.minusSeconds(1));
+        NotificationOutbox waiting = new NotificationOutbox("pat@claim.test", "Booking Cancelled", "Waiting", now);
+        waiting.setNextAttemptAt(now.plusSeconds(30)); // Still inside its coalesce window
+        NotificationOutbox retry = new NotificationOutbox(" PAT@claim.test", "Penalty Applied", "Retry", now);
+        retry.setAttempts(1);
+        retry.setNextAttemptAt(now.plusMinutes(10)); // The SMTP server failed, the backoff is not over
+        List<NotificationOutbox> saved = repository.saveAll(List.of(due, waiting, retry));
+
+        dispatcher.drain();
+
+        assertThat(repository.findById(saved.get(0).getOutboxId()).orElseThrow().getStatus()).isEqualTo("SENT");
+        assertThat(repository.findById(saved.get(1).getOutboxId()).orElseThrow().getStatus()).isEqualTo("SENT");
+        assertThat(repository.findById(saved.get(2).getOutboxId()).orElseThrow().getStatus()).isEqualTo("PENDING");
+    }
+}
@@ -0,0 +1,66 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import start.spring.io.backend.repository.PenaltyRepository;
+
+class StrikeCounterTest {
+
+    private final PenaltyRepository repository = mock(PenaltyRepository.class);
+    private final StrikeCounter counter = new StrikeCounter(repository, Duration.ofDays(90), 3);
+
+    @Test
+    void onlyCountsStrikesInsideTheWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        counter.onStrikeAdded(7, now.minusDays(100)); // Already expired
+        counter.onStrikeAdded(7, now.minusDays(10));
+        counter.onStrikeAdded(7, now.minusDays(1));
+
+        assertThat(counter.activeStrikes(7)).isEqualTo(2);
+        assertThat(counter.suspendedUntil(7)).isNull();
+
+        counter.onStrikeRemoved(7, now.minusDays(1));
+        assertThat(counter.activeStrikes(7)).isEqualTo(1);
+        assertThat(counter.activeStrikes(8)).isZero();
+    }
+
+    @Test
+    void suspensionEndsWhenTheOldestStrikeExpires() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime oldest = now.minusDays(30);
+        counter.onStrikeAdded(7, now.minusDays(2));
+        counter.onStrikeAdded(7, oldest);
+        counter.onStrikeAdded(7, now.minusDays(5));
+
+        assertThat(counter.activeStrikes(7)).isEqualTo(3);
+        assertThat(counter.suspendedUntil(7)).isEqualTo(oldest.plusDays(90));
+    }
+
+    @Test
+    void aStrikeGivenWhileRebuildingIsNotLost() {
+        LocalDateTime now = LocalDateTime.now();
+        counter.onStrikeAdded(7, now.minusDays(3));
+        counter.onStrikeAdded(8, now.minusDays(3));
+        when(repository.findStrikeDatesSince(any())).thenAnswer(invocation -> {
+            // Committed just after the database was read
+            counter.onStrikeAdded(7, now);
+            return List.<Object[]>of(new Object[]{7, now.minusDays(3)}, new Object[]{9, now.minusDays(1)});
+        });
+
+        counter.rebuild();
+
+        assertThat(counter.activeStrikes(7)).isEqualTo(2); // Kept until the next refresh
+        assertThat(counter.activeStrikes(8)).isZero();     // Removed on another server
+        assertThat(counter.activeStrikes(9)).isEqualTo(1); // Given on another server
+        assertThat(counter.windowStart()).isBetween(now.minusDays(90).minusMinutes(1), now.minusDays(90).plusMinutes(1));
+    }
+}
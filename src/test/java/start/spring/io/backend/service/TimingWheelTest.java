@@ -0,0 +1,58 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEveryTimerInTheTickItIsDueAcrossAllWheels() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 60, 0);
+        Random random = new Random(42);
+        long[] due = new long[2000];
+        for (int i = 0; i < due.length; i++) {
+            // From 1 second up to ~10 days ahead, so several wheels are needed.
+            due[i] = 1 + (long) (random.nextDouble() * 10 * 24 * 3600 * 1000L);
+            wheel.schedule(i, due[i]);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        for (long now = 0; now <= 11 * 24 * 3600 * 1000L; now += 60_000) {
+            for (Integer key : wheel.advanceTo(now)) {
+                // Never early, and at most one advance step (plus one tick) late.
+                assertThat(due[key]).isLessThanOrEqualTo(now);
+                assertThat(now - due[key]).isLessThan(61_000);
+                fired.add(key);
+            }
+        }
+        assertThat(fired).hasSize(due.length).doesNotHaveDuplicates();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledAndMovedTimers() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 60, 0);
+        wheel.schedule("a", 5_000);
+        wheel.schedule("b", 5_000);
+        wheel.schedule("c", 3_600_000);
+        wheel.cancel("b");
+        wheel.schedule("c", 2_000); // Moved closer
+
+        assertThat(wheel.advanceTo(1_000)).isEmpty();
+        assertThat(wheel.advanceTo(2_000)).containsExactly("c");
+        assertThat(wheel.advanceTo(10_000)).containsExactly("a");
+        assertThat(wheel.advanceTo(4_000_000)).isEmpty();
+    }
+
+    @Test
+    void timersInThePastFireOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 60, 10_000);
+        wheel.schedule("late", 5_000);
+        assertThat(wheel.advanceTo(10_000)).containsExactly("late");
+    }
+}
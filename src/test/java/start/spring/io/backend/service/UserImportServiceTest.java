@@ -0,0 +1,77 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import start.spring.io.backend.dto.UserImportProgressView;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void csvImportSkipsDuplicatesAndReportsBadRows() throws Exception {
+        userRepository.save(new User("Existing", "existing@import.test", passwordEncoder.encode("secret"), "user"));
+        Path file = Files.createTempFile("users", ".csv");
+        Files.writeString(file, """
+                name,email,password,role
+                "Nowak, Ana",ana@import.test,secret1,
+                Jan,jan@import.test,secret2,maintenance
+                Jan Again,jan@import.test,secret3,user
+                Old,existing@import.test,secret4,user
+                Bad,not-an-email,secret5,user
+                Eve,eve@import.test,secret6,superuser
+                """);
+
+        UserImportProgressView result = importService.importUsers("t1", file, "users.csv");
+
+        assertThat(result.isRunning()).isFalse();
+        assertThat(result.processed()).isEqualTo(6);
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.duplicates()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).extracting(UserImportProgressView.RowError::line).containsExactly(6L, 7L);
+        assertThat(Files.exists(file)).isFalse();
+
+        User ana = userRepository.findByEmail("ana@import.test").orElseThrow();
+        assertThat(ana.getName()).isEqualTo("Nowak, Ana");
+        assertThat(ana.getRole()).isEqualTo("user");
+        assertThat(passwordEncoder.matches("secret1", ana.getPassword())).isTrue();
+    }
+
+    @Test
+    void ndjsonImportKeepsExistingBcryptHashes() throws Exception {
+        String hash = passwordEncoder.encode("migrated").replace("{bcrypt}", "");
+        Path file = Files.createTempFile("users", ".ndjson");
+        Files.writeString(file, "{\"name\":\"Mia\",\"email\":\"mia@import.test\",\"password\":\"" + hash + "\"}\n"
+                + "{not json}\n");
+
+        UserImportProgressView result = importService.importUsers("t2", file, "users.ndjson");
+
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        User mia = userRepository.findByEmail("mia@import.test").orElseThrow();
+        assertThat(mia.getPassword()).isEqualTo("{bcrypt}" + hash);
+        assertThat(passwordEncoder.matches("migrated", mia.getPassword())).isTrue();
+    }
+}
@@ -0,0 +1,154 @@
+package start.spring.io.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import start.spring.io.backend.dto.UserDeletionReport;
+import start.spring.io.backend.dto.UserPageView;
+import start.spring.io.backend.dto.StaffWorkloadView;
+import start.spring.io.backend.dto.UserSummaryView;
+import start.spring.io.backend.model.Facility;
+import start.spring.io.backend.model.MaintenanceRequest;
+import start.spring.io.backend.model.Penalty;
+import start.spring.io.backend.model.Reservation;
+import start.spring.io.backend.model.User;
+import start.spring.io.backend.repository.FacilityRepository;
+import start.spring.io.backend.repository.MaintenanceRequestRepository;
+import start.spring.io.backend.repository.PenaltyRepository;
+import start.spring.io.backend.repository.ReservationRepository;
+import start.spring.io.backend.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "local-smtp"})
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired private FacilityRepository facilityRepository;
+    @Autowired private ReservationRepository reservationRepository;
+    @Autowired private PenaltyRepository penaltyRepository;
+    @Autowired private MaintenanceRequestRepository maintenanceRepository;
+    @Autowired private ReservationTimers reservationTimers;
+    @Autowired private MaintenanceDispatcher dispatcher;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void searchPagesThroughMatchesByKeyset() {
+        for (int i = 0; i < 5; i++) {
+            userRepository.save(new User("Zed " + i, "zed" + i + "@search.test", "x", "user"));
+        }
+        userRepository.save(new User("Other", "other@search.test", "x", "user"));
+
+        List<UserSummaryView> seen = new ArrayList<>();
+        UserPageView page = userService.getUserPage("ZED", null, 2);
+        seen.addAll(page.users());
+        while (page.hasNext()) {
+            page = userService.getUserPage("ZED", page.nextAfterId(), 2);
+            seen.addAll(page.users());
+        }
+
+        assertThat(seen).extracting(UserSummaryView::email)
+                .containsExactly("zed0@search.test", "zed1@search.test", "zed2@search.test", "zed3@search.test", "zed4@search.test");
+    }
+
+    @Test
+    void typedWildcardsAreSearchedLiterally() {
+        userRepository.save(new User("Percent", "100%sure@search.test", "x", "user"));
+        userRepository.save(new User("Plain", "100xsure@search.test", "x", "user"));
+
+        assertThat(userService.suggestUsers("100%", "user", 10)).extracting(UserSummaryView::email)
+                .containsExactly("100%sure@search.test");
+        assertThat(userService.suggestUsers("100%", "admin", 10)).isEmpty();
+    }
+
+    @Test
+    void deletingAUserRemovesTheirHistoryWithSetBasedDeletes() {
+        Facility facility = facilityRepository.save(new Facility("Delete Court", "Tennis", "Available"));
+        User member = userRepository.save(new User("Long Member", "member@delete.test", "x", "user"));
+        User staff = userRepository.save(new User("Staff", "staff@delete.test", "x", "maintenance"));
+        for (int i = 1; i <= 3; i++) {
+            Reservation reservation = new Reservation();
+            reservation.setUser(member);
+            reservation.setFacility(facility);
+            reservation.setDate(LocalDateTime.now().minusDays(i).withNano(0));
+            reservation.setStartTime(LocalTime.of(10, 0));
+            reservation.setEndTime(LocalTime.of(11, 0));
+            reservation.setParticipants(2);
+            reservationRepository.save(reservation);
+        }
+        penaltyRepository.save(new Penalty(member, "Late", LocalDateTime.now()));
+        MaintenanceRequest report = new MaintenanceRequest();
+        report.setUser(member);
+        report.setFacility(facility);
+        report.setStaff(staff);
+        report.setDescription("Broken net");
+        report.setStatus("PENDING");
+        report.setReportDate(LocalDateTime.now());
+        report.setIssueType("Equipment");
+        report.setSeverity("LOW");
+        maintenanceRepository.save(report);
+
+        UserDeletionReport result = userService.deleteUser(member.getUserId()).orElseThrow();
+
+        assertThat(result.reservations()).isEqualTo(3);
+        assertThat(result.penalties()).isEqualTo(1);
+        assertThat(result.maintenanceRequests()).isEqualTo(1);
+        assertThat(userRepository.findById(member.getUserId())).isEmpty();
+        assertThat(reservationRepository.findIdsByUser(member.getUserId())).isEmpty();
+        assertThat(userService.deleteUser(member.getUserId())).isEmpty();
+        // The report left with its author, so the staff member has nothing left to hand back.
+        assertThat(userService.deleteUser(staff.getUserId()).orElseThrow().unassignedRequests()).isZero();
+    }
+
+    @Test
+    void aRolledBackDeletionLeavesTheTimersAndTheDispatcherAlone() {
+        Facility facility = facilityRepository.save(new Facility("Rollback Court", "Tennis", "Available"));
+        User member = userRepository.save(new User("Rollback Member", "member@rollback.test", "x", "user"));
+        User staff = userRepository.save(new User("Rollback Staff", "staff@rollback.test", "x", "maintenance"));
+        Reservation reservation = new Reservation();
+        reservation.setUser(member);
+        reservation.setFacility(facility);
+        reservation.setDate(LocalDateTime.now().plusDays(2).withNano(0));
+        reservation.setStartTime(LocalTime.of(10, 0));
+        reservation.setEndTime(LocalTime.of(11, 0));
+        reservation.setParticipants(2);
+        reservationTimers.onSaved(reservationRepository.save(reservation));
+        dispatcher.rebuild();
+        double timers = waitingTimers();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.deleteUser(member.getUserId());
+            userService.deleteUser(staff.getUserId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(waitingTimers()).isEqualTo(timers);
+        assertThat(dispatcher.getWorkload()).extracting(StaffWorkloadView::staffId).contains(staff.getUserId());
+
+        userService.deleteUser(member.getUserId());
+        userService.deleteUser(staff.getUserId());
+
+        assertThat(waitingTimers()).isEqualTo(timers - 2);
+        assertThat(dispatcher.getWorkload()).extracting(StaffWorkloadView::staffId).doesNotContain(staff.getUserId());
+    }
+
+    private double waitingTimers() {
+        return meterRegistry.get("fitease.reservations.timers").gauge().value();
+    }
+}